@@ -0,0 +1,194 @@
+package com.example.nasaimageoftheday.activities;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.action.ViewActions.click;
+import static androidx.test.espresso.matcher.ViewMatchers.withId;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.nasaimageoftheday.R;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Opens the main screens with a StrictMode policy that kills the process on any disk
+ * or network access from the main thread, so work moved off it cannot creep back.
+ * The debug build only logs violations; here they fail the run.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class StrictModeTest {
+
+    /** Time allowed for results from the database thread to reach the screen */
+    private static final long SETTLE_MS = 2000;
+
+    /** Time allowed for a pending favorite change to finish */
+    private static final long FAVORITE_TIMEOUT_MS = 5000;
+
+    /** Policy of the main thread before the test */
+    private StrictMode.ThreadPolicy previousPolicy;
+
+    /**
+     * Installs the strict policy on the main thread.
+     */
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            previousPolicy = StrictMode.getThreadPolicy();
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .detectNetwork()
+                    .penaltyLog()
+                    .penaltyDeath()
+                    .build());
+        });
+    }
+
+    /**
+     * Restores the previous policy of the main thread.
+     */
+    @After
+    public void tearDown() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(
+                () -> StrictMode.setThreadPolicy(previousPolicy));
+    }
+
+    /**
+     * Opens the main screen.
+     */
+    @Test
+    public void mainScreen() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            settle();
+        }
+    }
+
+    /**
+     * Opens the search screen, which loads a picture and its favorite status.
+     */
+    @Test
+    public void searchScreen() {
+        try (ActivityScenario<ImageSearchActivity> scenario =
+                     ActivityScenario.launch(ImageSearchActivity.class)) {
+            settle();
+        }
+    }
+
+    /**
+     * Opens the favorites screen, which pages favorites from the database.
+     */
+    @Test
+    public void favoritesScreen() {
+        try (ActivityScenario<FavoritesActivity> scenario =
+                     ActivityScenario.launch(FavoritesActivity.class)) {
+            settle();
+        }
+    }
+
+    /**
+     * Opens the detail screen of a list entry, which reads the full entry from the
+     * archive.
+     */
+    @Test
+    public void detailScreenFromList() {
+        NasaImage listEntry = sampleImage();
+        listEntry.setExplanation(null);
+        try (ActivityScenario<ImageDetailActivity> scenario = ActivityScenario.launch(detailIntent(listEntry))) {
+            settle();
+        }
+    }
+
+    /**
+     * Opens the detail screen and toggles the favorite twice, leaving the favorites
+     * as they were.
+     */
+    @Test
+    public void detailScreenTogglesFavorite() {
+        try (ActivityScenario<ImageDetailActivity> scenario =
+                     ActivityScenario.launch(detailIntent(sampleImage()))) {
+            awaitEnabled(scenario, R.id.fab_favorite);
+            onView(withId(R.id.fab_favorite)).perform(click());
+            awaitEnabled(scenario, R.id.fab_favorite);
+            onView(withId(R.id.fab_favorite)).perform(click());
+            awaitEnabled(scenario, R.id.fab_favorite);
+        }
+    }
+
+    /**
+     * Builds the intent opening the detail screen.
+     *
+     * @param image The entry to show
+     * @return The intent
+     */
+    private static Intent detailIntent(NasaImage image) {
+        Context context = ApplicationProvider.getApplicationContext();
+        Intent intent = new Intent(context, ImageDetailActivity.class);
+        intent.putExtra(ImageDetailActivity.EXTRA_IMAGE, image);
+        return intent;
+    }
+
+    /**
+     * Builds a full entry for the detail screen.
+     *
+     * @return The entry
+     */
+    private static NasaImage sampleImage() {
+        return new NasaImage("StrictMode test entry", "1995-06-20",
+                "An entry used to exercise the detail screen.",
+                "https://apod.nasa.gov/apod/image/test.jpg",
+                "https://apod.nasa.gov/apod/image/test_hd.jpg",
+                "image", "");
+    }
+
+    /**
+     * Waits for the screen to receive its results from background threads.
+     */
+    private static void settle() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.waitForIdleSync();
+        SystemClock.sleep(SETTLE_MS);
+        instrumentation.waitForIdleSync();
+    }
+
+    /**
+     * Waits until a view is enabled, which the favorite button is once no database
+     * operation is pending.
+     *
+     * @param scenario The running screen
+     * @param viewId   The view ID
+     * @param <A>      The activity type
+     */
+    private static <A extends Activity> void awaitEnabled(ActivityScenario<A> scenario, int viewId) {
+        long deadline = SystemClock.uptimeMillis() + FAVORITE_TIMEOUT_MS;
+        boolean[] enabled = new boolean[1];
+        while (SystemClock.uptimeMillis() < deadline) {
+            scenario.onActivity(activity -> {
+                View view = activity.findViewById(viewId);
+                enabled[0] = view != null && view.isEnabled();
+            });
+            if (enabled[0]) {
+                return;
+            }
+            SystemClock.sleep(50);
+        }
+        throw new AssertionError("View never became enabled");
+    }
+}
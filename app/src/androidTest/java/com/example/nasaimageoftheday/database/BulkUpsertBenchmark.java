@@ -0,0 +1,174 @@
+package com.example.nasaimageoftheday.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ApodDates;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the batch upsert of {@link NasaImageDatabaseHelper#saveImages(List)}, one
+ * transaction with precompiled statements, with storing the same entries one
+ * {@link NasaImageDatabaseHelper#saveImage(NasaImage)} call at a time, at 100, 1,000
+ * and 10,000 rows. Both the insert of new dates and the update of archived ones are
+ * measured. Results are logged under {@value #TAG}.
+ * <p>
+ * The rows are dated from {@value #FIRST_DATE}, far from any real entry, and deleted
+ * afterwards.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class BulkUpsertBenchmark {
+
+    /** Tag for logging results */
+    private static final String TAG = "UpsertBenchmark";
+
+    /** Date of the first synthetic row */
+    private static final String FIRST_DATE = "2400-01-01";
+
+    /** Row counts measured */
+    private static final int[] SIZES = {100, 1000, 10000};
+
+    /** Database under test */
+    private NasaImageDatabaseHelper database;
+
+    /** Epoch day of the first synthetic row */
+    private long firstDay;
+
+    /**
+     * Opens the database and removes rows left by an earlier run.
+     */
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = NasaImageDatabaseHelper.getInstance(context);
+        firstDay = ApodDates.toEpochDay(FIRST_DATE);
+        deleteSyntheticRows();
+    }
+
+    /**
+     * Removes the synthetic rows.
+     */
+    @After
+    public void tearDown() {
+        deleteSyntheticRows();
+    }
+
+    /**
+     * Inserts and then updates each row count, per row and in one batch, and logs the
+     * time and throughput of each.
+     */
+    @Test
+    public void batchVersusPerRow() {
+        // Warm up the statement cache and the connection
+        List<NasaImage> warmup = syntheticImages(100, "warmup");
+        database.saveImages(warmup);
+        for (NasaImage image : warmup) {
+            database.saveImage(image);
+        }
+        deleteSyntheticRows();
+
+        for (int size : SIZES) {
+            List<NasaImage> images = syntheticImages(size, "v1");
+            List<NasaImage> updates = syntheticImages(size, "v2");
+
+            long perRowInsert = timePerRow(images);
+            long perRowUpdate = timePerRow(updates);
+            deleteSyntheticRows();
+
+            long batchInsert = timeBatch(images);
+            long batchUpdate = timeBatch(updates);
+            NasaImage last = database.getImageByDate(ApodDates.fromEpochDay(firstDay + size - 1));
+            assertNotNull(last);
+            assertEquals("Entry " + (size - 1) + " v2", last.getTitle());
+            deleteSyntheticRows();
+
+            Log.i(TAG, size + " rows: insert per row " + describe(perRowInsert, size)
+                    + ", batch " + describe(batchInsert, size)
+                    + "; update per row " + describe(perRowUpdate, size)
+                    + ", batch " + describe(batchUpdate, size));
+        }
+    }
+
+    /**
+     * Stores entries one call, and so one transaction, at a time.
+     *
+     * @param images The entries
+     * @return The elapsed time in nanoseconds
+     */
+    private long timePerRow(List<NasaImage> images) {
+        long start = System.nanoTime();
+        for (NasaImage image : images) {
+            database.saveImage(image);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Stores entries in one batch.
+     *
+     * @param images The entries
+     * @return The elapsed time in nanoseconds
+     */
+    private long timeBatch(List<NasaImage> images) {
+        long start = System.nanoTime();
+        database.saveImages(images);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Builds entries on consecutive days from {@link #FIRST_DATE}.
+     *
+     * @param count   The number of entries
+     * @param version Suffix of the titles, so an update changes every row
+     * @return The entries
+     */
+    private List<NasaImage> syntheticImages(int count, String version) {
+        List<NasaImage> images = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            images.add(new NasaImage("Entry " + i + " " + version,
+                    ApodDates.fromEpochDay(firstDay + i),
+                    "Synthetic explanation of entry " + i + ", revision " + version,
+                    "https://apod.test/image/" + i + ".jpg",
+                    "https://apod.test/image/" + i + "_hd.jpg",
+                    "image", "Benchmark"));
+        }
+        return images;
+    }
+
+    /**
+     * Deletes every row from {@link #FIRST_DATE} on.
+     */
+    private void deleteSyntheticRows() {
+        database.getWritableDatabase().delete(NasaImageDatabaseHelper.TABLE_ARCHIVE,
+                NasaImageDatabaseHelper.COLUMN_DAY + " >= ?",
+                new String[]{String.valueOf(firstDay)});
+    }
+
+    /**
+     * Formats a timing with its throughput.
+     *
+     * @param nanos The elapsed time in nanoseconds
+     * @param rows  The number of rows stored
+     * @return The time in milliseconds and the rows per second
+     */
+    private static String describe(long nanos, int rows) {
+        return nanos / 1_000_000 + " ms (" + Math.round(rows * 1e9 / Math.max(1, nanos)) + " rows/s)";
+    }
+}
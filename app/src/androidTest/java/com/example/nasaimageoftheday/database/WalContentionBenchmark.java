@@ -0,0 +1,244 @@
+package com.example.nasaimageoftheday.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ApodDates;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the latency of list reads while a bulk writer runs, as happens when the
+ * archive sync stores chunks while the user scrolls. The same date-range reads are
+ * timed first on an idle database and then while another thread writes 90-entry
+ * chunks back to back, once with write-ahead logging and once with the rollback
+ * journal the database used before; p50 and p99 of every run are logged under
+ * {@value #TAG}. With write-ahead logging the reads run on their own connection, so
+ * their latency under the writer should stay close to the idle one, while with the
+ * rollback journal they queue behind each chunk.
+ * <p>
+ * The rows are dated from {@value #FIRST_DATE}, far from any real entry, and deleted
+ * afterwards.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class WalContentionBenchmark {
+
+    /** Tag for logging results */
+    private static final String TAG = "WalBenchmark";
+
+    /** Date of the first synthetic row */
+    private static final String FIRST_DATE = "2400-01-01";
+
+    /** Number of rows the reads run over */
+    private static final int ROWS = 10000;
+
+    /** Entries written per transaction by the writer, as in one sync chunk */
+    private static final int CHUNK_SIZE = 90;
+
+    /** Days covered by each read, about one screen of a date-range list */
+    private static final int READ_DAYS = 30;
+
+    /** Untimed reads before each measurement */
+    private static final int WARMUP_READS = 50;
+
+    /** Timed reads per measurement */
+    private static final int MEASURED_READS = 1000;
+
+    /** Database under test */
+    private NasaImageDatabaseHelper database;
+
+    /** Epoch day of the first synthetic row */
+    private long firstDay;
+
+    /**
+     * Opens the database and stores the rows the reads run over.
+     */
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = NasaImageDatabaseHelper.getInstance(context);
+        firstDay = ApodDates.toEpochDay(FIRST_DATE);
+        deleteSyntheticRows();
+        database.saveImages(syntheticImages(0, ROWS, "v1"));
+    }
+
+    /**
+     * Restores write-ahead logging and removes the synthetic rows.
+     */
+    @After
+    public void tearDown() {
+        database.setWriteAheadLoggingEnabled(true);
+        deleteSyntheticRows();
+    }
+
+    /**
+     * Measures reads with write-ahead logging, then with the rollback journal.
+     *
+     * @throws Exception If the writer fails
+     */
+    @Test
+    public void walVersusRollbackJournal() throws Exception {
+        measure("WAL");
+
+        database.setWriteAheadLoggingEnabled(false);
+        measure("Rollback journal");
+    }
+
+    /**
+     * Times reads on an idle database, then while a writer rewrites the rows chunk by
+     * chunk, and logs the percentiles of both.
+     *
+     * @param mode The journal mode in use, for the log
+     * @throws Exception If the writer fails
+     */
+    private void measure(String mode) throws Exception {
+        Random random = new Random(42);
+        long[] idle = timeReads(random);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger chunksWritten = new AtomicInteger();
+        Throwable[] writerFailure = new Throwable[1];
+        Thread writer = new Thread(() -> {
+            try {
+                int next = 0;
+                String version = "v2";
+                while (running.get()) {
+                    database.saveImages(syntheticImages(next, CHUNK_SIZE, version));
+                    chunksWritten.incrementAndGet();
+                    next += CHUNK_SIZE;
+                    if (next + CHUNK_SIZE > ROWS) {
+                        next = 0;
+                        version = "v2".equals(version) ? "v3" : "v2";
+                    }
+                }
+            } catch (Throwable t) {
+                writerFailure[0] = t;
+            }
+        }, "benchmark-writer");
+        writer.start();
+
+        long[] contended;
+        try {
+            contended = timeReads(random);
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        if (writerFailure[0] != null) {
+            throw new AssertionError("Writer failed", writerFailure[0]);
+        }
+        assertTrue(chunksWritten.get() > 0);
+
+        Log.i(TAG, mode + ": reads of " + READ_DAYS + " days over " + ROWS + " rows: idle p50 "
+                + micros(percentile(idle, 50)) + " p99 " + micros(percentile(idle, 99))
+                + "; with writer p50 " + micros(percentile(contended, 50))
+                + " p99 " + micros(percentile(contended, 99))
+                + " (" + chunksWritten.get() + " chunks of " + CHUNK_SIZE + " written)");
+    }
+
+    /**
+     * Times date-range reads at random positions in the synthetic rows.
+     *
+     * @param random The source of read positions
+     * @return The latency of each timed read in nanoseconds
+     */
+    private long[] timeReads(Random random) {
+        for (int i = 0; i < WARMUP_READS; i++) {
+            read(random);
+        }
+        long[] latencies = new long[MEASURED_READS];
+        for (int i = 0; i < MEASURED_READS; i++) {
+            long start = System.nanoTime();
+            int count = read(random);
+            latencies[i] = System.nanoTime() - start;
+            assertEquals(READ_DAYS, count);
+        }
+        return latencies;
+    }
+
+    /**
+     * Reads one range of list entries at a random position.
+     *
+     * @param random The source of read positions
+     * @return The number of entries read
+     */
+    private int read(Random random) {
+        long start = firstDay + random.nextInt(ROWS - READ_DAYS);
+        return database.getImagesInRange(ApodDates.fromEpochDay(start),
+                ApodDates.fromEpochDay(start + READ_DAYS - 1), false).size();
+    }
+
+    /**
+     * Builds entries on consecutive days.
+     *
+     * @param offset  Index of the first entry, in days from {@link #FIRST_DATE}
+     * @param count   The number of entries
+     * @param version Suffix of the titles, so a rewrite changes every row
+     * @return The entries
+     */
+    private List<NasaImage> syntheticImages(int offset, int count, String version) {
+        List<NasaImage> images = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            images.add(new NasaImage("Entry " + i + " " + version,
+                    ApodDates.fromEpochDay(firstDay + i),
+                    "Synthetic explanation of entry " + i + ", revision " + version,
+                    "https://apod.test/image/" + i + ".jpg",
+                    "https://apod.test/image/" + i + "_hd.jpg",
+                    "image", "Benchmark"));
+        }
+        return images;
+    }
+
+    /**
+     * Deletes every row from {@link #FIRST_DATE} on.
+     */
+    private void deleteSyntheticRows() {
+        database.getWritableDatabase().delete(NasaImageDatabaseHelper.TABLE_ARCHIVE,
+                NasaImageDatabaseHelper.COLUMN_DAY + " >= ?",
+                new String[]{String.valueOf(firstDay)});
+    }
+
+    /**
+     * Gets a percentile of some latencies.
+     *
+     * @param values     The latencies in nanoseconds
+     * @param percentile The percentile, from 0 to 100
+     * @return The latency at that percentile
+     */
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Formats a latency in microseconds.
+     *
+     * @param nanos The latency in nanoseconds
+     * @return The formatted latency
+     */
+    private static String micros(long nanos) {
+        return nanos / 1000 + " us";
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.nasaimageoftheday.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the streaming {@link ApodJsonParser} with the previous parsing path
+ * (read the body line by line, build a {@link JSONArray}, then copy each object) on
+ * large synthetic range responses. {@link android.util.JsonReader} only exists on a
+ * device, so this runs as an instrumented test; results are logged under
+ * {@value #TAG}.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class ApodJsonParserBenchmark {
+
+    /** Tag for logging results */
+    private static final String TAG = "ParserBenchmark";
+
+    /** Array sizes measured */
+    private static final int[] SIZES = {1000, 5000, 10000};
+
+    /** Untimed runs before measuring */
+    private static final int WARMUP_RUNS = 2;
+
+    /** Timed runs per size; the median is reported */
+    private static final int MEASURED_RUNS = 5;
+
+    /** Holds the last parse result so it is not collected while the heap is measured */
+    private static volatile Object sink;
+
+    /**
+     * Parses each synthetic array with both paths and logs the median time and the
+     * heap growth of one run.
+     *
+     * @throws Exception If parsing fails
+     */
+    @Test
+    public void streamingVersusTree() throws Exception {
+        for (int size : SIZES) {
+            byte[] body = syntheticArray(size);
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                assertEquals(size, parseStreaming(body).size());
+                assertEquals(size, parseTree(body).size());
+            }
+
+            long[] streaming = new long[MEASURED_RUNS];
+            long[] tree = new long[MEASURED_RUNS];
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                parseStreaming(body);
+                streaming[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                parseTree(body);
+                tree[i] = System.nanoTime() - start;
+            }
+
+            Log.i(TAG, size + " entries (" + body.length / 1024 + " KiB): streaming "
+                    + median(streaming) / 1_000_000 + " ms, heap +" + heapGrowth(true, body) / 1024
+                    + " KiB; tree " + median(tree) / 1_000_000 + " ms, heap +"
+                    + heapGrowth(false, body) / 1024 + " KiB");
+        }
+    }
+
+    /**
+     * Checks that both paths produce the same entries, so the timings compare like
+     * with like.
+     *
+     * @throws Exception If parsing fails
+     */
+    @Test
+    public void bothPathsAgree() throws Exception {
+        byte[] body = syntheticArray(50);
+        List<NasaImage> streaming = parseStreaming(body);
+        List<NasaImage> tree = parseTree(body);
+        assertEquals(tree.size(), streaming.size());
+        for (int i = 0; i < tree.size(); i++) {
+            assertEquals(tree.get(i).getDate(), streaming.get(i).getDate());
+            assertEquals(tree.get(i).getTitle(), streaming.get(i).getTitle());
+            assertEquals(tree.get(i).getHdUrl(), streaming.get(i).getHdUrl());
+        }
+    }
+
+    /**
+     * Parses with the streaming parser, keeping every entry like a range request does.
+     *
+     * @param body The response body
+     * @return The entries
+     * @throws IOException If parsing fails
+     */
+    private static List<NasaImage> parseStreaming(byte[] body) throws IOException {
+        List<NasaImage> images = new ArrayList<>();
+        ApodJsonParser.parseArray(new ByteArrayInputStream(body), images::add);
+        return images;
+    }
+
+    /**
+     * Parses the way the client did before the streaming parser: the whole body as a
+     * string, then a JSON tree, then the entries.
+     *
+     * @param body The response body
+     * @return The entries
+     * @throws IOException   If the body cannot be read
+     * @throws JSONException If the body is not valid JSON
+     */
+    private static List<NasaImage> parseTree(byte[] body) throws IOException, JSONException {
+        InputStream in = new ByteArrayInputStream(body);
+        StringBuilder text = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                text.append(line);
+            }
+        }
+        JSONArray array = new JSONArray(text.toString());
+        List<NasaImage> images = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            images.add(new NasaImage(
+                    json.optString("title", "No Title"),
+                    json.optString("date", ""),
+                    json.optString("explanation", ""),
+                    json.optString("url", ""),
+                    json.optString("hdurl", ""),
+                    json.optString("media_type", "image"),
+                    json.optString("copyright", "")));
+        }
+        return images;
+    }
+
+    /**
+     * Measures how much the heap grows during one parse, with the result still held.
+     *
+     * @param streaming True to use the streaming parser
+     * @param body      The response body
+     * @return The heap growth in bytes
+     * @throws Exception If parsing fails
+     */
+    private static long heapGrowth(boolean streaming, byte[] body) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        List<NasaImage> images = streaming ? parseStreaming(body) : parseTree(body);
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        // Keep the entries reachable until after the measurement
+        sink = images;
+        return Math.max(0, after - before);
+    }
+
+    /**
+     * Builds a range response with entries shaped like real APOD entries.
+     *
+     * @param size The number of entries
+     * @return The UTF-8 JSON array
+     */
+    private static byte[] syntheticArray(int size) {
+        StringBuilder json = new StringBuilder(size * 1200).append('[');
+        long firstDay = ApodDates.FIRST_APOD_EPOCH_DAY;
+        char[] filler = new char[900];
+        Arrays.fill(filler, 'x');
+        String explanation = new String(filler);
+        for (int i = 0; i < size; i++) {
+            String date = ApodDates.fromEpochDay(firstDay + i);
+            if (i > 0) {
+                json.append(",\n");
+            }
+            json.append("{\"copyright\":\"Photographer ").append(i)
+                    .append("\",\"date\":\"").append(date)
+                    .append("\",\"explanation\":\"").append(explanation)
+                    .append("\",\"hdurl\":\"https://apod.nasa.gov/apod/image/hd_").append(i)
+                    .append(".jpg\",\"media_type\":\"image\",\"service_version\":\"v1\"")
+                    .append(",\"title\":\"Entry ").append(i)
+                    .append("\",\"url\":\"https://apod.nasa.gov/apod/image/").append(i)
+                    .append(".jpg\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the median of some timings.
+     *
+     * @param values The timings in nanoseconds
+     * @return The median
+     */
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
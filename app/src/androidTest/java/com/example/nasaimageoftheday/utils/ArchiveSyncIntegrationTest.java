@@ -0,0 +1,332 @@
+package com.example.nasaimageoftheday.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@link ArchiveSync} against a stand-in {@link HttpTransport} serving a
+ * synthetic archive from the first APOD entry to today, about thirty years of
+ * entries. Checks that the whole archive is stored, that an interrupted sync resumes
+ * from its checkpoint without fetching stored chunks again, and that a rejected
+ * request is not retried by the worker.
+ * <p>
+ * The sync writes to a separate database file, deleted afterwards, so the app's own
+ * archive is never touched; range requests bypass the client's response cache. The
+ * checkpoint lives in the app's preferences and is restored afterwards.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArchiveSyncIntegrationTest {
+
+    /** Base URL the stand-in transport answers */
+    private static final String BASE_URL = "https://apod.test/planetary/apod";
+
+    /** Name of the database file the test archive is kept in */
+    private static final String TEST_DATABASE = "archive_sync_test.db";
+
+    /** Application context */
+    private Context context;
+
+    /** Holds the checkpoint */
+    private PreferencesHelper preferences;
+
+    /** Checkpoint of the app before the test */
+    private long previousCheckpoint;
+
+    /** Archive the test syncs into */
+    private NasaImageDatabaseHelper archive;
+
+    /** Client sending its requests to the stand-in transport */
+    private NasaApiClient client;
+
+    /** Stand-in transport serving the archive */
+    private FakeArchiveTransport transport;
+
+    /**
+     * Opens an empty test archive, points a client at the stand-in transport and starts
+     * the sync from scratch.
+     */
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DATABASE);
+        archive = NasaImageDatabaseHelper.createForTesting(context, TEST_DATABASE);
+
+        preferences = PreferencesHelper.getInstance(context);
+        previousCheckpoint = preferences.getSyncCheckpoint();
+        preferences.saveSyncCheckpoint(-1);
+
+        transport = new FakeArchiveTransport();
+        client = new NasaApiClient(context, BASE_URL, transport);
+    }
+
+    /**
+     * Restores the app's checkpoint and deletes the test archive.
+     */
+    @After
+    public void tearDown() {
+        preferences.saveSyncCheckpoint(previousCheckpoint);
+        archive.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    /**
+     * Syncs the whole archive and spot-checks the stored entries.
+     *
+     * @throws Exception If the sync fails
+     */
+    @Test
+    public void syncsWholeArchive() throws Exception {
+        ArchiveSync sync = newSync();
+        List<Integer> progress = new ArrayList<>();
+
+        ArchiveSync.Stats stats = sync.run(s -> progress.add(s.getProgress()), null);
+
+        long days = ApodDates.todayEpochDay() - ApodDates.FIRST_APOD_EPOCH_DAY;
+        assertEquals(days, stats.getEntries());
+        assertEquals(0, stats.getRemainingDays());
+        assertEquals(100, stats.getProgress());
+        assertEquals((days + NasaApiClient.MAX_RANGE_DAYS - 1) / NasaApiClient.MAX_RANGE_DAYS,
+                transport.requests.size());
+        assertEquals(transport.requests.size(), progress.size());
+        assertTrue(sync.isComplete());
+
+        for (long day : new long[] {ApodDates.FIRST_APOD_EPOCH_DAY,
+                ApodDates.FIRST_APOD_EPOCH_DAY + days / 2, ApodDates.todayEpochDay() - 1}) {
+            NasaImage image = archive.getImageByDate(ApodDates.fromEpochDay(day));
+            assertNotNull(image);
+            assertEquals(titleOf(day), image.getTitle());
+        }
+    }
+
+    /**
+     * Interrupts the sync with a network failure and checks that the next run starts
+     * with the chunk that failed.
+     *
+     * @throws Exception If the resumed sync fails
+     */
+    @Test
+    public void resumesFromCheckpointAfterFailure() throws Exception {
+        transport.failAfter = 10;
+        try {
+            newSync().run(null, null);
+            fail("The sync should have failed");
+        } catch (NasaApiException e) {
+            assertEquals(0, e.getStatusCode());
+        }
+        long checkpoint = preferences.getSyncCheckpoint();
+        assertEquals(ApodDates.FIRST_APOD_EPOCH_DAY + 10L * NasaApiClient.MAX_RANGE_DAYS - 1,
+                checkpoint);
+
+        transport.failAfter = Integer.MAX_VALUE;
+        transport.requests.clear();
+        newSync().run(null, null);
+
+        Uri first = Uri.parse(transport.requests.get(0));
+        assertEquals(ApodDates.fromEpochDay(checkpoint + 1), first.getQueryParameter("start_date"));
+        assertTrue(newSync().isComplete());
+    }
+
+    /**
+     * Checks that a rejected key stops the sync and is not retried, while a rate limit
+     * or a server error is.
+     */
+    @Test
+    public void rejectedRequestIsNotRetried() {
+        transport.status = 403;
+        try {
+            newSync().run(null, null);
+            fail("The sync should have failed");
+        } catch (NasaApiException e) {
+            assertEquals(403, e.getStatusCode());
+            assertTrue(ArchiveSyncWorker.isPermanent(e));
+        }
+        assertEquals(1, transport.requests.size());
+        assertFalse(newSync().isComplete());
+
+        assertFalse(ArchiveSyncWorker.isPermanent(new NasaApiException("Too many requests", 429, 0)));
+        assertFalse(ArchiveSyncWorker.isPermanent(new NasaApiException("Unavailable", 503, 0)));
+        assertFalse(ArchiveSyncWorker.isPermanent(new NasaApiException("Network error")));
+    }
+
+    /**
+     * Creates a sync writing to the test archive.
+     *
+     * @return The sync
+     */
+    private ArchiveSync newSync() {
+        return new ArchiveSync(client, archive, preferences);
+    }
+
+    /**
+     * Gets the title served for a day.
+     *
+     * @param epochDay The day
+     * @return The title
+     */
+    private static String titleOf(long epochDay) {
+        return "Synthetic entry " + epochDay;
+    }
+
+    /**
+     * Serves range requests from a synthetic archive, optionally failing.
+     */
+    private static class FakeArchiveTransport implements HttpTransport {
+
+        /** URLs requested so far */
+        final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        /** Number of requests answered before the connection starts failing */
+        volatile int failAfter = Integer.MAX_VALUE;
+
+        /** Status code of every response */
+        volatile int status = 200;
+
+        /**
+         * Answers a range request with one entry per day.
+         *
+         * @param url         The URL to request
+         * @param headers     Extra request headers
+         * @param onConnected Optional callback run once connected
+         * @param signal      Optional cancellation signal
+         * @return The response
+         * @throws IOException Once the configured number of requests has been answered
+         */
+        @Override
+        public Response get(String url, Map<String, String> headers, @Nullable Runnable onConnected,
+                            @Nullable CancellationSignal signal) throws IOException {
+            if (requests.size() >= failAfter) {
+                throw new IOException("Connection reset");
+            }
+            requests.add(url);
+            if (onConnected != null) {
+                onConnected.run();
+            }
+            if (status != 200) {
+                return new FakeResponse(status,
+                        "{\"error\":{\"code\":\"API_KEY_INVALID\",\"message\":\"An invalid api_key was supplied\"}}");
+            }
+
+            Uri uri = Uri.parse(url);
+            long start = ApodDates.toEpochDay(uri.getQueryParameter("start_date"));
+            long end = ApodDates.toEpochDay(uri.getQueryParameter("end_date"));
+            StringBuilder json = new StringBuilder("[");
+            for (long day = start; day <= end; day++) {
+                if (day > start) {
+                    json.append(',');
+                }
+                String date = ApodDates.fromEpochDay(day);
+                json.append("{\"date\":\"").append(date)
+                        .append("\",\"explanation\":\"Explanation of ").append(date)
+                        .append("\",\"hdurl\":\"https://apod.test/image/").append(day)
+                        .append("_hd.jpg\",\"media_type\":\"image\",\"service_version\":\"v1\"")
+                        .append(",\"title\":\"").append(titleOf(day))
+                        .append("\",\"url\":\"https://apod.test/image/").append(day)
+                        .append(".jpg\"}");
+            }
+            return new FakeResponse(200, json.append(']').toString());
+        }
+    }
+
+    /**
+     * A canned response.
+     */
+    private static class FakeResponse implements HttpTransport.Response {
+
+        /** Status code */
+        private final int status;
+
+        /** Body bytes */
+        private final byte[] body;
+
+        /**
+         * Constructor with status and body.
+         *
+         * @param status The status code
+         * @param body   The body text
+         */
+        FakeResponse(int status, String body) {
+            this.status = status;
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Gets the status code.
+         *
+         * @return The status code
+         */
+        @Override
+        public int getStatusCode() {
+            return status;
+        }
+
+        /**
+         * Gets a header; the stand-in sends none.
+         *
+         * @param name The header name
+         * @return null
+         */
+        @Nullable
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        /**
+         * Gets the body length.
+         *
+         * @return The length in bytes
+         */
+        @Override
+        public long getContentLength() {
+            return body.length;
+        }
+
+        /**
+         * Gets the body.
+         *
+         * @return The body stream
+         */
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        /**
+         * Nothing to release.
+         */
+        @Override
+        public void close() {
+        }
+    }
+}
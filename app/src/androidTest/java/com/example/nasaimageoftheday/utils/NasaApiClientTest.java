@@ -0,0 +1,389 @@
+package com.example.nasaimageoftheday.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.models.FetchTiming;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs {@link NasaApiClient} against a stand-in {@link HttpTransport} answering from a
+ * script, to check how the client recovers from failures: a rate-limited request is
+ * retried once the Retry-After delay has passed, repeated server errors open the
+ * circuit so that the next call fails without a request, and a server error on
+ * today's entry is answered from the response cache or the archive.
+ * <p>
+ * Each test uses its own client, with its own rate limiter, cache directory and
+ * database file, all deleted afterwards, so the app's cache and archive are never
+ * touched.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class NasaApiClientTest {
+
+    /** Base URL the stand-in transport answers */
+    private static final String BASE_URL = "https://apod.test/planetary/apod";
+
+    /** Name of the database file the test archive is kept in */
+    private static final String TEST_DATABASE = "nasa_api_client_test.db";
+
+    /** Name of the directory the test response cache is kept in */
+    private static final String TEST_CACHE_DIRECTORY = "nasa_api_client_test";
+
+    /** Attempts made for one call before giving up, the first plus three retries */
+    private static final int ATTEMPTS_PER_CALL = 4;
+
+    /** Age of a cached response that is too old to be used without a request */
+    private static final long STALE_AGE_MS = 7L * 60 * 60 * 1000;
+
+    /** Application context */
+    private Context context;
+
+    /** Archive of the client under test */
+    private NasaImageDatabaseHelper archive;
+
+    /** Response cache directory of the client under test */
+    private File cacheDirectory;
+
+    /** Stand-in transport */
+    private ScriptedTransport transport;
+
+    /** Client under test */
+    private NasaApiClient client;
+
+    /** Today's date, the one entry that is never final */
+    private String today;
+
+    /**
+     * Creates a client with an empty archive and an empty response cache.
+     */
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DATABASE);
+        archive = NasaImageDatabaseHelper.createForTesting(context, TEST_DATABASE);
+        cacheDirectory = new File(context.getCacheDir(), TEST_CACHE_DIRECTORY);
+        deleteCacheDirectory();
+
+        transport = new ScriptedTransport();
+        client = new NasaApiClient(BASE_URL, transport, cacheDirectory, archive);
+        today = ApodDates.today();
+    }
+
+    /**
+     * Deletes the test archive and response cache.
+     */
+    @After
+    public void tearDown() {
+        archive.close();
+        context.deleteDatabase(TEST_DATABASE);
+        deleteCacheDirectory();
+    }
+
+    /**
+     * A 429 is retried no sooner than its Retry-After delay, and the retry's answer is
+     * returned.
+     *
+     * @throws Exception If the fetch fails
+     */
+    @Test
+    public void rateLimitedRequestWaitsForRetryAfter() throws Exception {
+        transport.enqueue(new ScriptedResponse(429, "{\"msg\":\"Too many requests\"}")
+                .withHeader("Retry-After", "1"));
+        transport.enqueue(entryResponse(today, "Retried entry"));
+
+        long started = SystemClock.elapsedRealtime();
+        NasaImage image = client.fetchImage(today, null, null);
+        long elapsed = SystemClock.elapsedRealtime() - started;
+
+        assertEquals("Retried entry", image.getTitle());
+        assertEquals(2, transport.requests.size());
+        assertEquals(2, image.getFetchTiming().getAttempts());
+        assertTrue("Retried after " + elapsed + " ms", elapsed >= 1000);
+    }
+
+    /**
+     * Five server errors in a row open the circuit: the call after that fails at once
+     * without sending a request.
+     */
+    @Test
+    public void repeatedServerErrorsOpenCircuit() {
+        transport.fallback = new ScriptedResponse(503, "{\"msg\":\"Service unavailable\"}");
+
+        assertFetchFails(503);
+        assertEquals(ATTEMPTS_PER_CALL, transport.requests.size());
+
+        // The fifth failure opens the circuit, so the first retry is refused
+        assertFetchFails(0);
+        assertEquals(ATTEMPTS_PER_CALL + 1, transport.requests.size());
+
+        assertFetchFails(0);
+        assertEquals(ATTEMPTS_PER_CALL + 1, transport.requests.size());
+    }
+
+    /**
+     * A server error on today's entry is answered with the stale cached response,
+     * after revalidating it was tried.
+     *
+     * @throws Exception If the fetch fails
+     */
+    @Test
+    public void serverErrorServesStaleCachedEntry() throws Exception {
+        String url = BASE_URL + "?api_key=unused&date=" + today;
+        new ApodResponseCache(cacheDirectory, Long.MAX_VALUE).put(ApodResponseCache.keyFor(url),
+                entryJson(today, "Cached entry").getBytes(StandardCharsets.UTF_8),
+                "\"v1\"", null, System.currentTimeMillis() - STALE_AGE_MS);
+        transport.fallback = new ScriptedResponse(500, "{\"msg\":\"Internal error\"}");
+
+        NasaImage image = client.fetchImage(today, null, null);
+
+        assertEquals("Cached entry", image.getTitle());
+        assertEquals(FetchTiming.Source.CACHE, image.getFetchTiming().getSource());
+        assertEquals(ATTEMPTS_PER_CALL, transport.requests.size());
+        assertEquals("\"v1\"", transport.lastHeaders.get("If-None-Match"));
+    }
+
+    /**
+     * A server error on today's entry with nothing cached is answered from the archive.
+     *
+     * @throws Exception If the fetch fails
+     */
+    @Test
+    public void serverErrorServesArchivedEntry() throws Exception {
+        archive.saveImage(new NasaImage("Archived entry", today, "Archived explanation",
+                "https://apod.test/image/today.jpg", "https://apod.test/image/today_hd.jpg",
+                "image", ""));
+        transport.fallback = new ScriptedResponse(502, "{\"msg\":\"Bad gateway\"}");
+
+        NasaImage image = client.fetchImage(today, null, null);
+
+        assertEquals("Archived entry", image.getTitle());
+        assertNotNull(image.getFetchTiming());
+        assertEquals(FetchTiming.Source.ARCHIVE, image.getFetchTiming().getSource());
+        assertEquals(ATTEMPTS_PER_CALL, transport.requests.size());
+    }
+
+    /**
+     * Fetches today's entry and checks that it fails.
+     *
+     * @param statusCode The expected status code, 0 if no response was received
+     */
+    private void assertFetchFails(int statusCode) {
+        try {
+            client.fetchImage(today, null, null);
+            fail("The fetch should have failed");
+        } catch (NasaApiException e) {
+            assertEquals(statusCode, e.getStatusCode());
+        }
+    }
+
+    /**
+     * Deletes the test cache directory and its entries.
+     */
+    private void deleteCacheDirectory() {
+        File[] files = cacheDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDirectory.delete();
+    }
+
+    /**
+     * Builds a successful response carrying one entry.
+     *
+     * @param date  The date of the entry
+     * @param title The title of the entry
+     * @return The response
+     */
+    private static ScriptedResponse entryResponse(String date, String title) {
+        return new ScriptedResponse(200, entryJson(date, title));
+    }
+
+    /**
+     * Builds the JSON of one entry as the API sends it.
+     *
+     * @param date  The date of the entry
+     * @param title The title of the entry
+     * @return The JSON text
+     */
+    private static String entryJson(String date, String title) {
+        return "{\"date\":\"" + date + "\",\"explanation\":\"Explanation of " + date
+                + "\",\"hdurl\":\"https://apod.test/image/" + date + "_hd.jpg\""
+                + ",\"media_type\":\"image\",\"service_version\":\"v1\""
+                + ",\"title\":\"" + title + "\",\"url\":\"https://apod.test/image/" + date + ".jpg\"}";
+    }
+
+    /**
+     * Answers requests with scripted responses in order, then with a fallback.
+     */
+    private static class ScriptedTransport implements HttpTransport {
+
+        /** URLs requested so far */
+        final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        /** Responses still to be sent, in order */
+        private final Deque<ScriptedResponse> script = new ArrayDeque<>();
+
+        /** Response sent once the script is used up, or null to fail the test */
+        volatile ScriptedResponse fallback;
+
+        /** Headers of the last request */
+        volatile Map<String, String> lastHeaders = Collections.emptyMap();
+
+        /**
+         * Adds a response to the end of the script.
+         *
+         * @param response The response
+         */
+        synchronized void enqueue(ScriptedResponse response) {
+            script.add(response);
+        }
+
+        /**
+         * Records the request and answers with the next scripted response.
+         *
+         * @param url         The URL to request
+         * @param headers     Extra request headers
+         * @param onConnected Optional callback run once connected
+         * @param signal      Optional cancellation signal
+         * @return The response
+         * @throws IOException If the script is used up and there is no fallback
+         */
+        @Override
+        public synchronized Response get(String url, Map<String, String> headers,
+                                         @Nullable Runnable onConnected,
+                                         @Nullable CancellationSignal signal) throws IOException {
+            requests.add(url);
+            lastHeaders = new HashMap<>(headers);
+            ScriptedResponse next = script.isEmpty() ? fallback : script.poll();
+            if (next == null) {
+                throw new IOException("No scripted response for " + url);
+            }
+            if (onConnected != null) {
+                onConnected.run();
+            }
+            return next;
+        }
+    }
+
+    /**
+     * A canned response with optional headers.
+     */
+    private static class ScriptedResponse implements HttpTransport.Response {
+
+        /** Status code */
+        private final int status;
+
+        /** Body bytes */
+        private final byte[] body;
+
+        /** Headers, looked up regardless of case */
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        /**
+         * Constructor with status and body.
+         *
+         * @param status The status code
+         * @param body   The body text
+         */
+        ScriptedResponse(int status, String body) {
+            this.status = status;
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Adds a header.
+         *
+         * @param name  The header name
+         * @param value The header value
+         * @return This response
+         */
+        ScriptedResponse withHeader(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * Gets the status code.
+         *
+         * @return The status code
+         */
+        @Override
+        public int getStatusCode() {
+            return status;
+        }
+
+        /**
+         * Gets a header.
+         *
+         * @param name The header name
+         * @return The header value, or null if not set
+         */
+        @Nullable
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        /**
+         * Gets the body length.
+         *
+         * @return The length in bytes
+         */
+        @Override
+        public long getContentLength() {
+            return body.length;
+        }
+
+        /**
+         * Gets the body.
+         *
+         * @return The body stream
+         */
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        /**
+         * Nothing to release.
+         */
+        @Override
+        public void close() {
+        }
+    }
+}
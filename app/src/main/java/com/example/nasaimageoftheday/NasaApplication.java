@@ -0,0 +1,42 @@
+package com.example.nasaimageoftheday;
+
+import android.app.Application;
+import android.os.StrictMode;
+
+import com.example.nasaimageoftheday.utils.DailyApodWorker;
+import com.example.nasaimageoftheday.utils.OfflineImageStore;
+
+/**
+ * Application class for the NASA Image of the Day application.
+ * Schedules the background job that fetches each day's picture.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class NasaApplication extends Application {
+
+    /**
+     * Called when the application is starting.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            enableStrictMode();
+        }
+        DailyApodWorker.schedule(this);
+        OfflineImageStore.getInstance(this).start();
+    }
+
+    /**
+     * Reports disk access on the main thread in debug builds, so that database
+     * queries moved to the repository do not creep back onto it.
+     */
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .penaltyLog()
+                .build());
+    }
+}
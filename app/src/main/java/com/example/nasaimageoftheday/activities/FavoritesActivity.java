@@ -5,48 +5,84 @@ import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.example.nasaimageoftheday.R;
 import com.example.nasaimageoftheday.adapters.NasaImageAdapter;
-import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.database.InvalidationTracker;
+import com.example.nasaimageoftheday.database.NasaImageRepository;
 import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.PagedFavoritesLoader;
 import com.google.android.material.snackbar.Snackbar;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Activity for displaying and managing favorite NASA images.
- * Shows a ListView of saved favorites with the ability to view details or delete items.
+ * Shows a RecyclerView of saved favorites with the ability to view details or delete items.
+ * Favorites are loaded page by page as the list scrolls. A long press starts a
+ * selection mode in which several favorites are removed at once. Changes made here or
+ * on other screens arrive from the {@link InvalidationTracker} and are applied to the
+ * loaded list in place, so returning to this screen does not reload it, and only the
+ * rows that changed are animated.
  *
  * @author Your Name
  * @version 1.0
  */
-public class FavoritesActivity extends AppCompatActivity {
+public class FavoritesActivity extends AppCompatActivity
+        implements PagedFavoritesLoader.Listener, InvalidationTracker.Observer,
+        NasaImageAdapter.Listener {
 
-    /** ListView for displaying favorites */
-    private ListView listView;
+    /** Number of rows from the end of the list at which the next page is requested */
+    private static final int LOAD_AHEAD_ROWS = 10;
+
+    /** Number of rows ahead of the scroll direction whose thumbnails are preloaded */
+    private static final int PRELOAD_ROWS = 8;
+
+    /** Number of off-screen rows kept bound, so short scroll reversals do not rebind */
+    private static final int ITEM_VIEW_CACHE_SIZE = 4;
+
+    /** Number of detached rows kept for reuse; a screen holds about ten rows */
+    private static final int MAX_RECYCLED_ROWS = 12;
+
+    /** RecyclerView for displaying favorites */
+    private RecyclerView recyclerView;
 
     /** TextView for empty state */
     private TextView emptyText;
 
-    /** Adapter for the ListView */
+    /** Adapter for the RecyclerView */
     private NasaImageAdapter adapter;
 
-    /** List of favorite images */
+    /** List of favorite images; a copy is submitted to the adapter after each change */
     private List<NasaImage> favoritesList;
 
-    /** Database helper */
-    private NasaImageDatabaseHelper databaseHelper;
+    /** Repository for favorites */
+    private NasaImageRepository repository;
+
+    /** Loads the favorites page by page */
+    private PagedFavoritesLoader favoritesLoader;
+
+    /** Selection mode in progress, or null */
+    private ActionMode selectionMode;
+
+    /** Version of the favorites the list reflects */
+    private long appliedVersion;
 
     /**
      * Called when the activity is first created.
@@ -58,8 +94,9 @@ public class FavoritesActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_favorites);
 
-        // Initialize database helper
-        databaseHelper = NasaImageDatabaseHelper.getInstance(this);
+        // Initialize repository
+        repository = NasaImageRepository.getInstance(this);
+        favoritesLoader = new PagedFavoritesLoader(this, this);
 
         // Setup toolbar
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -70,42 +107,260 @@ public class FavoritesActivity extends AppCompatActivity {
         }
 
         // Initialize views
-        listView = findViewById(R.id.favorites_list);
+        recyclerView = findViewById(R.id.favorites_list);
         emptyText = findViewById(R.id.empty_text);
 
-        // Initialize list and adapter
+        // Initialize list and adapter; rows are all the same size
         favoritesList = new ArrayList<>();
-        adapter = new NasaImageAdapter(this, R.layout.item_nasa_image, favoritesList);
-        listView.setAdapter(adapter);
-
-        // Set item click listener
-        listView.setOnItemClickListener((parent, view, position, id) -> {
-            NasaImage image = favoritesList.get(position);
-            Intent intent = new Intent(FavoritesActivity.this, ImageDetailActivity.class);
-            intent.putExtra(ImageDetailActivity.EXTRA_IMAGE, image);
-            intent.putExtra(ImageDetailActivity.EXTRA_FROM_FAVORITES, true);
-            startActivity(intent);
+        adapter = new NasaImageAdapter(this, R.layout.item_nasa_image, this);
+        recyclerView.setAdapter(adapter);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setItemViewCacheSize(ITEM_VIEW_CACHE_SIZE);
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, MAX_RECYCLED_ROWS);
+
+        // Preload the thumbnails of the rows about to appear, in the scroll direction
+        int thumbnailSize = adapter.getThumbnailSize();
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), adapter,
+                new FixedPreloadSizeProvider<>(thumbnailSize, thumbnailSize), PRELOAD_ROWS));
+
+        // Load the next page when the end of the list comes near
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                int totalItemCount = adapter.getItemCount();
+                if (totalItemCount > 0
+                        && layoutManager.findLastVisibleItemPosition() >= totalItemCount - LOAD_AHEAD_ROWS) {
+                    favoritesLoader.loadNextPage();
+                }
+            }
         });
 
-        // Set long click listener for delete
-        listView.setOnItemLongClickListener((parent, view, position, id) -> {
-            showDeleteConfirmation(position);
-            return true;
-        });
-
-        // Load favorites
+        // Apply changes to the favorites as they are committed
+        repository.getInvalidationTracker().addObserver(this);
         loadFavorites();
     }
 
     /**
-     * Loads favorites from the database.
+     * Loads favorites from the database, reloading the ones already shown.
      */
     private void loadFavorites() {
-        favoritesList.clear();
-        favoritesList.addAll(databaseHelper.getAllFavorites());
-        adapter.notifyDataSetChanged();
+        appliedVersion = repository.getInvalidationTracker().getVersion();
+        favoritesLoader.refresh();
+    }
+
+    /**
+     * Called when a favorite is tapped: opens it, or toggles its selection in
+     * selection mode. The detail screen loads the full entry.
+     *
+     * @param image The favorite
+     */
+    @Override
+    public void onImageClicked(NasaImage image) {
+        if (selectionMode != null) {
+            toggleSelection(image);
+            return;
+        }
+        Intent intent = new Intent(FavoritesActivity.this, ImageDetailActivity.class);
+        intent.putExtra(ImageDetailActivity.EXTRA_IMAGE, image);
+        intent.putExtra(ImageDetailActivity.EXTRA_FROM_FAVORITES, true);
+        startActivity(intent);
+    }
+
+    /**
+     * Called when a favorite is long-pressed: starts selecting favorites to remove.
+     *
+     * @param image The favorite
+     */
+    @Override
+    public void onImageLongClicked(NasaImage image) {
+        if (selectionMode == null) {
+            selectionMode = startSupportActionMode(selectionCallback);
+        }
+        toggleSelection(image);
+    }
+
+    /**
+     * Toggles the selection of a favorite and updates the selection title. Selection
+     * mode ends when nothing is selected.
+     *
+     * @param image The favorite
+     */
+    private void toggleSelection(NasaImage image) {
+        adapter.toggleSelection(image);
+        updateSelectionTitle();
+    }
+
+    /**
+     * Shows the number of selected favorites in the selection mode title.
+     */
+    private void updateSelectionTitle() {
+        if (selectionMode == null) {
+            return;
+        }
+        int count = adapter.getSelectedCount();
+        if (count == 0) {
+            selectionMode.finish();
+        } else {
+            selectionMode.setTitle(getResources().getQuantityString(R.plurals.selected_count, count, count));
+        }
+    }
+
+    /** Handles the selection mode started by a long press */
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_favorites_selection, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            if (item.getItemId() == R.id.action_delete) {
+                showDeleteConfirmation(adapter.getSelectedImages());
+                return true;
+            } else if (item.getItemId() == R.id.action_select_all) {
+                adapter.selectAll();
+                updateSelectionTitle();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            adapter.clearSelection();
+            selectionMode = null;
+        }
+    };
+
+    /**
+     * Called when a page of favorites has been loaded.
+     *
+     * @param images The favorites of the page
+     * @param reset  true if the page replaces the list
+     */
+    @Override
+    public void onPageLoaded(List<NasaImage> images, boolean reset) {
+        if (reset) {
+            // The selection may include favorites that are gone
+            if (selectionMode != null) {
+                selectionMode.finish();
+            }
+            favoritesList.clear();
+        }
+        favoritesList.addAll(images);
+        showFavorites();
+    }
+
+    /**
+     * Called when a change to the favorites has been committed.
+     *
+     * @param change The change
+     */
+    @Override
+    public void onFavoritesChanged(InvalidationTracker.Change change) {
+        if (change.getVersion() <= appliedVersion) {
+            // Already included by a reload started after it was committed
+            return;
+        }
+        appliedVersion = change.getVersion();
+        // The selection may include favorites that are gone
+        if (selectionMode != null) {
+            selectionMode.finish();
+        }
+
+        if (change.isCleared()) {
+            loadFavorites();
+            return;
+        }
+        if (!change.getRemoved().isEmpty()) {
+            removeFromList(change.getRemoved());
+        }
+        if (!change.getAdded().isEmpty()) {
+            addToList(change.getAdded());
+        }
+    }
+
+    /**
+     * Removes favorites from the loaded list.
+     *
+     * @param ids The IDs of the removed favorites
+     */
+    private void removeFromList(List<Long> ids) {
+        Set<Long> removed = new HashSet<>(ids);
+        boolean changed = false;
+        for (int i = favoritesList.size() - 1; i >= 0; i--) {
+            if (removed.contains(favoritesList.get(i).getId())) {
+                favoritesList.remove(i);
+                changed = true;
+            }
+        }
+        if (changed) {
+            showFavorites();
+        }
+    }
+
+    /**
+     * Loads added favorites and inserts those that fall within the loaded pages.
+     *
+     * @param ids The IDs of the added favorites
+     */
+    private void addToList(List<Long> ids) {
+        if (ids.size() > PagedFavoritesLoader.PAGE_SIZE) {
+            // A large restore is cheaper to reload in one query
+            loadFavorites();
+            return;
+        }
+
+        repository.getFavoritesByIds(ids, images -> {
+            if (isDestroyed()) {
+                return;
+            }
+            boolean changed = false;
+            for (NasaImage image : images) {
+                changed |= insertSorted(image);
+            }
+            if (changed) {
+                showFavorites();
+            }
+        });
+    }
+
+    /**
+     * Inserts a favorite at its date position in the loaded list. Favorites older than
+     * the loaded pages are left to arrive with a later page.
+     *
+     * @param image The favorite
+     * @return true if the favorite was inserted
+     */
+    private boolean insertSorted(NasaImage image) {
+        int position = 0;
+        while (position < favoritesList.size() && favoritesList.get(position).getId() > image.getId()) {
+            position++;
+        }
+        if (position < favoritesList.size() && favoritesList.get(position).getId() == image.getId()) {
+            // Already loaded by a page
+            return false;
+        }
+        if (position == favoritesList.size() && favoritesLoader.hasMore()) {
+            return false;
+        }
+        favoritesList.add(position, image);
+        return true;
+    }
 
-        // Update empty state
+    /**
+     * Shows the current favorites. The adapter diffs them against the rows shown on a
+     * background thread and updates only the rows that changed.
+     */
+    private void showFavorites() {
+        adapter.submitList(new ArrayList<>(favoritesList), null);
         updateEmptyState();
     }
 
@@ -115,26 +370,33 @@ public class FavoritesActivity extends AppCompatActivity {
     private void updateEmptyState() {
         if (favoritesList.isEmpty()) {
             emptyText.setVisibility(View.VISIBLE);
-            listView.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.GONE);
         } else {
             emptyText.setVisibility(View.GONE);
-            listView.setVisibility(View.VISIBLE);
+            recyclerView.setVisibility(View.VISIBLE);
         }
     }
 
     /**
-     * Shows a confirmation dialog for deleting a favorite.
+     * Shows a confirmation dialog for deleting favorites.
      *
-     * @param position The position of the item to delete
+     * @param selected The favorites to delete
      */
-    private void showDeleteConfirmation(int position) {
-        NasaImage image = favoritesList.get(position);
+    private void showDeleteConfirmation(List<NasaImage> selected) {
+        if (selected.isEmpty()) {
+            return;
+        }
+
+        String message = selected.size() == 1
+                ? getString(R.string.delete_favorite_message, selected.get(0).getTitle())
+                : getResources().getQuantityString(R.plurals.delete_favorites_message,
+                        selected.size(), selected.size());
 
         new AlertDialog.Builder(this)
                 .setTitle(R.string.delete_favorite_title)
-                .setMessage(getString(R.string.delete_favorite_message, image.getTitle()))
+                .setMessage(message)
                 .setPositiveButton(R.string.delete, (dialog, which) -> {
-                    deleteFavorite(position);
+                    deleteFavorites(selected);
                 })
                 .setNegativeButton(R.string.cancel, null)
                 .setIcon(R.drawable.ic_delete)
@@ -142,34 +404,37 @@ public class FavoritesActivity extends AppCompatActivity {
     }
 
     /**
-     * Deletes a favorite from the database.
+     * Deletes favorites from the database in a single transaction.
      *
-     * @param position The position of the item to delete
+     * @param selected The favorites to delete
      */
-    private void deleteFavorite(int position) {
-        NasaImage image = favoritesList.get(position);
-        int deleted = databaseHelper.deleteFavorite(image.getId());
-
-        if (deleted > 0) {
-            favoritesList.remove(position);
-            adapter.notifyDataSetChanged();
-            updateEmptyState();
-
-            Snackbar.make(listView, R.string.favorite_deleted, Snackbar.LENGTH_LONG)
-                    .setAction(R.string.undo, v -> {
-                        // Undo delete
-                        long newId = databaseHelper.insertFavorite(image);
-                        if (newId > 0) {
-                            image.setId(newId);
-                            favoritesList.add(position, image);
-                            adapter.notifyDataSetChanged();
-                            updateEmptyState();
-                        }
-                    })
-                    .show();
-        } else {
-            Toast.makeText(this, R.string.error_deleting_favorite, Toast.LENGTH_SHORT).show();
+    private void deleteFavorites(List<NasaImage> selected) {
+        List<Long> ids = new ArrayList<>(selected.size());
+        for (NasaImage image : selected) {
+            ids.add(image.getId());
         }
+        if (selectionMode != null) {
+            selectionMode.finish();
+        }
+
+        repository.deleteFavorites(ids, deleted -> {
+            if (isDestroyed()) {
+                return;
+            }
+            // The list itself is updated by the invalidation tracker
+            if (deleted > 0) {
+                Snackbar.make(recyclerView,
+                        getResources().getQuantityString(R.plurals.favorites_deleted, deleted, deleted),
+                        Snackbar.LENGTH_LONG)
+                        .setAction(R.string.undo, v -> {
+                            // Undo delete; the list entries do not carry the full content
+                            repository.restoreFavorites(ids, null);
+                        })
+                        .show();
+            } else {
+                Toast.makeText(this, R.string.error_deleting_favorite, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -178,7 +443,20 @@ public class FavoritesActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        loadFavorites();
+        // Changes are applied as they arrive; reload only if one was missed
+        if (repository.getInvalidationTracker().getVersion() != appliedVersion) {
+            loadFavorites();
+        }
+    }
+
+    /**
+     * Called when the activity is destroyed.
+     */
+    @Override
+    protected void onDestroy() {
+        repository.getInvalidationTracker().removeObserver(this);
+        favoritesLoader.release();
+        super.onDestroy();
     }
 
     /**
@@ -244,14 +522,10 @@ public class FavoritesActivity extends AppCompatActivity {
      * Clears all favorites from the database.
      */
     private void clearAllFavorites() {
-        for (NasaImage image : favoritesList) {
-            databaseHelper.deleteFavorite(image.getId());
-        }
-        favoritesList.clear();
-        adapter.notifyDataSetChanged();
-        updateEmptyState();
+        // Pages not loaded yet are cleared as well; the invalidation tracker updates the list
+        repository.deleteAllFavorites(null);
 
-        Snackbar.make(listView, R.string.all_favorites_cleared, Snackbar.LENGTH_SHORT).show();
+        Snackbar.make(recyclerView, R.string.all_favorites_cleared, Snackbar.LENGTH_SHORT).show();
     }
 
     /**
@@ -0,0 +1,161 @@
+package com.example.nasaimageoftheday.activities;
+
+import android.content.ActivityNotFoundException;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.example.nasaimageoftheday.R;
+import com.example.nasaimageoftheday.views.TiledImageView;
+
+import java.io.File;
+
+/**
+ * Activity showing the HD version of an image with pinch zoom.
+ * The HD file is downloaded through Glide, so it lands in the same disk cache entry
+ * as other HD loads and opening it again needs no download. The file is then shown
+ * by a {@link TiledImageView}, which decodes only the visible tiles instead of the
+ * whole picture. If the file cannot be downloaded or decoded, the image is opened in
+ * the browser instead.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class HdImageActivity extends AppCompatActivity implements TiledImageView.Listener {
+
+    /** Intent extra key for the HD image URL */
+    public static final String EXTRA_HD_URL = "extra_hd_url";
+
+    /** Intent extra key for the image title */
+    public static final String EXTRA_TITLE = "extra_title";
+
+    /** URL of the HD image */
+    private String hdUrl;
+
+    /** View showing the image */
+    private TiledImageView imageView;
+
+    /** Progress shown until the image appears */
+    private ProgressBar progressBar;
+
+    /**
+     * Creates the intent opening the viewer.
+     *
+     * @param context The context
+     * @param hdUrl   The URL of the HD image
+     * @param title   The title of the image
+     * @return The intent
+     */
+    public static Intent newIntent(Context context, String hdUrl, String title) {
+        Intent intent = new Intent(context, HdImageActivity.class);
+        intent.putExtra(EXTRA_HD_URL, hdUrl);
+        intent.putExtra(EXTRA_TITLE, title);
+        return intent;
+    }
+
+    /**
+     * Called when the activity is first created.
+     *
+     * @param savedInstanceState If the activity is being re-initialized, this contains previous state
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_hd_image);
+
+        hdUrl = getIntent().getStringExtra(EXTRA_HD_URL);
+        if (hdUrl == null || hdUrl.isEmpty()) {
+            Toast.makeText(this, R.string.error_no_image, Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+
+        // Setup toolbar
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            String title = getIntent().getStringExtra(EXTRA_TITLE);
+            getSupportActionBar().setTitle(title != null ? title : getString(R.string.title_hd_image));
+        }
+
+        imageView = findViewById(R.id.hd_image);
+        progressBar = findViewById(R.id.hd_progress);
+        imageView.setListener(this);
+
+        // Only the file is needed; the view decodes it itself
+        Glide.with(this)
+                .asFile()
+                .load(hdUrl)
+                .into(new CustomTarget<File>() {
+                    @Override
+                    public void onResourceReady(@NonNull File file,
+                                                @Nullable Transition<? super File> transition) {
+                        imageView.setImage(file);
+                    }
+
+                    @Override
+                    public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                        onImageLoadFailed();
+                    }
+
+                    @Override
+                    public void onLoadCleared(@Nullable Drawable placeholder) {
+                    }
+                });
+    }
+
+    /**
+     * Hides the progress once the image is shown.
+     */
+    @Override
+    public void onImageLoaded() {
+        progressBar.setVisibility(View.GONE);
+    }
+
+    /**
+     * Falls back to the browser when the image cannot be shown here.
+     */
+    @Override
+    public void onImageLoadFailed() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        Toast.makeText(this, R.string.error_loading_hd, Toast.LENGTH_SHORT).show();
+        try {
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(hdUrl)));
+        } catch (ActivityNotFoundException e) {
+            // No browser; the toast is all we can do
+        }
+        finish();
+    }
+
+    /**
+     * Handles options menu item selection.
+     *
+     * @param item The selected menu item
+     * @return true if the event was handled
+     */
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            onBackPressed();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
@@ -21,15 +21,17 @@ import androidx.fragment.app.FragmentTransaction;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.example.nasaimageoftheday.R;
-import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.database.NasaImageRepository;
 import com.example.nasaimageoftheday.fragments.ImageDetailFragment;
 import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ImageRequestOptions;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 
 /**
  * Activity for displaying detailed information about a NASA image.
- * Uses a Fragment to display the image details.
+ * Uses a Fragment to display the image details. When opened with a list entry, the
+ * full entry is loaded from the archive first.
  *
  * @author Your Name
  * @version 1.0
@@ -48,8 +50,8 @@ public class ImageDetailActivity extends AppCompatActivity {
     /** Flag indicating if this was opened from favorites */
     private boolean fromFavorites;
 
-    /** Database helper */
-    private NasaImageDatabaseHelper databaseHelper;
+    /** Repository for favorites */
+    private NasaImageRepository repository;
 
     /** Flag indicating if image is a favorite */
     private boolean isFavorite;
@@ -80,8 +82,8 @@ public class ImageDetailActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_image_detail);
 
-        // Initialize database helper
-        databaseHelper = NasaImageDatabaseHelper.getInstance(this);
+        // Initialize repository
+        repository = NasaImageRepository.getInstance(this);
 
         // Get intent extras
         nasaImage = (NasaImage) getIntent().getSerializableExtra(EXTRA_IMAGE);
@@ -104,6 +106,39 @@ public class ImageDetailActivity extends AppCompatActivity {
         // Initialize views
         initializeViews();
 
+        // List entries carry no explanation; read the full entry before showing it
+        if (nasaImage.getExplanation() == null) {
+            loadFullImage(nasaImage.getDate());
+        } else {
+            showImage();
+        }
+    }
+
+    /**
+     * Loads the full entry from the archive on the disk thread and shows it.
+     *
+     * @param date The date of the entry
+     */
+    private void loadFullImage(String date) {
+        setFavoriteButtonEnabled(false);
+        repository.getImageByDate(date, image -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (image == null) {
+                Toast.makeText(this, R.string.error_no_image, Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            nasaImage = image;
+            showImage();
+        });
+    }
+
+    /**
+     * Shows the image details and its favorite status.
+     */
+    private void showImage() {
         // Check if using fragment or direct views
         fragmentContainer = findViewById(R.id.fragment_container);
         if (fragmentContainer != null) {
@@ -114,9 +149,16 @@ public class ImageDetailActivity extends AppCompatActivity {
             displayImageDetails();
         }
 
-        // Check favorite status
-        isFavorite = databaseHelper.isFavorite(nasaImage.getDate());
-        updateFavoriteButton();
+        // Check favorite status; the button stays disabled until it is known
+        setFavoriteButtonEnabled(false);
+        repository.isFavorite(nasaImage.getDate(), favorite -> {
+            if (isDestroyed()) {
+                return;
+            }
+            isFavorite = favorite;
+            updateFavoriteButton();
+            setFavoriteButtonEnabled(true);
+        });
     }
 
     /**
@@ -146,7 +188,8 @@ public class ImageDetailActivity extends AppCompatActivity {
         ImageDetailFragment fragment = ImageDetailFragment.newInstance(nasaImage);
         FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
         transaction.replace(R.id.fragment_container, fragment);
-        transaction.commit();
+        // May run after an asynchronous load; the fragment is recreated from the entry anyway
+        transaction.commitAllowingStateLoss();
     }
 
     /**
@@ -181,8 +224,7 @@ public class ImageDetailActivity extends AppCompatActivity {
             } else if (nasaImage.getUrl() != null && !nasaImage.getUrl().isEmpty()) {
                 Glide.with(this)
                         .load(nasaImage.getUrl())
-                        .placeholder(R.drawable.ic_image_placeholder)
-                        .error(R.drawable.ic_image_error)
+                        .apply(ImageRequestOptions.detail())
                         .transition(DrawableTransitionOptions.withCrossFade())
                         .into(detailImage);
             }
@@ -192,7 +234,8 @@ public class ImageDetailActivity extends AppCompatActivity {
         if (btnViewHd != null) {
             if (nasaImage.getHdUrl() != null && !nasaImage.getHdUrl().isEmpty()) {
                 btnViewHd.setVisibility(View.VISIBLE);
-                btnViewHd.setOnClickListener(v -> openInBrowser(nasaImage.getHdUrl()));
+                btnViewHd.setOnClickListener(v -> startActivity(HdImageActivity.newIntent(
+                        this, nasaImage.getHdUrl(), nasaImage.getTitle())));
             } else {
                 btnViewHd.setVisibility(View.GONE);
             }
@@ -227,26 +270,50 @@ public class ImageDetailActivity extends AppCompatActivity {
      * Toggles the favorite status of the current image.
      */
     private void toggleFavorite() {
-        if (nasaImage == null) return;
+        if (nasaImage == null || nasaImage.getExplanation() == null) return;
 
+        setFavoriteButtonEnabled(false);
         if (isFavorite) {
             // Remove from favorites
-            int deleted = databaseHelper.deleteFavoriteByDate(nasaImage.getDate());
-            if (deleted > 0) {
-                isFavorite = false;
-                updateFavoriteButton();
-                Snackbar.make(fabFavorite, R.string.removed_from_favorites, Snackbar.LENGTH_SHORT).show();
-            }
+            repository.deleteFavoriteByDate(nasaImage.getDate(), deleted -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                setFavoriteButtonEnabled(true);
+                if (deleted > 0) {
+                    isFavorite = false;
+                    updateFavoriteButton();
+                    Snackbar.make(fabFavorite, R.string.removed_from_favorites, Snackbar.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, R.string.error_deleting_favorite, Toast.LENGTH_SHORT).show();
+                }
+            });
         } else {
             // Add to favorites
-            long id = databaseHelper.insertFavorite(nasaImage);
-            if (id > 0) {
-                isFavorite = true;
-                updateFavoriteButton();
-                Snackbar.make(fabFavorite, R.string.added_to_favorites, Snackbar.LENGTH_SHORT).show();
-            } else {
-                Toast.makeText(this, R.string.error_saving_favorite, Toast.LENGTH_SHORT).show();
-            }
+            repository.insertFavorite(nasaImage, id -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                setFavoriteButtonEnabled(true);
+                if (id > 0) {
+                    isFavorite = true;
+                    updateFavoriteButton();
+                    Snackbar.make(fabFavorite, R.string.added_to_favorites, Snackbar.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, R.string.error_saving_favorite, Toast.LENGTH_SHORT).show();
+                }
+            });
+        }
+    }
+
+    /**
+     * Enables or disables the favorite button while a database operation is pending.
+     *
+     * @param enabled true to enable the button
+     */
+    private void setFavoriteButtonEnabled(boolean enabled) {
+        if (fabFavorite != null) {
+            fabFavorite.setEnabled(enabled);
         }
     }
 
@@ -340,13 +407,17 @@ public class ImageDetailActivity extends AppCompatActivity {
      * Deletes the current image from favorites.
      */
     private void deleteFavorite() {
-        int deleted = databaseHelper.deleteFavoriteByDate(nasaImage.getDate());
-        if (deleted > 0) {
-            Toast.makeText(this, R.string.favorite_deleted, Toast.LENGTH_SHORT).show();
-            finish();
-        } else {
-            Toast.makeText(this, R.string.error_deleting_favorite, Toast.LENGTH_SHORT).show();
-        }
+        repository.deleteFavoriteByDate(nasaImage.getDate(), deleted -> {
+            if (isDestroyed()) {
+                return;
+            }
+            if (deleted > 0) {
+                Toast.makeText(this, R.string.favorite_deleted, Toast.LENGTH_SHORT).show();
+                finish();
+            } else {
+                Toast.makeText(this, R.string.error_deleting_favorite, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
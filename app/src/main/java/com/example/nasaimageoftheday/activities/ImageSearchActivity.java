@@ -4,12 +4,20 @@ import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.inputmethod.EditorInfo;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -22,8 +30,13 @@ import androidx.appcompat.widget.Toolbar;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.example.nasaimageoftheday.R;
-import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.database.NasaImageRepository;
+import com.example.nasaimageoftheday.models.ApodSearchResult;
+import com.example.nasaimageoftheday.models.FetchTiming;
 import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ApodDates;
+import com.example.nasaimageoftheday.utils.ApodPrefetcher;
+import com.example.nasaimageoftheday.utils.ImageRequestOptions;
 import com.example.nasaimageoftheday.utils.NasaApiTask;
 import com.example.nasaimageoftheday.utils.PreferencesHelper;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
@@ -31,21 +44,37 @@ import com.google.android.material.snackbar.Snackbar;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Locale;
 
 /**
  * Activity for searching NASA Astronomy Picture of the Day by date.
- * Allows users to select a date and fetch the corresponding image from NASA's API.
+ * Allows users to select a date and fetch the corresponding image from NASA's API,
+ * or to search the entries already downloaded by keywords.
  *
  * @author Your Name
  * @version 1.0
  */
 public class ImageSearchActivity extends AppCompatActivity implements NasaApiTask.NasaApiListener {
 
+    /** Tag for logging */
+    private static final String TAG = "ImageSearchActivity";
+
+    /** Maximum number of keyword search results shown */
+    private static final int KEYWORD_RESULT_LIMIT = 25;
+
+    /** Delay after the last keystroke before searching, in milliseconds */
+    private static final long KEYWORD_DEBOUNCE_MS = 300;
+
+    /** Minimum number of characters before searching */
+    private static final int MIN_KEYWORD_LENGTH = 2;
+
     /** UI Components */
     private EditText dateEditText;
     private Button searchButton;
     private Button pickDateButton;
+    private Button previousDayButton;
+    private Button nextDayButton;
     private ProgressBar progressBar;
     private View resultContainer;
     private ImageView resultImage;
@@ -55,6 +84,18 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
     private Button viewHdButton;
     private Button viewUrlButton;
     private FloatingActionButton fabFavorite;
+    private EditText keywordEditText;
+    private LinearLayout keywordResults;
+    private TextView keywordEmpty;
+
+    /** Handler delaying keyword searches while the user is typing */
+    private final Handler keywordHandler = new Handler(Looper.getMainLooper());
+
+    /** Pending keyword search */
+    private final Runnable keywordSearch = this::searchKeywords;
+
+    /** Number of keyword searches started, used to drop stale results */
+    private int keywordGeneration;
 
     /** Calendar for date picker */
     private Calendar selectedCalendar;
@@ -65,8 +106,8 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
     /** Current NASA image */
     private NasaImage currentImage;
 
-    /** Database helper */
-    private NasaImageDatabaseHelper databaseHelper;
+    /** Repository for the archive and favorites */
+    private NasaImageRepository repository;
 
     /** Preferences helper */
     private PreferencesHelper preferencesHelper;
@@ -74,6 +115,12 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
     /** Flag indicating if current image is a favorite */
     private boolean isFavorite;
 
+    /** Search currently in progress, if any */
+    private NasaApiTask searchTask;
+
+    /** Prefetches the days next to the current result */
+    private ApodPrefetcher prefetcher;
+
     /**
      * Called when the activity is first created.
      *
@@ -85,8 +132,9 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         setContentView(R.layout.activity_image_search);
 
         // Initialize helpers
-        databaseHelper = NasaImageDatabaseHelper.getInstance(this);
+        repository = NasaImageRepository.getInstance(this);
         preferencesHelper = PreferencesHelper.getInstance(this);
+        prefetcher = new ApodPrefetcher(this, this);
 
         // Setup toolbar
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -117,6 +165,8 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         dateEditText = findViewById(R.id.edit_date);
         searchButton = findViewById(R.id.btn_search);
         pickDateButton = findViewById(R.id.btn_pick_date);
+        previousDayButton = findViewById(R.id.btn_previous_day);
+        nextDayButton = findViewById(R.id.btn_next_day);
         progressBar = findViewById(R.id.progress_bar);
         resultContainer = findViewById(R.id.result_container);
         resultImage = findViewById(R.id.result_image);
@@ -126,6 +176,9 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         viewHdButton = findViewById(R.id.btn_view_hd);
         viewUrlButton = findViewById(R.id.btn_view_url);
         fabFavorite = findViewById(R.id.fab_favorite);
+        keywordEditText = findViewById(R.id.edit_keywords);
+        keywordResults = findViewById(R.id.keyword_results);
+        keywordEmpty = findViewById(R.id.keyword_empty);
 
         // Initially hide result container
         resultContainer.setVisibility(View.GONE);
@@ -146,10 +199,15 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         // Search button
         searchButton.setOnClickListener(v -> performSearch());
 
+        // Previous and next day buttons
+        previousDayButton.setOnClickListener(v -> stepDay(-1));
+        nextDayButton.setOnClickListener(v -> stepDay(1));
+
         // View HD button
         viewHdButton.setOnClickListener(v -> {
             if (currentImage != null && currentImage.getHdUrl() != null) {
-                openInBrowser(currentImage.getHdUrl());
+                startActivity(HdImageActivity.newIntent(
+                        this, currentImage.getHdUrl(), currentImage.getTitle()));
             }
         });
 
@@ -163,6 +221,31 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         // Favorite FAB
         fabFavorite.setOnClickListener(v -> toggleFavorite());
 
+        // Keyword search runs as the user types and on the keyboard search action
+        keywordEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                keywordHandler.removeCallbacks(keywordSearch);
+                keywordHandler.postDelayed(keywordSearch, KEYWORD_DEBOUNCE_MS);
+            }
+        });
+        keywordEditText.setOnEditorActionListener((v, actionId, event) -> {
+            if (actionId == EditorInfo.IME_ACTION_SEARCH) {
+                keywordHandler.removeCallbacks(keywordSearch);
+                searchKeywords();
+                return true;
+            }
+            return false;
+        });
+
         // Image click to view details
         resultImage.setOnClickListener(v -> {
             if (currentImage != null) {
@@ -215,8 +298,115 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         // Save the search date
         preferencesHelper.saveLastSearchedDate(date);
 
-        // Execute API task
-        new NasaApiTask(this).execute(date);
+        // A new search supersedes any search still in progress
+        if (searchTask != null) {
+            searchTask.cancel();
+        }
+
+        // Execute API task, cancelled automatically when this activity is destroyed
+        searchTask = new NasaApiTask(this, this, this);
+        searchTask.execute(date);
+    }
+
+    /**
+     * Moves the selected date by the given number of days and searches for it.
+     * Dates before the first APOD or after today are ignored.
+     *
+     * @param days The number of days to move, negative for earlier dates
+     */
+    private void stepDay(int days) {
+        String date = dateEditText.getText().toString().trim();
+        if (!ApodDates.isValid(date)) {
+            Toast.makeText(this, R.string.error_no_date, Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        long target = ApodDates.toEpochDay(date) + days;
+        if (target < ApodDates.FIRST_APOD_EPOCH_DAY || target > ApodDates.todayEpochDay()) {
+            return;
+        }
+
+        String targetDate = ApodDates.fromEpochDay(target);
+        dateEditText.setText(targetDate);
+        try {
+            selectedCalendar.setTime(dateFormat.parse(targetDate));
+        } catch (Exception e) {
+            // Keep the previous calendar date
+        }
+        performSearch();
+    }
+
+    /**
+     * Searches the downloaded entries for the typed keywords on the disk thread and
+     * shows the results.
+     */
+    private void searchKeywords() {
+        String query = keywordEditText.getText().toString().trim();
+        int generation = ++keywordGeneration;
+
+        if (query.length() < MIN_KEYWORD_LENGTH) {
+            showKeywordResults(null);
+            return;
+        }
+
+        long started = System.nanoTime();
+        repository.searchArchive(query, KEYWORD_RESULT_LIMIT, results -> {
+            Log.d(TAG, "Keyword search '" + query + "': " + results.size() + " results in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+            // Drop results of a query that has since been replaced
+            if (generation == keywordGeneration && !isDestroyed()) {
+                showKeywordResults(results);
+            }
+        });
+    }
+
+    /**
+     * Shows keyword search results, or hides the results when there is no query.
+     *
+     * @param results The results to show, or null to hide them
+     */
+    private void showKeywordResults(List<ApodSearchResult> results) {
+        keywordResults.removeAllViews();
+        if (results == null) {
+            keywordResults.setVisibility(View.GONE);
+            keywordEmpty.setVisibility(View.GONE);
+            return;
+        }
+
+        keywordEmpty.setVisibility(results.isEmpty() ? View.VISIBLE : View.GONE);
+        keywordResults.setVisibility(results.isEmpty() ? View.GONE : View.VISIBLE);
+
+        LayoutInflater inflater = LayoutInflater.from(this);
+        for (ApodSearchResult result : results) {
+            View item = inflater.inflate(R.layout.item_search_result, keywordResults, false);
+            ((TextView) item.findViewById(R.id.item_title)).setText(result.getImage().getTitle());
+            ((TextView) item.findViewById(R.id.item_date)).setText(result.getImage().getDate());
+            ((TextView) item.findViewById(R.id.item_snippet)).setText(result.getHighlightedSnippet());
+            item.setOnClickListener(v -> openKeywordResult(result.getImage().getDate()));
+            keywordResults.addView(item);
+        }
+    }
+
+    /**
+     * Shows a keyword search result in the result card, loading the full entry from
+     * the archive.
+     *
+     * @param date The date of the entry
+     */
+    private void openKeywordResult(String date) {
+        repository.getImageByDate(date, image -> {
+            if (image == null || isDestroyed()) {
+                return;
+            }
+            dateEditText.setText(date);
+            try {
+                selectedCalendar.setTime(dateFormat.parse(date));
+            } catch (Exception e) {
+                // Keep the previous calendar date
+            }
+            displayResult(image);
+            prefetcher.prefetchAround(date);
+        });
     }
 
     /**
@@ -254,24 +444,38 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
     private void toggleFavorite() {
         if (currentImage == null) return;
 
+        NasaImage image = currentImage;
+        fabFavorite.setEnabled(false);
         if (isFavorite) {
             // Remove from favorites
-            int deleted = databaseHelper.deleteFavoriteByDate(currentImage.getDate());
-            if (deleted > 0) {
-                isFavorite = false;
-                updateFavoriteButton();
-                Snackbar.make(fabFavorite, R.string.removed_from_favorites, Snackbar.LENGTH_SHORT).show();
-            }
+            repository.deleteFavoriteByDate(image.getDate(), deleted -> {
+                if (isDestroyed() || image != currentImage) {
+                    return;
+                }
+                fabFavorite.setEnabled(true);
+                if (deleted > 0) {
+                    isFavorite = false;
+                    updateFavoriteButton();
+                    Snackbar.make(fabFavorite, R.string.removed_from_favorites, Snackbar.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, R.string.error_deleting_favorite, Toast.LENGTH_SHORT).show();
+                }
+            });
         } else {
             // Add to favorites
-            long id = databaseHelper.insertFavorite(currentImage);
-            if (id > 0) {
-                isFavorite = true;
-                updateFavoriteButton();
-                Snackbar.make(fabFavorite, R.string.added_to_favorites, Snackbar.LENGTH_SHORT).show();
-            } else {
-                Toast.makeText(this, R.string.error_saving_favorite, Toast.LENGTH_SHORT).show();
-            }
+            repository.insertFavorite(image, id -> {
+                if (isDestroyed() || image != currentImage) {
+                    return;
+                }
+                fabFavorite.setEnabled(true);
+                if (id > 0) {
+                    isFavorite = true;
+                    updateFavoriteButton();
+                    Snackbar.make(fabFavorite, R.string.added_to_favorites, Snackbar.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, R.string.error_saving_favorite, Toast.LENGTH_SHORT).show();
+                }
+            });
         }
     }
 
@@ -294,9 +498,18 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
     private void displayResult(NasaImage image) {
         currentImage = image;
 
-        // Check if it's a favorite
-        isFavorite = databaseHelper.isFavorite(image.getDate());
+        // Check if it's a favorite; the button stays disabled until it is known
+        isFavorite = false;
         updateFavoriteButton();
+        fabFavorite.setEnabled(false);
+        repository.isFavorite(image.getDate(), favorite -> {
+            if (isDestroyed() || image != currentImage) {
+                return;
+            }
+            isFavorite = favorite;
+            updateFavoriteButton();
+            fabFavorite.setEnabled(true);
+        });
 
         // Show result container
         resultContainer.setVisibility(View.VISIBLE);
@@ -320,8 +533,7 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         } else {
             Glide.with(this)
                     .load(image.getUrl())
-                    .placeholder(R.drawable.ic_image_placeholder)
-                    .error(R.drawable.ic_image_error)
+                    .apply(ImageRequestOptions.detail())
                     .transition(DrawableTransitionOptions.withCrossFade())
                     .into(resultImage);
             viewUrlButton.setText(R.string.view_image);
@@ -362,6 +574,18 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
         progressBar.setProgress(progress);
     }
 
+    /**
+     * Called when the request moves on to its next phase.
+     * The bar is indeterminate until the response starts arriving.
+     *
+     * @param phase The phase being entered
+     */
+    @Override
+    public void onPhaseChanged(FetchTiming.Phase phase) {
+        progressBar.setIndeterminate(phase == FetchTiming.Phase.CONNECT
+                || phase == FetchTiming.Phase.WAITING);
+    }
+
     /**
      * Called when the API request succeeds.
      *
@@ -369,9 +593,13 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
      */
     @Override
     public void onSuccess(NasaImage image) {
+        Log.d(TAG, "Fetched " + image.getDate() + ": " + image.getFetchTiming());
+        progressBar.setIndeterminate(false);
         progressBar.setVisibility(View.GONE);
         searchButton.setEnabled(true);
         displayResult(image);
+        // The user will most likely step to a neighbouring day next
+        prefetcher.prefetchAround(image.getDate());
         Toast.makeText(this, R.string.image_loaded, Toast.LENGTH_SHORT).show();
     }
 
@@ -382,11 +610,21 @@ public class ImageSearchActivity extends AppCompatActivity implements NasaApiTas
      */
     @Override
     public void onError(String error) {
+        progressBar.setIndeterminate(false);
         progressBar.setVisibility(View.GONE);
         searchButton.setEnabled(true);
         Toast.makeText(this, getString(R.string.error_loading_image, error), Toast.LENGTH_LONG).show();
     }
 
+    /**
+     * Called when the activity is destroyed.
+     */
+    @Override
+    protected void onDestroy() {
+        keywordHandler.removeCallbacks(keywordSearch);
+        super.onDestroy();
+    }
+
     /**
      * Creates the options menu.
      *
@@ -5,6 +5,7 @@ import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
@@ -15,8 +16,12 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 
+import com.bumptech.glide.Glide;
 import com.example.nasaimageoftheday.R;
-import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.database.NasaImageRepository;
+import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ArchiveSyncWorker;
+import com.example.nasaimageoftheday.utils.ImageRequestOptions;
 import com.example.nasaimageoftheday.utils.PreferencesHelper;
 import com.google.android.material.navigation.NavigationView;
 import com.google.android.material.snackbar.Snackbar;
@@ -44,8 +49,8 @@ public class MainActivity extends AppCompatActivity
     /** Preferences helper */
     private PreferencesHelper preferencesHelper;
 
-    /** Database helper */
-    private NasaImageDatabaseHelper databaseHelper;
+    /** Repository for favorites */
+    private NasaImageRepository repository;
 
     /**
      * Called when the activity is first created.
@@ -60,7 +65,7 @@ public class MainActivity extends AppCompatActivity
 
         // Initialize helpers
         preferencesHelper = PreferencesHelper.getInstance(this);
-        databaseHelper = NasaImageDatabaseHelper.getInstance(this);
+        repository = NasaImageRepository.getInstance(this);
 
         // Setup toolbar
         toolbar = findViewById(R.id.toolbar);
@@ -130,9 +135,49 @@ public class MainActivity extends AppCompatActivity
     private void updateFavoritesCount() {
         TextView favoritesCount = findViewById(R.id.favorites_count);
         if (favoritesCount != null) {
-            int count = databaseHelper.getFavoritesCount();
-            favoritesCount.setText(getString(R.string.favorites_count_format, count));
+            repository.getFavoritesCount(count -> {
+                if (!isDestroyed()) {
+                    favoritesCount.setText(getString(R.string.favorites_count_format, count));
+                }
+            });
+        }
+    }
+
+    /**
+     * Shows the latest picture fetched by the daily background job, if any.
+     * Both the entry and its image come from local storage, so nothing waits on the network.
+     */
+    private void updateTodayCard() {
+        View todayCard = findViewById(R.id.card_today);
+        if (todayCard == null) {
+            return;
+        }
+
+        NasaImage latest = preferencesHelper.getLatestImage();
+        if (latest == null) {
+            todayCard.setVisibility(View.GONE);
+            return;
         }
+
+        TextView todayTitle = findViewById(R.id.today_title);
+        todayTitle.setText(latest.toString());
+
+        ImageView todayImage = findViewById(R.id.today_image);
+        if ("video".equals(latest.getMediaType())) {
+            todayImage.setImageResource(R.drawable.ic_video_placeholder);
+        } else {
+            Glide.with(this)
+                    .load(latest.getUrl())
+                    .apply(ImageRequestOptions.detail())
+                    .into(todayImage);
+        }
+
+        todayCard.setOnClickListener(v -> {
+            Intent intent = new Intent(MainActivity.this, ImageDetailActivity.class);
+            intent.putExtra(ImageDetailActivity.EXTRA_IMAGE, latest);
+            startActivity(intent);
+        });
+        todayCard.setVisibility(View.VISIBLE);
     }
 
     /**
@@ -172,6 +217,7 @@ public class MainActivity extends AppCompatActivity
         super.onResume();
         updateFavoritesCount();
         updateLastSearchDate();
+        updateTodayCard();
     }
 
     /**
@@ -229,6 +275,11 @@ public class MainActivity extends AppCompatActivity
         } else if (id == R.id.action_favorites) {
             startActivity(new Intent(this, FavoritesActivity.class));
             return true;
+        } else if (id == R.id.action_sync_archive) {
+            ArchiveSyncWorker.start(this);
+            Snackbar.make(findViewById(R.id.drawer_layout),
+                    R.string.archive_sync_started, Snackbar.LENGTH_LONG).show();
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
@@ -1,45 +1,140 @@
 package com.example.nasaimageoftheday.adapters;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.example.nasaimageoftheday.R;
 import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ImageRequestOptions;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
- * Custom ArrayAdapter for displaying NasaImage items in a ListView.
- * Uses the ViewHolder pattern for efficient view recycling.
+ * RecyclerView adapter for displaying NasaImage items.
+ * Lists are diffed on a background thread by an {@link AsyncListDiffer}, so a delete,
+ * an undo or a reload only rebinds and animates the rows that changed. Rows have
+ * stable IDs (the epoch day of the entry). A change of selection or of the title only
+ * rebinds that part of the row, leaving its thumbnail alone.
+ * <p>
+ * Thumbnails are requested at exactly the size they are shown, so a row never
+ * decodes a full-size picture. There is no low-resolution pass: the API offers no
+ * smaller source, and a second request for the same URL would only fetch and decode
+ * it twice. The adapter also supplies the same requests to a preloader, which loads
+ * the rows ahead of the scroll direction into the memory cache.
  *
  * @author Your Name
  * @version 1.0
  */
-public class NasaImageAdapter extends ArrayAdapter<NasaImage> {
+public class NasaImageAdapter extends RecyclerView.Adapter<NasaImageAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<NasaImage> {
+
+    /** Payload rebinding only the selection state of a row */
+    private static final Object PAYLOAD_SELECTION = new Object();
+
+    /** Payload rebinding only the text of a row */
+    private static final Object PAYLOAD_TEXT = new Object();
+
+    /**
+     * Receives clicks on the rows.
+     */
+    public interface Listener {
+        /**
+         * Called when a row is tapped.
+         *
+         * @param image The image of the row
+         */
+        void onImageClicked(NasaImage image);
+
+        /**
+         * Called when a row is long-pressed.
+         *
+         * @param image The image of the row
+         */
+        void onImageLongClicked(NasaImage image);
+    }
+
+    /** Compares entries by ID and by the columns shown in a row */
+    private static final DiffUtil.ItemCallback<NasaImage> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<NasaImage>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull NasaImage oldItem, @NonNull NasaImage newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull NasaImage oldItem, @NonNull NasaImage newItem) {
+                    return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                            && sameThumbnail(oldItem, newItem);
+                }
+
+                @Nullable
+                @Override
+                public Object getChangePayload(@NonNull NasaImage oldItem, @NonNull NasaImage newItem) {
+                    // Keep the loaded thumbnail when only the title changed
+                    return sameThumbnail(oldItem, newItem) ? PAYLOAD_TEXT : null;
+                }
+            };
 
     /** Layout inflater for creating views */
-    private LayoutInflater inflater;
+    private final LayoutInflater inflater;
 
     /** Resource ID for the list item layout */
-    private int resourceId;
+    private final int resourceId;
+
+    /** Context used for Glide requests */
+    private final Context context;
+
+    /** Listener receiving clicks */
+    private final Listener listener;
+
+    /** Computes the differences between lists off the main thread */
+    private final AsyncListDiffer<NasaImage> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    /** IDs of the selected rows */
+    private final Set<Long> selectedIds = new HashSet<>();
+
+    /** Size of the thumbnails in pixels */
+    private final int thumbnailSize;
 
     /**
-     * ViewHolder class for efficient view recycling.
+     * ViewHolder holding the views of a row.
      */
-    private static class ViewHolder {
-        ImageView thumbnail;
-        TextView title;
-        TextView date;
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final ImageView thumbnail;
+        final TextView title;
+        final TextView date;
+
+        /**
+         * Finds the views of a row.
+         *
+         * @param itemView The row view
+         */
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            thumbnail = itemView.findViewById(R.id.item_thumbnail);
+            title = itemView.findViewById(R.id.item_title);
+            date = itemView.findViewById(R.id.item_date);
+        }
     }
 
     /**
@@ -47,80 +142,307 @@ public class NasaImageAdapter extends ArrayAdapter<NasaImage> {
      *
      * @param context    The context
      * @param resourceId The resource ID for the list item layout
-     * @param images     The list of NasaImage objects
+     * @param listener   The listener receiving clicks
      */
-    public NasaImageAdapter(@NonNull Context context, int resourceId, @NonNull List<NasaImage> images) {
-        super(context, resourceId, images);
+    public NasaImageAdapter(@NonNull Context context, int resourceId, @NonNull Listener listener) {
+        this.context = context;
         this.inflater = LayoutInflater.from(context);
         this.resourceId = resourceId;
+        this.listener = listener;
+        this.thumbnailSize = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_size);
+        setHasStableIds(true);
     }
 
     /**
-     * Gets a View that displays the data at the specified position.
+     * Gets the size at which thumbnails are requested.
      *
-     * @param position    The position of the item
-     * @param convertView The old view to reuse, if possible
-     * @param parent      The parent ViewGroup
-     * @return A View corresponding to the data at the specified position
+     * @return The thumbnail width and height in pixels
+     */
+    public int getThumbnailSize() {
+        return thumbnailSize;
+    }
+
+    /**
+     * Replaces the list shown. The differences are computed on a background thread
+     * and only the changed rows are updated.
+     *
+     * @param images         The new list; it must not be modified afterwards
+     * @param commitCallback Optional callback run once the list is shown
+     */
+    public void submitList(List<NasaImage> images, @Nullable Runnable commitCallback) {
+        differ.submitList(images, commitCallback);
+    }
+
+    /**
+     * Gets the list currently shown.
+     *
+     * @return The current list, read-only
+     */
+    public List<NasaImage> getCurrentList() {
+        return differ.getCurrentList();
+    }
+
+    /**
+     * Selects or deselects a row.
+     *
+     * @param image The image of the row
+     */
+    public void toggleSelection(NasaImage image) {
+        if (!selectedIds.remove(image.getId())) {
+            selectedIds.add(image.getId());
+        }
+        notifySelectionChanged(image.getId());
+    }
+
+    /**
+     * Selects every row.
+     */
+    public void selectAll() {
+        for (NasaImage image : getCurrentList()) {
+            if (selectedIds.add(image.getId())) {
+                notifySelectionChanged(image.getId());
+            }
+        }
+    }
+
+    /**
+     * Deselects every row.
+     */
+    public void clearSelection() {
+        List<Long> ids = new ArrayList<>(selectedIds);
+        selectedIds.clear();
+        for (long id : ids) {
+            notifySelectionChanged(id);
+        }
+    }
+
+    /**
+     * Gets the selected images, in list order.
+     *
+     * @return The selected images
+     */
+    public List<NasaImage> getSelectedImages() {
+        List<NasaImage> selected = new ArrayList<>();
+        for (NasaImage image : getCurrentList()) {
+            if (selectedIds.contains(image.getId())) {
+                selected.add(image);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Gets the number of selected rows.
+     *
+     * @return The selection count
+     */
+    public int getSelectedCount() {
+        return selectedIds.size();
+    }
+
+    /**
+     * Creates a row.
+     *
+     * @param parent   The parent RecyclerView
+     * @param viewType The view type
+     * @return The new ViewHolder
      */
     @NonNull
     @Override
-    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-        ViewHolder holder;
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        ViewHolder holder = new ViewHolder(inflater.inflate(resourceId, parent, false));
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onImageClicked(getCurrentList().get(position));
+            }
+        });
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onImageLongClicked(getCurrentList().get(position));
+            }
+            return true;
+        });
+        return holder;
+    }
 
-        if (convertView == null) {
-            convertView = inflater.inflate(resourceId, parent, false);
+    /**
+     * Binds a row, only partly when the change has a payload.
+     *
+     * @param holder   The ViewHolder
+     * @param position The position of the row
+     * @param payloads The payloads of the change, empty for a full bind
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        NasaImage image = getCurrentList().get(position);
+        for (Object payload : payloads) {
+            if (payload == PAYLOAD_SELECTION) {
+                bindSelection(holder, image);
+            } else if (payload == PAYLOAD_TEXT) {
+                bindText(holder, image);
+            }
+        }
+    }
 
-            holder = new ViewHolder();
-            holder.thumbnail = convertView.findViewById(R.id.item_thumbnail);
-            holder.title = convertView.findViewById(R.id.item_title);
-            holder.date = convertView.findViewById(R.id.item_date);
+    /**
+     * Binds every part of a row.
+     *
+     * @param holder   The ViewHolder
+     * @param position The position of the row
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        NasaImage image = getCurrentList().get(position);
+        bindText(holder, image);
+        bindSelection(holder, image);
 
-            convertView.setTag(holder);
+        // Load thumbnail using Glide
+        if (hasThumbnail(image)) {
+            thumbnailRequest(image)
+                    .transition(DrawableTransitionOptions.withCrossFade())
+                    .into(holder.thumbnail);
         } else {
-            holder = (ViewHolder) convertView.getTag();
+            // Cancel the request of the row this view showed before
+            Glide.with(context).clear(holder.thumbnail);
+            holder.thumbnail.setImageResource("video".equals(image.getMediaType())
+                    ? R.drawable.ic_video_placeholder : R.drawable.ic_image_placeholder);
         }
+    }
 
-        NasaImage image = getItem(position);
-
-        if (image != null) {
-            // Set title
-            holder.title.setText(image.getTitle());
-
-            // Set date
-            holder.date.setText(image.getDate());
-
-            // Load thumbnail using Glide
-            if (image.getUrl() != null && !image.getUrl().isEmpty()) {
-                // Check if it's a video or image
-                if ("video".equals(image.getMediaType())) {
-                    // For videos, show a placeholder
-                    holder.thumbnail.setImageResource(R.drawable.ic_video_placeholder);
-                } else {
-                    Glide.with(getContext())
-                            .load(image.getUrl())
-                            .placeholder(R.drawable.ic_image_placeholder)
-                            .error(R.drawable.ic_image_error)
-                            .centerCrop()
-                            .transition(DrawableTransitionOptions.withCrossFade())
-                            .into(holder.thumbnail);
-                }
-            } else {
-                holder.thumbnail.setImageResource(R.drawable.ic_image_placeholder);
+    /**
+     * Releases the thumbnail of a row that is recycled.
+     *
+     * @param holder The ViewHolder
+     */
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        Glide.with(context).clear(holder.thumbnail);
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The row count
+     */
+    @Override
+    public int getItemCount() {
+        return getCurrentList().size();
+    }
+
+    /**
+     * Gets the stable ID of a row.
+     *
+     * @param position The position of the row
+     * @return The ID (epoch day) of its image
+     */
+    @Override
+    public long getItemId(int position) {
+        return getCurrentList().get(position).getId();
+    }
+
+    /**
+     * Gets the images to preload for a row.
+     *
+     * @param position The position of the row
+     * @return The image of the row, or nothing if it has no thumbnail
+     */
+    @NonNull
+    @Override
+    public List<NasaImage> getPreloadItems(int position) {
+        List<NasaImage> images = getCurrentList();
+        NasaImage image = position < images.size() ? images.get(position) : null;
+        return image != null && hasThumbnail(image)
+                ? Collections.singletonList(image) : Collections.emptyList();
+    }
+
+    /**
+     * Builds the preload request for an image, identical to the request of its row so
+     * that the row finds the preloaded thumbnail in the memory cache.
+     *
+     * @param image The image
+     * @return The thumbnail request
+     */
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull NasaImage image) {
+        return thumbnailRequest(image);
+    }
+
+    /**
+     * Binds the title and date of a row.
+     *
+     * @param holder The ViewHolder
+     * @param image  The image of the row
+     */
+    private static void bindText(ViewHolder holder, NasaImage image) {
+        holder.title.setText(image.getTitle());
+        holder.date.setText(image.getDate());
+    }
+
+    /**
+     * Binds the selection state of a row.
+     *
+     * @param holder The ViewHolder
+     * @param image  The image of the row
+     */
+    private void bindSelection(ViewHolder holder, NasaImage image) {
+        holder.itemView.setActivated(selectedIds.contains(image.getId()));
+    }
+
+    /**
+     * Rebinds the selection state of the row with the given ID, if it is shown.
+     *
+     * @param id The ID of the row
+     */
+    private void notifySelectionChanged(long id) {
+        List<NasaImage> images = getCurrentList();
+        for (int i = 0; i < images.size(); i++) {
+            if (images.get(i).getId() == id) {
+                notifyItemChanged(i, PAYLOAD_SELECTION);
+                return;
             }
         }
+    }
 
-        return convertView;
+    /**
+     * Checks whether two versions of an entry show the same thumbnail.
+     *
+     * @param oldItem The old version
+     * @param newItem The new version
+     * @return true if the URL and media type are the same
+     */
+    private static boolean sameThumbnail(NasaImage oldItem, NasaImage newItem) {
+        return Objects.equals(oldItem.getUrl(), newItem.getUrl())
+                && Objects.equals(oldItem.getMediaType(), newItem.getMediaType());
+    }
+
+    /**
+     * Checks whether an image has a picture to show as a thumbnail.
+     *
+     * @param image The image
+     * @return true if the image is a picture with a URL
+     */
+    private static boolean hasThumbnail(NasaImage image) {
+        return image.getUrl() != null && !image.getUrl().isEmpty()
+                && !"video".equals(image.getMediaType());
     }
 
     /**
-     * Updates the adapter data with a new list of images.
+     * Builds the request loading the thumbnail of an image at its exact size.
      *
-     * @param newImages The new list of images
+     * @param image The image
+     * @return The thumbnail request
      */
-    public void updateData(List<NasaImage> newImages) {
-        clear();
-        addAll(newImages);
-        notifyDataSetChanged();
+    private RequestBuilder<Drawable> thumbnailRequest(NasaImage image) {
+        return Glide.with(context)
+                .load(image.getUrl())
+                .apply(ImageRequestOptions.thumbnail())
+                .override(thumbnailSize);
     }
 }
@@ -0,0 +1,417 @@
+package com.example.nasaimageoftheday.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import com.example.nasaimageoftheday.models.ApodSearchResult;
+import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ApodDates;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Full-text index over the title, explanation and copyright of the archived entries.
+ * <p>
+ * The index is an external-content virtual table over the archive table, so the text
+ * is stored only once; triggers on the archive keep it in sync. FTS5 is used where the
+ * platform SQLite provides it and FTS4 otherwise. Queries are prefix queries on every
+ * word typed, ranked with title matches weighted above explanation matches: FTS5 ranks
+ * with BM25, FTS4 with a term-frequency score computed from matchinfo.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+final class ApodSearchIndex {
+
+    /** Tag for logging */
+    private static final String TAG = "ApodSearchIndex";
+
+    /** Name of the virtual table */
+    static final String TABLE_FTS = "apod_fts";
+
+    /** Weights of the title, explanation and copyright columns */
+    private static final double[] COLUMN_WEIGHTS = {10.0, 1.0, 2.0};
+
+    /** Index of the explanation column, used for snippets */
+    private static final int SNIPPET_COLUMN = 1;
+
+    /** Number of tokens in a snippet */
+    private static final int SNIPPET_TOKENS = 16;
+
+    /** Text marking text left out of a snippet */
+    private static final String ELLIPSIS = "\u2026";
+
+    /** Number of recent hits, and of recent title hits, scored by an FTS4 search */
+    private static final int MAX_CANDIDATES = 500;
+
+    /** Maximum number of words used from a query */
+    private static final int MAX_QUERY_TERMS = 8;
+
+    /** Indexed columns, in index order */
+    private static final String INDEXED_COLUMNS =
+            NasaImageDatabaseHelper.COLUMN_TITLE + ", " +
+                    NasaImageDatabaseHelper.COLUMN_EXPLANATION + ", " +
+                    NasaImageDatabaseHelper.COLUMN_COPYRIGHT;
+
+    /** Archive columns returned with each hit */
+    private static final String RESULT_COLUMNS =
+            "a." + NasaImageDatabaseHelper.COLUMN_DAY + ", " +
+                    "a." + NasaImageDatabaseHelper.COLUMN_TITLE + ", " +
+                    "a." + NasaImageDatabaseHelper.COLUMN_URL + ", " +
+                    "a." + NasaImageDatabaseHelper.COLUMN_MEDIA_TYPE;
+
+    /** Whether the index uses FTS5, or null until known */
+    private volatile Boolean fts5;
+
+    /**
+     * Creates the virtual table and its triggers, preferring FTS5 and falling back to
+     * FTS4. The index is empty until {@link #rebuild(SQLiteDatabase)} is called.
+     *
+     * @param db The writable database
+     */
+    void create(SQLiteDatabase db) {
+        String archive = NasaImageDatabaseHelper.TABLE_ARCHIVE;
+        String day = NasaImageDatabaseHelper.COLUMN_DAY;
+        String newValues = "new." + day + ", new." + NasaImageDatabaseHelper.COLUMN_TITLE +
+                ", new." + NasaImageDatabaseHelper.COLUMN_EXPLANATION +
+                ", new." + NasaImageDatabaseHelper.COLUMN_COPYRIGHT;
+        String oldValues = "old." + day + ", old." + NasaImageDatabaseHelper.COLUMN_TITLE +
+                ", old." + NasaImageDatabaseHelper.COLUMN_EXPLANATION +
+                ", old." + NasaImageDatabaseHelper.COLUMN_COPYRIGHT;
+
+        if (createFts5(db)) {
+            fts5 = true;
+            db.execSQL("CREATE TRIGGER apod_fts_ai AFTER INSERT ON " + archive + " BEGIN " +
+                    "INSERT INTO " + TABLE_FTS + " (rowid, " + INDEXED_COLUMNS + ") " +
+                    "VALUES (" + newValues + "); END;");
+            db.execSQL("CREATE TRIGGER apod_fts_ad AFTER DELETE ON " + archive + " BEGIN " +
+                    "INSERT INTO " + TABLE_FTS + " (" + TABLE_FTS + ", rowid, " + INDEXED_COLUMNS + ") " +
+                    "VALUES ('delete', " + oldValues + "); END;");
+            db.execSQL("CREATE TRIGGER apod_fts_au AFTER UPDATE OF " + INDEXED_COLUMNS +
+                    " ON " + archive + " BEGIN " +
+                    "INSERT INTO " + TABLE_FTS + " (" + TABLE_FTS + ", rowid, " + INDEXED_COLUMNS + ") " +
+                    "VALUES ('delete', " + oldValues + "); " +
+                    "INSERT INTO " + TABLE_FTS + " (rowid, " + INDEXED_COLUMNS + ") " +
+                    "VALUES (" + newValues + "); END;");
+        } else {
+            fts5 = false;
+            createFts4(db);
+            // FTS4 reads the old text from the content table, so remove it before the change
+            db.execSQL("CREATE TRIGGER apod_fts_bd BEFORE DELETE ON " + archive + " BEGIN " +
+                    "DELETE FROM " + TABLE_FTS + " WHERE docid = old." + day + "; END;");
+            db.execSQL("CREATE TRIGGER apod_fts_bu BEFORE UPDATE OF " + INDEXED_COLUMNS +
+                    " ON " + archive + " BEGIN " +
+                    "DELETE FROM " + TABLE_FTS + " WHERE docid = old." + day + "; END;");
+            db.execSQL("CREATE TRIGGER apod_fts_ai AFTER INSERT ON " + archive + " BEGIN " +
+                    "INSERT INTO " + TABLE_FTS + " (docid, " + INDEXED_COLUMNS + ") " +
+                    "VALUES (" + newValues + "); END;");
+            db.execSQL("CREATE TRIGGER apod_fts_au AFTER UPDATE OF " + INDEXED_COLUMNS +
+                    " ON " + archive + " BEGIN " +
+                    "INSERT INTO " + TABLE_FTS + " (docid, " + INDEXED_COLUMNS + ") " +
+                    "VALUES (" + newValues + "); END;");
+        }
+    }
+
+    /**
+     * Re-indexes every row of the archive.
+     *
+     * @param db The writable database
+     */
+    void rebuild(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_FTS + " (" + TABLE_FTS + ") VALUES ('rebuild')");
+    }
+
+    /**
+     * Searches the index. Every word of the query must match, as a prefix, one of the
+     * indexed columns.
+     *
+     * @param db    The readable database
+     * @param query The words to search for
+     * @param limit Maximum number of hits
+     * @return The hits, best first; empty if the query has no words
+     */
+    List<ApodSearchResult> search(SQLiteDatabase db, String query, int limit) {
+        String match = toMatchExpression(query);
+        if (match == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            return isFts5(db) ? searchFts5(db, match, limit) : searchFts4(db, match, limit);
+        } catch (SQLiteException e) {
+            Log.w(TAG, "Search for '" + query + "' failed: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Searches an FTS5 index, ranked by BM25 with the column weights.
+     *
+     * @param db    The readable database
+     * @param match The MATCH expression
+     * @param limit Maximum number of hits
+     * @return The hits, best first
+     */
+    private List<ApodSearchResult> searchFts5(SQLiteDatabase db, String match, int limit) {
+        String sql = "SELECT " + RESULT_COLUMNS + ", " +
+                "snippet(" + TABLE_FTS + ", " + SNIPPET_COLUMN + ", char(2), char(3), '" + ELLIPSIS + "', " +
+                SNIPPET_TOKENS + "), rank" +
+                " FROM " + TABLE_FTS +
+                " JOIN " + NasaImageDatabaseHelper.TABLE_ARCHIVE + " a" +
+                " ON a." + NasaImageDatabaseHelper.COLUMN_DAY + " = " + TABLE_FTS + ".rowid" +
+                " WHERE " + TABLE_FTS + " MATCH ? ORDER BY rank LIMIT " + limit;
+
+        List<ApodSearchResult> results = new ArrayList<>();
+        Cursor cursor = db.rawQuery(sql, new String[]{match});
+        try {
+            while (cursor.moveToNext()) {
+                results.add(new ApodSearchResult(toImage(cursor), cursor.getString(4),
+                        cursor.getDouble(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return results;
+    }
+
+    /**
+     * Searches an FTS4 index. FTS4 has no built-in ranking and the platform SQLite
+     * cannot call back into Java, so the hits are scored from their match statistics
+     * here and only the best ones are loaded with snippets. To keep that work bounded
+     * for common words, only the {@value #MAX_CANDIDATES} most recent hits and the
+     * {@value #MAX_CANDIDATES} most recent hits with every word in the title are scored.
+     *
+     * @param db    The readable database
+     * @param match The MATCH expression
+     * @param limit Maximum number of hits
+     * @return The hits, best first
+     */
+    private List<ApodSearchResult> searchFts4(SQLiteDatabase db, String match, int limit) {
+        String recent = "SELECT docid FROM " + TABLE_FTS + " WHERE " + TABLE_FTS +
+                " MATCH ? ORDER BY docid DESC LIMIT " + MAX_CANDIDATES;
+        String candidates = "SELECT docid, matchinfo(" + TABLE_FTS + ", 'pcx')" +
+                " FROM " + TABLE_FTS + " WHERE " + TABLE_FTS + " MATCH ?" +
+                " AND (docid >= (SELECT min(docid) FROM (" + recent + "))" +
+                " OR docid IN (" + recent + "))";
+        String titleMatch = restrictToColumn(match, NasaImageDatabaseHelper.COLUMN_TITLE);
+
+        // Best hits so far, best first; ties go to the most recent entry
+        long[] bestIds = new long[Math.min(limit, 2 * MAX_CANDIDATES)];
+        double[] bestScores = new double[bestIds.length];
+        int count = 0;
+        Cursor cursor = db.rawQuery(candidates, new String[]{match, match, titleMatch});
+        try {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                double score = score(cursor.getBlob(1));
+                int at = count;
+                while (at > 0 && (score > bestScores[at - 1]
+                        || score == bestScores[at - 1] && id > bestIds[at - 1])) {
+                    at--;
+                }
+                if (at == bestIds.length) {
+                    continue;
+                }
+                int moved = Math.min(count, bestIds.length - 1) - at;
+                System.arraycopy(bestIds, at, bestIds, at + 1, moved);
+                System.arraycopy(bestScores, at, bestScores, at + 1, moved);
+                bestIds[at] = id;
+                bestScores[at] = score;
+                count = Math.min(count + 1, bestIds.length);
+            }
+        } finally {
+            cursor.close();
+        }
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        StringBuilder idList = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                idList.append(',');
+            }
+            idList.append(bestIds[i]);
+        }
+
+        String sql = "SELECT " + RESULT_COLUMNS + ", " +
+                "snippet(" + TABLE_FTS + ", char(2), char(3), '" + ELLIPSIS + "', " + SNIPPET_COLUMN + ", " +
+                SNIPPET_TOKENS + ")" +
+                " FROM " + TABLE_FTS +
+                " JOIN " + NasaImageDatabaseHelper.TABLE_ARCHIVE + " a" +
+                " ON a." + NasaImageDatabaseHelper.COLUMN_DAY + " = " + TABLE_FTS + ".docid" +
+                " WHERE " + TABLE_FTS + " MATCH ? AND " + TABLE_FTS + ".docid IN (" + idList + ")";
+
+        ApodSearchResult[] ranked = new ApodSearchResult[count];
+        cursor = db.rawQuery(sql, new String[]{match});
+        try {
+            while (cursor.moveToNext()) {
+                NasaImage image = toImage(cursor);
+                for (int i = 0; i < count; i++) {
+                    if (bestIds[i] == image.getId()) {
+                        ranked[i] = new ApodSearchResult(image, cursor.getString(4), -bestScores[i]);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        List<ApodSearchResult> results = new ArrayList<>(count);
+        for (ApodSearchResult result : ranked) {
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Scores a hit from its FTS4 matchinfo 'pcx' blob: for every term and column, the
+     * share of the term's occurrences that are in this row, times the column weight.
+     *
+     * @param matchInfo The matchinfo blob
+     * @return The score, higher is better
+     */
+    private static double score(byte[] matchInfo) {
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = info.get(0);
+        int columns = info.get(1);
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns && column < COLUMN_WEIGHTS.length; column++) {
+                int offset = 2 + (phrase * columns + column) * 3;
+                int hitsInRow = info.get(offset);
+                int hitsInAllRows = info.get(offset + 1);
+                if (hitsInRow > 0) {
+                    score += COLUMN_WEIGHTS[column] * hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Restricts every term of a MATCH expression to one column.
+     *
+     * @param match  The expression, terms separated by single spaces
+     * @param column The column name
+     * @return The restricted expression
+     */
+    private static String restrictToColumn(String match, String column) {
+        return column + ":" + match.replace(" ", " " + column + ":");
+    }
+
+    /**
+     * Converts user input to a MATCH expression of prefix terms. Operators and quotes
+     * typed by the user are dropped, so any input yields a valid expression.
+     *
+     * @param query The user input
+     * @return The expression, or null if the input has no words
+     */
+    static String toMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        int terms = 0;
+        // Lower case keeps words such as "and" or "not" from being read as operators
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word).append('*');
+            if (++terms == MAX_QUERY_TERMS) {
+                break;
+            }
+        }
+        return terms == 0 ? null : match.toString();
+    }
+
+    /**
+     * Checks which module the existing index uses.
+     *
+     * @param db The database
+     * @return true for FTS5, false for FTS4
+     */
+    private boolean isFts5(SQLiteDatabase db) {
+        if (fts5 == null) {
+            Cursor cursor = db.rawQuery("SELECT sql FROM sqlite_master WHERE name = ?",
+                    new String[]{TABLE_FTS});
+            try {
+                fts5 = cursor.moveToFirst()
+                        && cursor.getString(0).toLowerCase(Locale.ROOT).contains("fts5");
+            } finally {
+                cursor.close();
+            }
+        }
+        return fts5;
+    }
+
+    /**
+     * Creates the FTS5 table if the platform SQLite supports it.
+     *
+     * @param db The writable database
+     * @return true if the table was created
+     */
+    private static boolean createFts5(SQLiteDatabase db) {
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts5(" + INDEXED_COLUMNS +
+                    ", content='" + NasaImageDatabaseHelper.TABLE_ARCHIVE + "'" +
+                    ", content_rowid='" + NasaImageDatabaseHelper.COLUMN_DAY + "'" +
+                    ", tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+            db.execSQL("INSERT INTO " + TABLE_FTS + " (" + TABLE_FTS + ", rank) VALUES ('rank', " +
+                    "'bm25(" + COLUMN_WEIGHTS[0] + ", " + COLUMN_WEIGHTS[1] + ", " +
+                    COLUMN_WEIGHTS[2] + ")')");
+            return true;
+        } catch (SQLiteException e) {
+            Log.i(TAG, "FTS5 not available, using FTS4");
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_FTS);
+            return false;
+        }
+    }
+
+    /**
+     * Creates the FTS4 table, with the Unicode tokenizer where it is available.
+     *
+     * @param db The writable database
+     */
+    private static void createFts4(SQLiteDatabase db) {
+        String columns = "content=\"" + NasaImageDatabaseHelper.TABLE_ARCHIVE + "\", " +
+                INDEXED_COLUMNS + ", prefix=\"2,3\"";
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4(" + columns +
+                    ", tokenize=unicode61)");
+        } catch (SQLiteException e) {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_FTS + " USING fts4(" + columns + ")");
+        }
+    }
+
+    /**
+     * Reads the entry columns of a hit.
+     *
+     * @param cursor The cursor positioned at the hit
+     * @return The entry, without its explanation
+     */
+    private static NasaImage toImage(Cursor cursor) {
+        NasaImage image = new NasaImage();
+        long day = cursor.getLong(0);
+        image.setId(day);
+        image.setDate(ApodDates.fromEpochDay(day));
+        image.setTitle(cursor.getString(1));
+        image.setUrl(cursor.getString(2));
+        image.setMediaType(cursor.getString(3));
+        return image;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.nasaimageoftheday.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.nasaimageoftheday.utils.ApodDates;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * In-memory set of the favorite days, one bit per day since the first APOD.
+ * The whole calendar fits in under two kilobytes, so once loaded, favorite checks
+ * for a single entry, a list or a month never touch the disk. The database helper
+ * loads the set once and applies every committed change to it.
+ * <p>
+ * The load holds the lock while it reads, so a change committed during the load is
+ * applied after it rather than lost.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+final class FavoriteDays {
+
+    /** Favorite days, indexed by days since the first APOD */
+    private final BitSet days = new BitSet();
+
+    /** Flag indicating if the set has been loaded from the database */
+    private volatile boolean loaded;
+
+    /**
+     * Checks whether the set has been loaded. Does not block.
+     *
+     * @return true if the set reflects the database
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Loads the favorite days from the database, unless already loaded.
+     *
+     * @param db The database
+     */
+    synchronized void load(SQLiteDatabase db) {
+        if (loaded) {
+            return;
+        }
+        // Covered by the favorites index
+        Cursor cursor = db.rawQuery("SELECT " + NasaImageDatabaseHelper.COLUMN_DAY +
+                " FROM " + NasaImageDatabaseHelper.TABLE_ARCHIVE +
+                " WHERE " + NasaImageDatabaseHelper.COLUMN_IS_FAVORITE + " = 1", null);
+        try {
+            while (cursor.moveToNext()) {
+                int index = toIndex(cursor.getLong(0));
+                if (index >= 0) {
+                    days.set(index);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        loaded = true;
+    }
+
+    /**
+     * Checks whether a day is a favorite.
+     *
+     * @param day The epoch day
+     * @return true if the day is a favorite
+     */
+    synchronized boolean contains(long day) {
+        int index = toIndex(day);
+        return index >= 0 && days.get(index);
+    }
+
+    /**
+     * Counts the favorite days.
+     *
+     * @return The number of favorites
+     */
+    synchronized int count() {
+        return days.cardinality();
+    }
+
+    /**
+     * Applies a committed change of the favorite flag of a day. Ignored before the
+     * load, which will read the change from the database.
+     *
+     * @param day      The epoch day
+     * @param favorite The new flag value
+     */
+    synchronized void set(long day, boolean favorite) {
+        int index = toIndex(day);
+        if (loaded && index >= 0) {
+            days.set(index, favorite);
+        }
+    }
+
+    /**
+     * Applies a committed change of the favorite flag of several days.
+     *
+     * @param changed  The epoch days
+     * @param favorite The new flag value
+     */
+    synchronized void setAll(Collection<Long> changed, boolean favorite) {
+        for (long day : changed) {
+            set(day, favorite);
+        }
+    }
+
+    /**
+     * Applies the removal of every favorite.
+     */
+    synchronized void clear() {
+        days.clear();
+    }
+
+    /**
+     * Converts an epoch day to a bit index.
+     *
+     * @param day The epoch day
+     * @return The index, or -1 if the day is outside the APOD calendar
+     */
+    private static int toIndex(long day) {
+        long index = day - ApodDates.FIRST_APOD_EPOCH_DAY;
+        return index >= 0 && index <= Integer.MAX_VALUE - 1 ? (int) index : -1;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.nasaimageoftheday.database;
+
+import com.example.nasaimageoftheday.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tells interested screens which favorites changed.
+ * The database helper reports every committed change to the favorite flags here.
+ * Each change bumps a version number and is delivered to the observers on the main
+ * thread, in commit order, with the IDs (epoch days) that were added or removed. A
+ * screen that remembers the version it has applied can tell whether anything changed
+ * while it was in the background without querying the database.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class InvalidationTracker {
+
+    /**
+     * Receives the changes to the favorites on the main thread.
+     */
+    public interface Observer {
+        /**
+         * Called after a change to the favorites has been committed.
+         *
+         * @param change The change
+         */
+        void onFavoritesChanged(Change change);
+    }
+
+    /**
+     * A committed change to the favorites.
+     */
+    public static final class Change {
+
+        /** Version of the favorites after this change */
+        private final long version;
+
+        /** IDs (epoch days) that became favorites */
+        private final List<Long> added;
+
+        /** IDs (epoch days) that are no longer favorites */
+        private final List<Long> removed;
+
+        /** Flag indicating if every favorite was removed */
+        private final boolean cleared;
+
+        /**
+         * Constructor with all fields.
+         *
+         * @param version The version after the change
+         * @param added   The IDs that became favorites
+         * @param removed The IDs that are no longer favorites
+         * @param cleared true if every favorite was removed
+         */
+        Change(long version, List<Long> added, List<Long> removed, boolean cleared) {
+            this.version = version;
+            this.added = added;
+            this.removed = removed;
+            this.cleared = cleared;
+        }
+
+        /**
+         * Gets the version of the favorites after this change.
+         * @return The version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the IDs (epoch days) that became favorites.
+         * @return The added IDs
+         */
+        public List<Long> getAdded() {
+            return added;
+        }
+
+        /**
+         * Gets the IDs (epoch days) that are no longer favorites. Empty when
+         * {@link #isCleared()} is true.
+         * @return The removed IDs
+         */
+        public List<Long> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Checks whether every favorite was removed.
+         * @return true if the favorites were cleared
+         */
+        public boolean isCleared() {
+            return cleared;
+        }
+    }
+
+    /** Registered observers */
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+
+    /** Version of the favorites, bumped by every change */
+    private long version;
+
+    /**
+     * Package-private constructor; the database helper owns the tracker.
+     */
+    InvalidationTracker() {
+    }
+
+    /**
+     * Gets the current version of the favorites.
+     *
+     * @return The version, which changes with every committed change
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Registers an observer. Must be called on the main thread.
+     *
+     * @param observer The observer
+     */
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Unregisters an observer. Must be called on the main thread; no change is
+     * delivered to the observer afterwards.
+     *
+     * @param observer The observer
+     */
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Reports committed changes of the favorite flags.
+     *
+     * @param changed  The IDs whose flag changed
+     * @param favorite The new flag value
+     */
+    void notifyChanged(Collection<Long> changed, boolean favorite) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Long> ids = Collections.unmodifiableList(new ArrayList<>(changed));
+        List<Long> none = Collections.emptyList();
+        dispatch(favorite ? ids : none, favorite ? none : ids, false);
+    }
+
+    /**
+     * Reports that every favorite was removed.
+     */
+    void notifyCleared() {
+        dispatch(Collections.emptyList(), Collections.emptyList(), true);
+    }
+
+    /**
+     * Bumps the version and posts the change to the observers.
+     *
+     * @param added   The IDs that became favorites
+     * @param removed The IDs that are no longer favorites
+     * @param cleared true if every favorite was removed
+     */
+    private synchronized void dispatch(List<Long> added, List<Long> removed, boolean cleared) {
+        Change change = new Change(++version, added, removed, cleared);
+        // Posted under the lock so that observers see the versions in order
+        AppExecutors.runOnMainThread(() -> {
+            for (Observer observer : observers) {
+                observer.onFavoritesChanged(change);
+            }
+        });
+    }
+}
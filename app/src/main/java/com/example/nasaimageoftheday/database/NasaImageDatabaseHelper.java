@@ -3,59 +3,142 @@ package com.example.nasaimageoftheday.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.example.nasaimageoftheday.models.ApodSearchResult;
 import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ApodDates;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Database helper class for managing NASA image favorites.
+ * Database helper class for the local APOD archive and favorites.
+ * Every entry fetched from the API is kept in the archive table, so it can be shown
+ * again without the network; favorites are archive rows with the favorite flag set
+ * and are read through the favorites view. A full-text index over the archive supports
+ * keyword search.
+ * <p>
+ * Entries are keyed by their epoch day (days since 1970-01-01), which is also the ID of
+ * the {@link NasaImage} objects returned. The table is stored in date order, and the
+ * list columns are duplicated in covering indexes so that date-ordered lists and date
+ * ranges are read from the index alone. Bulk operations run in a single transaction
+ * with precompiled statements, so their cost is one commit rather than one per row.
+ * The database uses write-ahead logging, so list queries keep running on their own
+ * connections while a sync writes to the archive. Favorite flags are mirrored in
+ * memory, so favorite checks and counts do not query the database once loaded, and
+ * every committed change to them is reported to the {@link InvalidationTracker}.
  * Handles all SQLite database operations including create, read, update, and delete.
  * This implements the Data Access Layer pattern.
+ * <p>
+ * All methods block on the disk. Screens go through {@link NasaImageRepository}, which
+ * runs them on the database thread; only background work calls this class directly.
  *
  * @author Your Name
  * @version 1.0
  */
 public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
 
+    /** Tag for logging */
+    private static final String TAG = "NasaImageDatabase";
+
     /** Database name */
     private static final String DATABASE_NAME = "nasa_images.db";
 
+    /** Page cache size per connection in KiB (a negative cache_size is in KiB) */
+    private static final int CACHE_SIZE_KIB = 4096;
+
+    /** Maximum number of bytes of the database file mapped into memory */
+    private static final long MMAP_SIZE_BYTES = 32L * 1024 * 1024;
+
     /** Database version */
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 4;
 
-    /** Table name for favorites */
+    /** Table name for the APOD archive */
+    public static final String TABLE_ARCHIVE = "apod_archive";
+
+    /** View name for favorites (archive rows with the favorite flag set) */
     public static final String TABLE_FAVORITES = "favorites";
 
     /** Column names */
-    public static final String COLUMN_ID = "_id";
+    public static final String COLUMN_DAY = "day";
     public static final String COLUMN_TITLE = "title";
-    public static final String COLUMN_DATE = "date";
     public static final String COLUMN_EXPLANATION = "explanation";
     public static final String COLUMN_URL = "url";
     public static final String COLUMN_HD_URL = "hd_url";
     public static final String COLUMN_MEDIA_TYPE = "media_type";
     public static final String COLUMN_COPYRIGHT = "copyright";
-
-    /** SQL statement to create the favorites table */
-    private static final String TABLE_CREATE =
-            "CREATE TABLE " + TABLE_FAVORITES + " (" +
-                    COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    COLUMN_TITLE + " TEXT NOT NULL, " +
-                    COLUMN_DATE + " TEXT UNIQUE NOT NULL, " +
-                    COLUMN_EXPLANATION + " TEXT, " +
-                    COLUMN_URL + " TEXT, " +
-                    COLUMN_HD_URL + " TEXT, " +
-                    COLUMN_MEDIA_TYPE + " TEXT, " +
-                    COLUMN_COPYRIGHT + " TEXT" +
-                    ");";
+    public static final String COLUMN_IS_FAVORITE = "is_favorite";
+
+    /** Columns shown in lists, all covered by the list indexes */
+    private static final String[] LIST_COLUMNS = {
+            COLUMN_DAY, COLUMN_TITLE, COLUMN_URL, COLUMN_MEDIA_TYPE
+    };
+
+    /** Content columns of an entry, in storage order */
+    private static final String CONTENT_COLUMNS =
+            COLUMN_DAY + ", " + COLUMN_TITLE + ", " + COLUMN_EXPLANATION + ", " +
+                    COLUMN_URL + ", " + COLUMN_HD_URL + ", " + COLUMN_MEDIA_TYPE + ", " +
+                    COLUMN_COPYRIGHT;
+
+    /** SQL statement to index the list columns in date order */
+    private static final String INDEX_LIST_CREATE =
+            "CREATE INDEX idx_archive_list ON " + TABLE_ARCHIVE +
+                    " (" + COLUMN_DAY + ", " + COLUMN_TITLE + ", " + COLUMN_URL + ", " +
+                    COLUMN_MEDIA_TYPE + ");";
+
+    /** SQL statement to index the list columns of favorites in date order */
+    private static final String INDEX_FAVORITES_CREATE =
+            "CREATE INDEX idx_archive_favorite ON " + TABLE_ARCHIVE +
+                    " (" + COLUMN_IS_FAVORITE + ", " + COLUMN_DAY + ", " + COLUMN_TITLE + ", " +
+                    COLUMN_URL + ", " + COLUMN_MEDIA_TYPE + ");";
+
+    /** SQL statement to create the favorites view */
+    private static final String VIEW_FAVORITES_CREATE =
+            "CREATE VIEW " + TABLE_FAVORITES + " AS SELECT " + CONTENT_COLUMNS +
+                    " FROM " + TABLE_ARCHIVE + " WHERE " + COLUMN_IS_FAVORITE + " = 1;";
+
+    /** SQL statement inserting an entry unless its date is already archived */
+    private static final String INSERT_SQL =
+            "INSERT OR IGNORE INTO " + TABLE_ARCHIVE + " (" + CONTENT_COLUMNS +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /** SQL statement refreshing the content of an archived entry */
+    private static final String UPDATE_SQL =
+            "UPDATE " + TABLE_ARCHIVE + " SET " +
+                    COLUMN_TITLE + " = ?, " + COLUMN_EXPLANATION + " = ?, " + COLUMN_URL + " = ?, " +
+                    COLUMN_HD_URL + " = ?, " + COLUMN_MEDIA_TYPE + " = ?, " + COLUMN_COPYRIGHT + " = ?" +
+                    " WHERE " + COLUMN_DAY + " = ?";
+
+    /** SQL statement setting the favorite flag of an entry; the flag is bound first */
+    private static final String SET_FAVORITE_SQL =
+            "UPDATE " + TABLE_ARCHIVE + " SET " + COLUMN_IS_FAVORITE + " = ?" +
+                    " WHERE " + COLUMN_DAY + " = ? AND " + COLUMN_IS_FAVORITE + " != ?";
+
+    /** SQL expression converting a YYYY-MM-DD date column of an older version to an epoch day */
+    private static final String LEGACY_DATE_TO_DAY =
+            "CAST(ROUND(julianday(date) - 2440587.5) AS INTEGER)";
 
     /** Singleton instance */
     private static NasaImageDatabaseHelper instance;
 
+    /** Full-text index over the archive */
+    private final ApodSearchIndex searchIndex = new ApodSearchIndex();
+
+    /** In-memory copy of the favorite flags, kept in step with every committed change */
+    private final FavoriteDays favoriteDays = new FavoriteDays();
+
+    /** Reports committed changes of the favorite flags */
+    private final InvalidationTracker invalidationTracker = new InvalidationTracker();
+
     /**
      * Gets the singleton instance of the database helper.
      *
@@ -64,18 +147,66 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
      */
     public static synchronized NasaImageDatabaseHelper getInstance(Context context) {
         if (instance == null) {
-            instance = new NasaImageDatabaseHelper(context.getApplicationContext());
+            instance = new NasaImageDatabaseHelper(context.getApplicationContext(), DATABASE_NAME);
         }
         return instance;
     }
 
+    /**
+     * Creates a helper over a separate database file, so tests can fill an archive
+     * without touching the app's own. The caller closes the helper and deletes the
+     * file with {@link Context#deleteDatabase(String)} when done.
+     *
+     * @param context The context
+     * @param name    The database file name
+     * @return A new database helper
+     */
+    @VisibleForTesting
+    public static NasaImageDatabaseHelper createForTesting(Context context, String name) {
+        return new NasaImageDatabaseHelper(context.getApplicationContext(), name);
+    }
+
     /**
      * Private constructor for singleton pattern.
      *
      * @param context The application context
+     * @param name    The database file name
      */
-    private NasaImageDatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    private NasaImageDatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        // Readers see the last committed state while a writer appends to the log
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Called when the database connection is being configured, before the schema is
+     * created or upgraded. With write-ahead logging a commit only has to sync the log
+     * at checkpoints, so NORMAL synchronous mode cannot corrupt the database; at most
+     * the last commits are lost on power failure, and they are refetched by the next
+     * sync. The larger page cache and memory mapping keep the pages a bulk write
+     * touches, the table and its indexes, in memory. Page cache and memory mapping are
+     * per connection and Android only passes the primary connection here, which runs
+     * every write; the pooled connections serving reads keep the SQLite defaults.
+     *
+     * @param db The database instance
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        db.execSQL("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+        // Returns the size actually applied, which is 0 where memory mapping is disabled
+        long mmapSize = DatabaseUtils.longForQuery(db, "PRAGMA mmap_size = " + MMAP_SIZE_BYTES, null);
+        Log.d(TAG, "Configured database, mmap_size = " + mmapSize);
+    }
+
+    /**
+     * Gets the tracker reporting changes to the favorites.
+     *
+     * @return The invalidation tracker
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
     }
 
     /**
@@ -85,11 +216,13 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        db.execSQL(TABLE_CREATE);
+        db.execSQL(archiveTableSql(TABLE_ARCHIVE));
+        createIndexesAndViews(db);
     }
 
     /**
-     * Called when the database needs to be upgraded.
+     * Called when the database needs to be upgraded. Every older version is migrated
+     * to the current schema without losing entries or favorites.
      *
      * @param db         The database instance
      * @param oldVersion The old database version
@@ -97,30 +230,289 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_FAVORITES);
-        onCreate(db);
+        if (oldVersion < 4) {
+            // Versions 2 and 3 keyed the archive by a date string; version 1 only had
+            // a favorites table keyed the same way
+            String source = oldVersion < 2 ? "favorites" : TABLE_ARCHIVE;
+            String favorite = oldVersion < 2 ? "1" : COLUMN_IS_FAVORITE;
+
+            if (oldVersion >= 2) {
+                db.execSQL("DROP VIEW IF EXISTS " + TABLE_FAVORITES);
+            }
+            db.execSQL("DROP TABLE IF EXISTS " + ApodSearchIndex.TABLE_FTS);
+
+            String migrated = TABLE_ARCHIVE + "_v4";
+            db.execSQL(archiveTableSql(migrated));
+            db.execSQL("INSERT OR REPLACE INTO " + migrated + " (" + CONTENT_COLUMNS + ", " +
+                    COLUMN_IS_FAVORITE + ") SELECT " + LEGACY_DATE_TO_DAY + ", " +
+                    COLUMN_TITLE + ", " + COLUMN_EXPLANATION + ", " + COLUMN_URL + ", " +
+                    COLUMN_HD_URL + ", " + COLUMN_MEDIA_TYPE + ", " + COLUMN_COPYRIGHT + ", " +
+                    favorite + " FROM " + source + " WHERE julianday(date) IS NOT NULL");
+            db.execSQL("DROP TABLE " + source);
+            db.execSQL("ALTER TABLE " + migrated + " RENAME TO " + TABLE_ARCHIVE);
+
+            createIndexesAndViews(db);
+            searchIndex.rebuild(db);
+        }
     }
 
     /**
-     * Inserts a new NASA image into the favorites table.
+     * Adds a NASA image to favorites, storing it in the archive if it is not there yet.
      *
-     * @param image The NasaImage to insert
-     * @return The row ID of the newly inserted row, or -1 if an error occurred
+     * @param image The NasaImage to add
+     * @return The row ID of the image, or -1 if an error occurred or it already was a favorite
      */
     public long insertFavorite(NasaImage image) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
+        long id;
+        db.beginTransactionNonExclusive();
+        try {
+            id = saveImage(db, image);
+            if (id == -1) {
+                return -1;
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_IS_FAVORITE, 1);
+            int updated = db.update(TABLE_ARCHIVE, values,
+                    COLUMN_DAY + " = ? AND " + COLUMN_IS_FAVORITE + " = 0",
+                    new String[]{String.valueOf(id)});
+
+            db.setTransactionSuccessful();
+            if (updated == 0) {
+                return -1;
+            }
+        } finally {
+            db.endTransaction();
+        }
+        favoritesChanged(Collections.singletonList(id), true);
+        return id;
+    }
 
-        values.put(COLUMN_TITLE, image.getTitle());
-        values.put(COLUMN_DATE, image.getDate());
-        values.put(COLUMN_EXPLANATION, image.getExplanation());
-        values.put(COLUMN_URL, image.getUrl());
-        values.put(COLUMN_HD_URL, image.getHdUrl());
-        values.put(COLUMN_MEDIA_TYPE, image.getMediaType());
-        values.put(COLUMN_COPYRIGHT, image.getCopyright());
+    /**
+     * Stores an APOD entry in the archive, replacing any older copy of the same date.
+     * The favorite flag of an existing row is kept.
+     *
+     * @param image The entry to store
+     * @return The row ID of the entry, or -1 if an error occurred
+     */
+    public long saveImage(NasaImage image) {
+        return saveImage(getWritableDatabase(), image);
+    }
+
+    /**
+     * Stores several APOD entries in the archive in a single transaction, inserting new
+     * dates and refreshing the content of archived ones. Favorite flags are kept.
+     *
+     * @param images The entries to store
+     */
+    public void saveImages(List<NasaImage> images) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try (UpsertStatement upsert = new UpsertStatement(db)) {
+            for (NasaImage image : images) {
+                upsert.execute(image);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Adds several NASA images to favorites in a single transaction, storing any that
+     * are not archived yet.
+     *
+     * @param images The images to add
+     * @return The number of images that were not favorites before
+     */
+    public int insertFavorites(List<NasaImage> images) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        List<Long> added = new ArrayList<>();
+        db.beginTransactionNonExclusive();
+        try (UpsertStatement upsert = new UpsertStatement(db)) {
+            SQLiteStatement favorite = db.compileStatement(SET_FAVORITE_SQL);
+            try {
+                for (NasaImage image : images) {
+                    long day = upsert.execute(image);
+                    if (day != -1 && setFavorite(favorite, day, true) > 0) {
+                        added.add(day);
+                    }
+                }
+            } finally {
+                favorite.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        favoritesChanged(added, true);
+        return added.size();
+    }
+
+    /**
+     * Retrieves an archived APOD entry by its date, whether or not it is a favorite.
+     *
+     * @param date The date to search for
+     * @return The NasaImage if found, null otherwise
+     */
+    public NasaImage getImageByDate(String date) {
+        if (!ApodDates.isValid(date)) {
+            return null;
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        Cursor cursor = db.query(
+                TABLE_ARCHIVE,
+                null,
+                COLUMN_DAY + " = ?",
+                new String[]{String.valueOf(ApodDates.toEpochDay(date))},
+                null,
+                null,
+                null
+        );
+
+        NasaImage image = null;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                image = cursorToNasaImage(cursor);
+            }
+            cursor.close();
+        }
+
+        return image;
+    }
+
+    /**
+     * Retrieves the archived entries between two dates, newest first. Only the list
+     * columns (date, title, URL and media type) are loaded.
+     *
+     * @param startDate     The first date of the range (YYYY-MM-DD format)
+     * @param endDate       The last date of the range (YYYY-MM-DD format)
+     * @param favoritesOnly true to return only favorites
+     * @return The entries in the range
+     */
+    public List<NasaImage> getImagesInRange(String startDate, String endDate, boolean favoritesOnly) {
+        List<NasaImage> images = new ArrayList<>();
+        if (!ApodDates.isValid(startDate) || !ApodDates.isValid(endDate)) {
+            return images;
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String selection = COLUMN_DAY + " BETWEEN ? AND ?";
+        if (favoritesOnly) {
+            selection = COLUMN_IS_FAVORITE + " = 1 AND " + selection;
+        }
+
+        Cursor cursor = db.query(
+                TABLE_ARCHIVE,
+                LIST_COLUMNS,
+                selection,
+                new String[]{String.valueOf(ApodDates.toEpochDay(startDate)),
+                        String.valueOf(ApodDates.toEpochDay(endDate))},
+                null,
+                null,
+                COLUMN_DAY + " DESC"
+        );
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                images.add(cursorToNasaImage(cursor));
+            }
+            cursor.close();
+        }
+
+        return images;
+    }
+
+    /**
+     * Retrieves a page of favorites, newest first. Only the list columns are loaded.
+     * Pages are keyed by the last ID of the previous page, so each page is a seek in
+     * the favorites index whatever its position in the list.
+     *
+     * @param beforeId The ID (epoch day) of the last favorite of the previous page, or
+     *                 {@link Long#MAX_VALUE} for the first page
+     * @param limit    Maximum number of favorites to load
+     * @return The favorites older than beforeId
+     */
+    public List<NasaImage> getFavoritesPage(long beforeId, int limit) {
+        List<NasaImage> images = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        Cursor cursor = db.query(
+                TABLE_ARCHIVE,
+                LIST_COLUMNS,
+                COLUMN_IS_FAVORITE + " = 1 AND " + COLUMN_DAY + " < ?",
+                new String[]{String.valueOf(beforeId)},
+                null,
+                null,
+                COLUMN_DAY + " DESC",
+                String.valueOf(limit)
+        );
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                images.add(cursorToNasaImage(cursor));
+            }
+            cursor.close();
+        }
+
+        return images;
+    }
+
+    /**
+     * Retrieves the favorites among the given IDs, newest first, for example to add
+     * the entries of an {@link InvalidationTracker.Change} to a list. Only the list
+     * columns are loaded.
+     *
+     * @param ids The IDs (epoch days) of the entries
+     * @return The entries that are favorites
+     */
+    public List<NasaImage> getFavoritesByIds(Collection<Long> ids) {
+        List<NasaImage> images = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return images;
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        StringBuilder placeholders = new StringBuilder();
+        String[] args = new String[ids.size()];
+        int i = 0;
+        for (long id : ids) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+            args[i++] = String.valueOf(id);
+        }
+
+        Cursor cursor = db.query(
+                TABLE_ARCHIVE,
+                LIST_COLUMNS,
+                COLUMN_IS_FAVORITE + " = 1 AND " + COLUMN_DAY + " IN (" + placeholders + ")",
+                args,
+                null,
+                null,
+                COLUMN_DAY + " DESC"
+        );
+
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                images.add(cursorToNasaImage(cursor));
+            }
+            cursor.close();
+        }
+
+        return images;
+    }
 
-        long result = db.insert(TABLE_FAVORITES, null, values);
-        return result;
+    /**
+     * Searches the archive by keywords. Every word must match the start of a word in
+     * the title, explanation or copyright of an entry.
+     *
+     * @param query The words to search for
+     * @param limit Maximum number of results
+     * @return The matching entries, most relevant first, without their explanations
+     */
+    public List<ApodSearchResult> searchArchive(String query, int limit) {
+        return searchIndex.search(getReadableDatabase(), query, limit);
     }
 
     /**
@@ -132,19 +524,14 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
         List<NasaImage> favorites = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
 
-        String[] columns = {
-                COLUMN_ID, COLUMN_TITLE, COLUMN_DATE, COLUMN_EXPLANATION,
-                COLUMN_URL, COLUMN_HD_URL, COLUMN_MEDIA_TYPE, COLUMN_COPYRIGHT
-        };
-
         Cursor cursor = db.query(
                 TABLE_FAVORITES,
-                columns,
                 null,
                 null,
                 null,
                 null,
-                COLUMN_DATE + " DESC"
+                null,
+                COLUMN_DAY + " DESC"
         );
 
         if (cursor != null && cursor.moveToFirst()) {
@@ -165,13 +552,16 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
      * @return The NasaImage if found, null otherwise
      */
     public NasaImage getFavoriteByDate(String date) {
+        if (!ApodDates.isValid(date)) {
+            return null;
+        }
         SQLiteDatabase db = this.getReadableDatabase();
 
         Cursor cursor = db.query(
                 TABLE_FAVORITES,
                 null,
-                COLUMN_DATE + " = ?",
-                new String[]{date},
+                COLUMN_DAY + " = ?",
+                new String[]{String.valueOf(ApodDates.toEpochDay(date))},
                 null,
                 null,
                 null
@@ -187,76 +577,267 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
     }
 
     /**
-     * Checks if an image with the given date is already in favorites.
+     * Checks if an image with the given date is already in favorites. Answered from
+     * memory once the favorite days are loaded; the first call loads them.
      *
      * @param date The date to check
      * @return true if the image is a favorite, false otherwise
      */
     public boolean isFavorite(String date) {
-        SQLiteDatabase db = this.getReadableDatabase();
-
-        Cursor cursor = db.query(
-                TABLE_FAVORITES,
-                new String[]{COLUMN_ID},
-                COLUMN_DATE + " = ?",
-                new String[]{date},
-                null,
-                null,
-                null
-        );
-
-        boolean exists = cursor != null && cursor.getCount() > 0;
-        if (cursor != null) {
-            cursor.close();
+        if (!ApodDates.isValid(date)) {
+            return false;
         }
+        return isFavorite(ApodDates.toEpochDay(date));
+    }
 
-        return exists;
+    /**
+     * Checks if the entry with the given ID is a favorite, for example to mark the
+     * rows of a list or the days of a calendar. Answered from memory once the favorite
+     * days are loaded; the first call loads them.
+     *
+     * @param id The ID (epoch day) of the entry
+     * @return true if the entry is a favorite, false otherwise
+     */
+    public boolean isFavorite(long id) {
+        return loadedFavoriteDays().contains(id);
+    }
+
+    /**
+     * Checks whether favorite checks and counts are answered without touching the disk.
+     *
+     * @return true if the favorite days are loaded
+     */
+    public boolean areFavoritesLoaded() {
+        return favoriteDays.isLoaded();
     }
 
     /**
-     * Deletes a favorite image by its ID.
+     * Removes an image from favorites by its ID. The entry stays in the archive.
      *
-     * @param id The ID of the image to delete
+     * @param id The ID (epoch day) of the image to remove
      * @return The number of rows affected
      */
     public int deleteFavorite(long id) {
         SQLiteDatabase db = this.getWritableDatabase();
-        return db.delete(TABLE_FAVORITES, COLUMN_ID + " = ?",
+        int deleted = db.update(TABLE_ARCHIVE, unfavoriteValues(),
+                COLUMN_DAY + " = ? AND " + COLUMN_IS_FAVORITE + " = 1",
                 new String[]{String.valueOf(id)});
+        if (deleted > 0) {
+            favoritesChanged(Collections.singletonList(id), false);
+        }
+        return deleted;
+    }
+
+    /**
+     * Removes several images from favorites in a single transaction. The entries stay
+     * in the archive.
+     *
+     * @param ids The IDs (epoch days) of the images to remove
+     * @return The number of favorites removed
+     */
+    public int deleteFavorites(Collection<Long> ids) {
+        return setFavorites(ids, false);
     }
 
     /**
-     * Deletes a favorite image by its date.
+     * Marks several archived entries as favorites again in a single transaction, for
+     * example to undo {@link #deleteFavorites(Collection)}. Unlike
+     * {@link #insertFavorites(List)}, this works with list entries that do not carry the
+     * full content.
+     *
+     * @param ids The IDs (epoch days) of the entries
+     * @return The number of favorites restored
+     */
+    public int restoreFavorites(Collection<Long> ids) {
+        return setFavorites(ids, true);
+    }
+
+    /**
+     * Removes every image from favorites. The entries stay in the archive.
      *
-     * @param date The date of the image to delete
      * @return The number of rows affected
      */
-    public int deleteFavoriteByDate(String date) {
+    public int deleteAllFavorites() {
         SQLiteDatabase db = this.getWritableDatabase();
-        return db.delete(TABLE_FAVORITES, COLUMN_DATE + " = ?",
-                new String[]{date});
+        int deleted = db.update(TABLE_ARCHIVE, unfavoriteValues(), COLUMN_IS_FAVORITE + " = 1", null);
+        if (deleted > 0) {
+            favoriteDays.clear();
+            invalidationTracker.notifyCleared();
+        }
+        return deleted;
     }
 
     /**
-     * Gets the count of favorite images.
+     * Removes an image from favorites by its date. The entry stays in the archive.
+     *
+     * @param date The date of the image to remove
+     * @return The number of rows affected
+     */
+    public int deleteFavoriteByDate(String date) {
+        if (!ApodDates.isValid(date)) {
+            return 0;
+        }
+        return deleteFavorite(ApodDates.toEpochDay(date));
+    }
+
+    /**
+     * Gets the count of favorite images, from memory once the favorite days are loaded.
      *
      * @return The number of favorites
      */
     public int getFavoritesCount() {
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_FAVORITES, null);
+        return loadedFavoriteDays().count();
+    }
 
-        int count = 0;
-        if (cursor != null && cursor.moveToFirst()) {
-            count = cursor.getInt(0);
-            cursor.close();
+    /**
+     * Builds the statement creating an archive table with the current schema.
+     *
+     * @param name The table name
+     * @return The CREATE TABLE statement
+     */
+    private static String archiveTableSql(String name) {
+        return "CREATE TABLE " + name + " (" +
+                COLUMN_DAY + " INTEGER PRIMARY KEY, " +
+                COLUMN_TITLE + " TEXT NOT NULL, " +
+                COLUMN_EXPLANATION + " TEXT, " +
+                COLUMN_URL + " TEXT, " +
+                COLUMN_HD_URL + " TEXT, " +
+                COLUMN_MEDIA_TYPE + " TEXT, " +
+                COLUMN_COPYRIGHT + " TEXT, " +
+                COLUMN_IS_FAVORITE + " INTEGER NOT NULL DEFAULT 0" +
+                ");";
+    }
+
+    /**
+     * Creates the indexes, the favorites view and the full-text index of the archive.
+     *
+     * @param db The writable database
+     */
+    private void createIndexesAndViews(SQLiteDatabase db) {
+        db.execSQL(INDEX_LIST_CREATE);
+        db.execSQL(INDEX_FAVORITES_CREATE);
+        db.execSQL(VIEW_FAVORITES_CREATE);
+        searchIndex.create(db);
+    }
+
+    /**
+     * Stores an APOD entry in the archive, keeping the favorite flag of an existing row.
+     *
+     * @param db    The writable database
+     * @param image The entry to store
+     * @return The row ID of the entry, or -1 if an error occurred
+     */
+    private long saveImage(SQLiteDatabase db, NasaImage image) {
+        if (!ApodDates.isValid(image.getDate())) {
+            return -1;
+        }
+        long day = ApodDates.toEpochDay(image.getDate());
+
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_DAY, day);
+        values.put(COLUMN_TITLE, image.getTitle());
+        values.put(COLUMN_EXPLANATION, image.getExplanation());
+        values.put(COLUMN_URL, image.getUrl());
+        values.put(COLUMN_HD_URL, image.getHdUrl());
+        values.put(COLUMN_MEDIA_TYPE, image.getMediaType());
+        values.put(COLUMN_COPYRIGHT, image.getCopyright());
+
+        if (db.insertWithOnConflict(TABLE_ARCHIVE, null, values, SQLiteDatabase.CONFLICT_IGNORE) != -1) {
+            return day;
+        }
+
+        // Already archived: refresh the content in place
+        values.remove(COLUMN_DAY);
+        int updated = db.update(TABLE_ARCHIVE, values, COLUMN_DAY + " = ?",
+                new String[]{String.valueOf(day)});
+        return updated > 0 ? day : -1;
+    }
+
+    /**
+     * Sets the favorite flag of several entries in a single transaction.
+     *
+     * @param ids      The IDs (epoch days) of the entries
+     * @param favorite The flag value
+     * @return The number of entries whose flag changed
+     */
+    private int setFavorites(Collection<Long> ids, boolean favorite) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        List<Long> changed = new ArrayList<>();
+        db.beginTransactionNonExclusive();
+        try {
+            SQLiteStatement statement = db.compileStatement(SET_FAVORITE_SQL);
+            try {
+                for (long id : ids) {
+                    if (setFavorite(statement, id, favorite) > 0) {
+                        changed.add(id);
+                    }
+                }
+            } finally {
+                statement.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        // Applied once committed, so a rolled back change never shows
+        favoritesChanged(changed, favorite);
+        return changed.size();
+    }
+
+    /**
+     * Sets the favorite flag of an entry with the compiled {@link #SET_FAVORITE_SQL}.
+     *
+     * @param statement The compiled statement
+     * @param id        The ID (epoch day) of the entry
+     * @param favorite  The flag value
+     * @return 1 if the flag changed, 0 otherwise
+     */
+    private static int setFavorite(SQLiteStatement statement, long id, boolean favorite) {
+        long value = favorite ? 1 : 0;
+        statement.bindLong(1, value);
+        statement.bindLong(2, id);
+        statement.bindLong(3, value);
+        return statement.executeUpdateDelete();
+    }
+
+    /**
+     * Applies committed changes of the favorite flags to the in-memory favorite days
+     * and reports them to the invalidation tracker.
+     *
+     * @param ids      The IDs (epoch days) whose flag changed
+     * @param favorite The new flag value
+     */
+    private void favoritesChanged(Collection<Long> ids, boolean favorite) {
+        favoriteDays.setAll(ids, favorite);
+        invalidationTracker.notifyChanged(ids, favorite);
+    }
+
+    /**
+     * Gets the favorite days, loading them from the database on first use.
+     *
+     * @return The loaded favorite days
+     */
+    private FavoriteDays loadedFavoriteDays() {
+        if (!favoriteDays.isLoaded()) {
+            favoriteDays.load(getReadableDatabase());
         }
+        return favoriteDays;
+    }
 
-        return count;
+    /**
+     * Builds the values that clear the favorite flag.
+     *
+     * @return The content values
+     */
+    private static ContentValues unfavoriteValues() {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_IS_FAVORITE, 0);
+        return values;
     }
 
     /**
-     * Converts a cursor row to a NasaImage object.
+     * Converts a cursor row to a NasaImage object. Columns missing from the cursor are
+     * left unset.
      *
      * @param cursor The cursor positioned at the row to convert
      * @return The NasaImage object
@@ -264,18 +845,20 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
     private NasaImage cursorToNasaImage(Cursor cursor) {
         NasaImage image = new NasaImage();
 
-        int idIndex = cursor.getColumnIndex(COLUMN_ID);
+        int dayIndex = cursor.getColumnIndex(COLUMN_DAY);
         int titleIndex = cursor.getColumnIndex(COLUMN_TITLE);
-        int dateIndex = cursor.getColumnIndex(COLUMN_DATE);
         int explanationIndex = cursor.getColumnIndex(COLUMN_EXPLANATION);
         int urlIndex = cursor.getColumnIndex(COLUMN_URL);
         int hdUrlIndex = cursor.getColumnIndex(COLUMN_HD_URL);
         int mediaTypeIndex = cursor.getColumnIndex(COLUMN_MEDIA_TYPE);
         int copyrightIndex = cursor.getColumnIndex(COLUMN_COPYRIGHT);
 
-        if (idIndex >= 0) image.setId(cursor.getLong(idIndex));
+        if (dayIndex >= 0) {
+            long day = cursor.getLong(dayIndex);
+            image.setId(day);
+            image.setDate(ApodDates.fromEpochDay(day));
+        }
         if (titleIndex >= 0) image.setTitle(cursor.getString(titleIndex));
-        if (dateIndex >= 0) image.setDate(cursor.getString(dateIndex));
         if (explanationIndex >= 0) image.setExplanation(cursor.getString(explanationIndex));
         if (urlIndex >= 0) image.setUrl(cursor.getString(urlIndex));
         if (hdUrlIndex >= 0) image.setHdUrl(cursor.getString(hdUrlIndex));
@@ -284,4 +867,93 @@ public class NasaImageDatabaseHelper extends SQLiteOpenHelper {
 
         return image;
     }
+
+    /**
+     * Precompiled statements storing entries in the archive, for bulk writes.
+     * Must be used and closed within the transaction of the database it was made for.
+     */
+    private static final class UpsertStatement implements AutoCloseable {
+
+        /** Statement inserting a new date */
+        private final SQLiteStatement insert;
+
+        /** Statement refreshing an archived date */
+        private final SQLiteStatement update;
+
+        /**
+         * Compiles the statements.
+         *
+         * @param db The writable database
+         */
+        UpsertStatement(SQLiteDatabase db) {
+            insert = db.compileStatement(INSERT_SQL);
+            update = db.compileStatement(UPDATE_SQL);
+        }
+
+        /**
+         * Stores an entry, keeping the favorite flag of an archived one.
+         *
+         * @param image The entry to store
+         * @return The ID (epoch day) of the entry, or -1 if its date is invalid
+         */
+        long execute(NasaImage image) {
+            if (!ApodDates.isValid(image.getDate())) {
+                return -1;
+            }
+            long day = ApodDates.toEpochDay(image.getDate());
+
+            insert.bindLong(1, day);
+            bindContent(insert, 2, image);
+            if (insert.executeInsert() != -1) {
+                return day;
+            }
+
+            // Already archived: refresh the content in place
+            bindContent(update, 1, image);
+            update.bindLong(7, day);
+            update.executeUpdateDelete();
+            return day;
+        }
+
+        /**
+         * Binds the content columns of an entry, in {@link #CONTENT_COLUMNS} order
+         * after the day.
+         *
+         * @param statement The statement
+         * @param first     The index of the first content parameter
+         * @param image     The entry
+         */
+        private static void bindContent(SQLiteStatement statement, int first, NasaImage image) {
+            bindText(statement, first, image.getTitle());
+            bindText(statement, first + 1, image.getExplanation());
+            bindText(statement, first + 2, image.getUrl());
+            bindText(statement, first + 3, image.getHdUrl());
+            bindText(statement, first + 4, image.getMediaType());
+            bindText(statement, first + 5, image.getCopyright());
+        }
+
+        /**
+         * Binds a text parameter that may be null.
+         *
+         * @param statement The statement
+         * @param index     The parameter index
+         * @param value     The value, or null
+         */
+        private static void bindText(SQLiteStatement statement, int index, String value) {
+            if (value == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindString(index, value);
+            }
+        }
+
+        /**
+         * Releases the statements.
+         */
+        @Override
+        public void close() {
+            insert.close();
+            update.close();
+        }
+    }
 }
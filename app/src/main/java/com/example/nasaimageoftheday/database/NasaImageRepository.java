@@ -0,0 +1,291 @@
+package com.example.nasaimageoftheday.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.nasaimageoftheday.models.ApodSearchResult;
+import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous access to the archive and favorites for the UI.
+ * Every operation runs on the single database thread of {@link AppExecutors#diskIO()},
+ * so the main thread never touches the disk and writes are applied in the order they
+ * were requested. Each operation returns a {@link Future} and, when given a callback,
+ * delivers its result on the main thread. Favorite checks answered from memory are
+ * delivered right away on the calling thread, which for the UI is the main thread.
+ * Callers must check that their screen still exists when the callback arrives. A failed
+ * operation is logged and its callback still receives a fallback result (no entry, an
+ * empty list, zero, or -1 for an insert), so a screen waiting on it never stays stuck.
+ * <p>
+ * Background components that already run off the main thread, such as the API client,
+ * use {@link NasaImageDatabaseHelper} directly.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class NasaImageRepository {
+
+    /** Tag for logging */
+    private static final String TAG = "NasaImageRepository";
+
+    /**
+     * Receives the result of an operation on the main thread.
+     *
+     * @param <T> The result type
+     */
+    public interface Callback<T> {
+        /**
+         * Called with the result of the operation.
+         *
+         * @param result The result
+         */
+        void onResult(T result);
+    }
+
+    /** Singleton instance */
+    private static NasaImageRepository instance;
+
+    /** Database the operations run against */
+    private final NasaImageDatabaseHelper databaseHelper;
+
+    /** Executor running the operations */
+    private final ExecutorService executor;
+
+    /**
+     * Gets the singleton instance of the repository.
+     *
+     * @param context The context
+     * @return The repository instance
+     */
+    public static synchronized NasaImageRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new NasaImageRepository(NasaImageDatabaseHelper.getInstance(context),
+                    AppExecutors.diskIO());
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor for singleton pattern.
+     *
+     * @param databaseHelper The database helper
+     * @param executor       The executor running the operations
+     */
+    private NasaImageRepository(NasaImageDatabaseHelper databaseHelper, ExecutorService executor) {
+        this.databaseHelper = databaseHelper;
+        this.executor = executor;
+        // Load the favorite days before the first screen asks for them
+        executor.execute(databaseHelper::getFavoritesCount);
+    }
+
+    /**
+     * Gets the tracker reporting changes to the favorites, including those made by
+     * other screens.
+     *
+     * @return The invalidation tracker
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return databaseHelper.getInvalidationTracker();
+    }
+
+    /**
+     * Retrieves an archived entry by its date.
+     *
+     * @param date     The date of the entry
+     * @param callback Optional callback receiving the entry, or null if not archived or
+     *                 the read failed
+     * @return The pending result
+     */
+    public Future<NasaImage> getImageByDate(String date, @Nullable Callback<NasaImage> callback) {
+        return submit(() -> databaseHelper.getImageByDate(date), null, callback);
+    }
+
+    /**
+     * Retrieves a page of favorites with their list columns only.
+     *
+     * @param beforeId The ID of the last favorite of the previous page, or
+     *                 {@link Long#MAX_VALUE} for the first page
+     * @param limit    Maximum number of favorites to load
+     * @param callback Optional callback receiving the page
+     * @return The pending result
+     * @see NasaImageDatabaseHelper#getFavoritesPage(long, int)
+     */
+    public Future<List<NasaImage>> getFavoritesPage(long beforeId, int limit,
+                                                    @Nullable Callback<List<NasaImage>> callback) {
+        return submit(() -> databaseHelper.getFavoritesPage(beforeId, limit), new ArrayList<>(), callback);
+    }
+
+    /**
+     * Retrieves the favorites among the given IDs with their list columns only.
+     *
+     * @param ids      The IDs (epoch days) of the entries
+     * @param callback Optional callback receiving the entries that are favorites
+     * @return The pending result
+     * @see NasaImageDatabaseHelper#getFavoritesByIds(Collection)
+     */
+    public Future<List<NasaImage>> getFavoritesByIds(Collection<Long> ids,
+                                                     @Nullable Callback<List<NasaImage>> callback) {
+        List<Long> copy = new ArrayList<>(ids);
+        return submit(() -> databaseHelper.getFavoritesByIds(copy), new ArrayList<>(), callback);
+    }
+
+    /**
+     * Searches the archive by keywords.
+     *
+     * @param query    The words to search for
+     * @param limit    Maximum number of results
+     * @param callback Optional callback receiving the results, most relevant first
+     * @return The pending result
+     * @see NasaImageDatabaseHelper#searchArchive(String, int)
+     */
+    public Future<List<ApodSearchResult>> searchArchive(String query, int limit,
+                                                        @Nullable Callback<List<ApodSearchResult>> callback) {
+        return submit(() -> databaseHelper.searchArchive(query, limit), new ArrayList<>(), callback);
+    }
+
+    /**
+     * Checks if an entry is a favorite. Once the favorite days are in memory, the
+     * callback is called before this method returns.
+     *
+     * @param date     The date of the entry
+     * @param callback Optional callback receiving the favorite status, false if the
+     *                 read failed
+     * @return The pending result
+     */
+    public Future<Boolean> isFavorite(String date, @Nullable Callback<Boolean> callback) {
+        if (databaseHelper.areFavoritesLoaded()) {
+            return completed(databaseHelper.isFavorite(date), callback);
+        }
+        return submit(() -> databaseHelper.isFavorite(date), false, callback);
+    }
+
+    /**
+     * Counts the favorites. Once the favorite days are in memory, the callback is
+     * called before this method returns.
+     *
+     * @param callback Optional callback receiving the count, 0 if the read failed
+     * @return The pending result
+     */
+    public Future<Integer> getFavoritesCount(@Nullable Callback<Integer> callback) {
+        if (databaseHelper.areFavoritesLoaded()) {
+            return completed(databaseHelper.getFavoritesCount(), callback);
+        }
+        return submit(databaseHelper::getFavoritesCount, 0, callback);
+    }
+
+    /**
+     * Adds an entry to favorites, archiving it if needed.
+     *
+     * @param image    The full entry
+     * @param callback Optional callback receiving the ID of the entry, or -1 if it could
+     *                 not be added or already was a favorite
+     * @return The pending result
+     */
+    public Future<Long> insertFavorite(NasaImage image, @Nullable Callback<Long> callback) {
+        return submit(() -> databaseHelper.insertFavorite(image), -1L, callback);
+    }
+
+    /**
+     * Removes an entry from favorites by its date.
+     *
+     * @param date     The date of the entry
+     * @param callback Optional callback receiving the number of favorites removed, 0 if
+     *                 the write failed
+     * @return The pending result
+     */
+    public Future<Integer> deleteFavoriteByDate(String date, @Nullable Callback<Integer> callback) {
+        return submit(() -> databaseHelper.deleteFavoriteByDate(date), 0, callback);
+    }
+
+    /**
+     * Removes several entries from favorites in a single transaction.
+     *
+     * @param ids      The IDs of the entries
+     * @param callback Optional callback receiving the number of favorites removed, 0 if
+     *                 the write failed
+     * @return The pending result
+     */
+    public Future<Integer> deleteFavorites(Collection<Long> ids, @Nullable Callback<Integer> callback) {
+        List<Long> copy = new ArrayList<>(ids);
+        return submit(() -> databaseHelper.deleteFavorites(copy), 0, callback);
+    }
+
+    /**
+     * Marks several entries as favorites again in a single transaction.
+     *
+     * @param ids      The IDs of the entries
+     * @param callback Optional callback receiving the number of favorites restored, 0 if
+     *                 the write failed
+     * @return The pending result
+     */
+    public Future<Integer> restoreFavorites(Collection<Long> ids, @Nullable Callback<Integer> callback) {
+        List<Long> copy = new ArrayList<>(ids);
+        return submit(() -> databaseHelper.restoreFavorites(copy), 0, callback);
+    }
+
+    /**
+     * Removes every entry from favorites.
+     *
+     * @param callback Optional callback receiving the number of favorites removed, 0 if
+     *                 the write failed
+     * @return The pending result
+     */
+    public Future<Integer> deleteAllFavorites(@Nullable Callback<Integer> callback) {
+        return submit(databaseHelper::deleteAllFavorites, 0, callback);
+    }
+
+    /**
+     * Delivers a result that is already known to the callback on the calling thread.
+     *
+     * @param result   The result
+     * @param callback Optional callback receiving the result
+     * @param <T>      The result type
+     * @return The completed result
+     */
+    private static <T> Future<T> completed(T result, @Nullable Callback<T> callback) {
+        if (callback != null) {
+            callback.onResult(result);
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Runs an operation on the database thread and posts its result to the callback.
+     * If the operation fails, the failure is logged and the fallback is delivered
+     * instead, so the callback is always called.
+     *
+     * @param operation The operation
+     * @param fallback  The result delivered if the operation fails
+     * @param callback  Optional callback receiving the result on the main thread
+     * @param <T>       The result type
+     * @return The pending result, the fallback if the operation failed
+     */
+    private <T> Future<T> submit(Callable<T> operation, @Nullable T fallback,
+                                 @Nullable Callback<T> callback) {
+        return executor.submit(() -> {
+            T result;
+            try {
+                result = operation.call();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Database operation failed", e);
+                result = fallback;
+            }
+            T delivered = result;
+            if (callback != null) {
+                AppExecutors.runOnMainThread(() -> callback.onResult(delivered));
+            }
+            return result;
+        });
+    }
+}
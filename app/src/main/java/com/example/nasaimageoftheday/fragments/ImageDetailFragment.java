@@ -17,7 +17,9 @@ import androidx.fragment.app.Fragment;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.example.nasaimageoftheday.R;
+import com.example.nasaimageoftheday.activities.HdImageActivity;
 import com.example.nasaimageoftheday.models.NasaImage;
+import com.example.nasaimageoftheday.utils.ImageRequestOptions;
 
 /**
  * Fragment for displaying detailed information about a NASA image.
@@ -144,8 +146,7 @@ public class ImageDetailFragment extends Fragment {
         } else if (nasaImage.getUrl() != null && !nasaImage.getUrl().isEmpty()) {
             Glide.with(requireContext())
                     .load(nasaImage.getUrl())
-                    .placeholder(R.drawable.ic_image_placeholder)
-                    .error(R.drawable.ic_image_error)
+                    .apply(ImageRequestOptions.detail())
                     .transition(DrawableTransitionOptions.withCrossFade())
                     .into(imageView);
         }
@@ -153,7 +154,8 @@ public class ImageDetailFragment extends Fragment {
         // Setup HD button
         if (nasaImage.getHdUrl() != null && !nasaImage.getHdUrl().isEmpty()) {
             viewHdButton.setVisibility(View.VISIBLE);
-            viewHdButton.setOnClickListener(v -> openInBrowser(nasaImage.getHdUrl()));
+            viewHdButton.setOnClickListener(v -> startActivity(HdImageActivity.newIntent(
+                    requireContext(), nasaImage.getHdUrl(), nasaImage.getTitle())));
         } else {
             viewHdButton.setVisibility(View.GONE);
         }
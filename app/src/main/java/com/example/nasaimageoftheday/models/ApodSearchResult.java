@@ -0,0 +1,107 @@
+package com.example.nasaimageoftheday.models;
+
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+
+/**
+ * A single hit of a keyword search over the APOD archive.
+ * Holds the matching entry (without its explanation), a snippet of the text around
+ * the matched terms and the relevance rank of the hit.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ApodSearchResult {
+
+    /** Marker inserted before each matched term in the snippet */
+    public static final char HIGHLIGHT_START = '\u0002';
+
+    /** Marker inserted after each matched term in the snippet */
+    public static final char HIGHLIGHT_END = '\u0003';
+
+    /** The matching entry */
+    private final NasaImage image;
+
+    /** Snippet with highlight markers around the matched terms */
+    private final String snippet;
+
+    /** Relevance rank, lower is better */
+    private final double rank;
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param image   The matching entry
+     * @param snippet The snippet with highlight markers
+     * @param rank    The relevance rank, lower is better
+     */
+    public ApodSearchResult(NasaImage image, String snippet, double rank) {
+        this.image = image;
+        this.snippet = snippet;
+        this.rank = rank;
+    }
+
+    /**
+     * Gets the matching entry. Its explanation is not loaded.
+     * @return The entry
+     */
+    public NasaImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the raw snippet, including the highlight markers.
+     * @return The snippet
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Gets the relevance rank of the hit.
+     * @return The rank, lower is better
+     */
+    public double getRank() {
+        return rank;
+    }
+
+    /**
+     * Builds the snippet with the matched terms in bold.
+     *
+     * @return The styled snippet
+     */
+    public CharSequence getHighlightedSnippet() {
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+        if (snippet == null) {
+            return builder;
+        }
+
+        int start = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == HIGHLIGHT_START) {
+                start = builder.length();
+            } else if (c == HIGHLIGHT_END) {
+                if (start >= 0) {
+                    builder.setSpan(new StyleSpan(Typeface.BOLD), start, builder.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                start = -1;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Returns a string representation of the result.
+     * @return String containing the date, title and rank
+     */
+    @Override
+    public String toString() {
+        return image.getDate() + " - " + image.getTitle() + " (" + rank + ")";
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.nasaimageoftheday.models;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * Timing record for a single APOD API request.
+ * Breaks the request down into the connect, time-to-first-byte, download and parse
+ * phases so that slow requests can be attributed to the right cause.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class FetchTiming implements Serializable {
+
+    /**
+     * Phases of a request, in the order they happen.
+     */
+    public enum Phase {
+        /** Opening the connection (DNS, TCP and TLS) */
+        CONNECT,
+        /** Waiting for the first byte of the response */
+        WAITING,
+        /** Reading the response body */
+        DOWNLOAD,
+        /** Parsing the remainder of the response */
+        PARSE
+    }
+
+    /**
+     * Where the result came from.
+     */
+    public enum Source {
+        /** Downloaded from the API */
+        NETWORK,
+        /** Served from the response cache without a request */
+        CACHE,
+        /** Served from the response cache after a 304 Not Modified */
+        REVALIDATED,
+        /** Read from the local APOD archive */
+        ARCHIVE
+    }
+
+    /** Where the result came from */
+    private Source source = Source.NETWORK;
+
+    /** Time spent connecting, in milliseconds */
+    private long connectMs;
+
+    /** Time from sending the request to the first response byte, in milliseconds */
+    private long firstByteMs;
+
+    /** Time spent reading the response body, in milliseconds */
+    private long downloadMs;
+
+    /** Time spent parsing the response body, in milliseconds */
+    private long parseMs;
+
+    /** Total time of the request including retries, in milliseconds */
+    private long totalMs;
+
+    /** Number of body bytes read */
+    private long bytesRead;
+
+    /** Number of network attempts made */
+    private int attempts;
+
+    /**
+     * Gets where the result came from.
+     * @return The source
+     */
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * Sets where the result came from.
+     * @param source The source to set
+     */
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets the time spent connecting.
+     * @return The connect time in milliseconds
+     */
+    public long getConnectMs() {
+        return connectMs;
+    }
+
+    /**
+     * Sets the time spent connecting.
+     * @param connectMs The connect time in milliseconds
+     */
+    public void setConnectMs(long connectMs) {
+        this.connectMs = connectMs;
+    }
+
+    /**
+     * Gets the time to first byte.
+     * @return The time to first byte in milliseconds
+     */
+    public long getFirstByteMs() {
+        return firstByteMs;
+    }
+
+    /**
+     * Sets the time to first byte.
+     * @param firstByteMs The time to first byte in milliseconds
+     */
+    public void setFirstByteMs(long firstByteMs) {
+        this.firstByteMs = firstByteMs;
+    }
+
+    /**
+     * Gets the time spent reading the response body.
+     * @return The download time in milliseconds
+     */
+    public long getDownloadMs() {
+        return downloadMs;
+    }
+
+    /**
+     * Sets the time spent reading the response body.
+     * @param downloadMs The download time in milliseconds
+     */
+    public void setDownloadMs(long downloadMs) {
+        this.downloadMs = downloadMs;
+    }
+
+    /**
+     * Gets the time spent parsing the response body.
+     * @return The parse time in milliseconds
+     */
+    public long getParseMs() {
+        return parseMs;
+    }
+
+    /**
+     * Sets the time spent parsing the response body.
+     * @param parseMs The parse time in milliseconds
+     */
+    public void setParseMs(long parseMs) {
+        this.parseMs = parseMs;
+    }
+
+    /**
+     * Gets the total time of the request.
+     * @return The total time in milliseconds
+     */
+    public long getTotalMs() {
+        return totalMs;
+    }
+
+    /**
+     * Sets the total time of the request.
+     * @param totalMs The total time in milliseconds
+     */
+    public void setTotalMs(long totalMs) {
+        this.totalMs = totalMs;
+    }
+
+    /**
+     * Gets the number of body bytes read.
+     * @return The byte count
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Sets the number of body bytes read.
+     * @param bytesRead The byte count
+     */
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    /**
+     * Gets the number of network attempts made.
+     * @return The attempt count
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Sets the number of network attempts made.
+     * @param attempts The attempt count
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * Returns a string representation suitable for logging.
+     * @return String containing all phase timings
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "%s total=%dms connect=%dms ttfb=%dms download=%dms parse=%dms bytes=%d attempts=%d",
+                source, totalMs, connectMs, firstByteMs, downloadMs, parseMs, bytesRead, attempts);
+    }
+}
@@ -36,6 +36,9 @@ public class NasaImage implements Serializable {
     /** Copyright information if available */
     private String copyright;
 
+    /** Timing of the request that fetched this image, or null if not fetched from the API */
+    private transient FetchTiming fetchTiming;
+
     /**
      * Default constructor for NasaImage.
      */
@@ -194,6 +197,22 @@ public class NasaImage implements Serializable {
         this.copyright = copyright;
     }
 
+    /**
+     * Gets the timing of the request that fetched this image.
+     * @return The timing record, or null if the image was not fetched from the API
+     */
+    public FetchTiming getFetchTiming() {
+        return fetchTiming;
+    }
+
+    /**
+     * Sets the timing of the request that fetched this image.
+     * @param fetchTiming The timing record to set
+     */
+    public void setFetchTiming(FetchTiming fetchTiming) {
+        this.fetchTiming = fetchTiming;
+    }
+
     /**
      * Returns a string representation of the NasaImage.
      * @return String containing title and date
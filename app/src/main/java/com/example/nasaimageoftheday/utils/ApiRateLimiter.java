@@ -0,0 +1,289 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side throttle for the NASA API.
+ * <p>
+ * A token bucket sized from the X-RateLimit-Limit header is refilled over the hourly
+ * window and resynchronised with X-RateLimit-Remaining on every response. Background
+ * work (prefetching, syncing) may not spend the last quarter of the quota, so it slows
+ * down on its own well before the server starts answering 429. Failed requests are
+ * retried with exponential backoff and full jitter, and a circuit breaker fails fast
+ * after repeated server or network errors until a cool-down has passed.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ApiRateLimiter {
+
+    /** Tag for logging */
+    private static final String TAG = "ApiRateLimiter";
+
+    /** Requests per hour assumed until the server reports its limit */
+    private static final int DEFAULT_HOURLY_LIMIT = 1000;
+
+    /** Length of the rate-limit window in milliseconds */
+    private static final long WINDOW_MS = 60L * 60 * 1000;
+
+    /** Fraction of the quota that background requests must leave for the user */
+    private static final double BACKGROUND_RESERVE = 0.25;
+
+    /** Longest a foreground request waits for a token before failing */
+    private static final long MAX_FOREGROUND_WAIT_MS = 5000;
+
+    /** Initial backoff delay in milliseconds */
+    private static final long BASE_BACKOFF_MS = 500;
+
+    /** Maximum backoff delay in milliseconds */
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    /** Consecutive failures that open the circuit */
+    private static final int FAILURE_THRESHOLD = 5;
+
+    /** Time the circuit stays open before a trial request is allowed */
+    private static final long OPEN_INTERVAL_MS = 30000;
+
+    /** Granularity of cancellable sleeps */
+    private static final long SLEEP_STEP_MS = 100;
+
+    /** Clock measuring the window, the cool-down and throttling delays */
+    private final LongSupplier clock;
+
+    /** Source of backoff jitter */
+    private final Random random = new Random();
+
+    /** Hourly request limit reported by the server */
+    private int hourlyLimit = DEFAULT_HOURLY_LIMIT;
+
+    /** Tokens currently available */
+    private double tokens = DEFAULT_HOURLY_LIMIT;
+
+    /** Time of the last refill */
+    private long lastRefill;
+
+    /** No request may start before this time (set after a 429) */
+    private long blockedUntil;
+
+    /** Number of server or network failures in a row */
+    private int consecutiveFailures;
+
+    /** Time until which the circuit is open, or 0 if closed */
+    private long openUntil;
+
+    /** Flag indicating a trial request is running while the circuit is half-open */
+    private boolean trialInFlight;
+
+    /**
+     * Constructor using the elapsed realtime clock.
+     */
+    public ApiRateLimiter() {
+        this(SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * Constructor with a clock, so tests can move time forward.
+     *
+     * @param clock The clock, in milliseconds
+     */
+    @VisibleForTesting
+    ApiRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Waits until a request may be sent and takes a token for it.
+     * Background and speculative requests may not spend the reserved part of the quota;
+     * speculative requests never wait and fail instead.
+     *
+     * @param priority The request priority
+     * @param signal   Optional cancellation signal
+     * @throws NasaApiException If the circuit is open, the quota is exhausted for a
+     *                          foreground or speculative request, or the caller is cancelled
+     */
+    public void acquire(NasaApiClient.Priority priority, @Nullable CancellationSignal signal)
+            throws NasaApiException {
+        boolean background = priority != NasaApiClient.Priority.FOREGROUND;
+        long maxWait = priority == NasaApiClient.Priority.FOREGROUND ? MAX_FOREGROUND_WAIT_MS
+                : priority == NasaApiClient.Priority.SPECULATIVE ? 0 : Long.MAX_VALUE;
+        boolean trial = false;
+        while (true) {
+            long wait;
+            synchronized (this) {
+                long now = clock.getAsLong();
+                refill(now);
+
+                if (openUntil != 0 && !trial) {
+                    if (now < openUntil || trialInFlight) {
+                        throw new NasaApiException("NASA API is unavailable, please try again later");
+                    }
+                    // Half-open: let this request through as a trial
+                    trialInFlight = true;
+                    trial = true;
+                }
+
+                wait = Math.max(0, blockedUntil - now);
+                if (wait == 0) {
+                    double floor = background ? hourlyLimit * BACKGROUND_RESERVE : 0;
+                    if (tokens - 1 >= floor) {
+                        tokens -= 1;
+                        return;
+                    }
+                    wait = (long) Math.ceil((floor + 1 - tokens) * WINDOW_MS / hourlyLimit);
+                }
+
+                if (wait > maxWait) {
+                    if (trial) {
+                        trialInFlight = false;
+                    }
+                    throw new NasaApiException("Request limit reached, please try again later");
+                }
+            }
+
+            Log.d(TAG, priority + " request throttled for " + wait + " ms");
+            try {
+                sleep(wait, signal);
+            } catch (NasaApiException e) {
+                if (trial) {
+                    onCancelled();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Updates the bucket from the rate-limit headers of a response.
+     *
+     * @param limitHeader     The X-RateLimit-Limit header, may be null
+     * @param remainingHeader The X-RateLimit-Remaining header, may be null
+     */
+    public synchronized void onHeaders(@Nullable String limitHeader, @Nullable String remainingHeader) {
+        int limit = parseInt(limitHeader);
+        if (limit > 0) {
+            hourlyLimit = limit;
+        }
+        int remaining = parseInt(remainingHeader);
+        if (remaining >= 0) {
+            tokens = remaining;
+            lastRefill = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Records a request that reached the API and got a non-retriable answer.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        openUntil = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Records a failed request.
+     *
+     * @param statusCode   The HTTP status code, or 0 for a network error
+     * @param retryAfterMs The delay requested by the server, or 0
+     */
+    public synchronized void onFailure(int statusCode, long retryAfterMs) {
+        long now = clock.getAsLong();
+
+        if (statusCode == 429) {
+            tokens = 0;
+            lastRefill = now;
+            blockedUntil = Math.max(blockedUntil, now + Math.max(retryAfterMs, BASE_BACKOFF_MS));
+            trialInFlight = false;
+            return;
+        }
+
+        consecutiveFailures++;
+        if (trialInFlight || consecutiveFailures >= FAILURE_THRESHOLD) {
+            Log.w(TAG, "Opening circuit after " + consecutiveFailures + " failures");
+            openUntil = now + OPEN_INTERVAL_MS;
+        }
+        trialInFlight = false;
+    }
+
+    /**
+     * Records that a request was abandoned by its caller.
+     */
+    public synchronized void onCancelled() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Computes the delay before a retry using exponential backoff with full jitter.
+     *
+     * @param attempt      The retry number, starting at 1
+     * @param retryAfterMs The delay requested by the server, or 0
+     * @return The delay in milliseconds
+     */
+    public long backoffDelay(int attempt, long retryAfterMs) {
+        long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 16));
+        long jittered;
+        synchronized (random) {
+            jittered = (long) (random.nextDouble() * ceiling);
+        }
+        return Math.max(jittered, retryAfterMs);
+    }
+
+    /**
+     * Sleeps for the given time, waking early if the caller is cancelled.
+     *
+     * @param millis The time to sleep
+     * @param signal Optional cancellation signal
+     * @throws NasaApiException If the caller is cancelled
+     */
+    public static void sleep(long millis, @Nullable CancellationSignal signal) throws NasaApiException {
+        long end = SystemClock.elapsedRealtime() + millis;
+        try {
+            long remaining;
+            while ((remaining = end - SystemClock.elapsedRealtime()) > 0) {
+                if (signal != null && signal.isCanceled()) {
+                    throw NasaApiException.cancelled();
+                }
+                Thread.sleep(Math.min(remaining, SLEEP_STEP_MS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw NasaApiException.cancelled();
+        }
+    }
+
+    /**
+     * Adds the tokens earned since the last refill.
+     *
+     * @param now The current time
+     */
+    private void refill(long now) {
+        double earned = (now - lastRefill) * (double) hourlyLimit / WINDOW_MS;
+        tokens = Math.min(hourlyLimit, tokens + earned);
+        lastRefill = now;
+    }
+
+    /**
+     * Parses a non-negative integer header.
+     *
+     * @param value The header value, may be null
+     * @return The parsed value, or -1 if missing or invalid
+     */
+    private static int parseInt(@Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(-1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
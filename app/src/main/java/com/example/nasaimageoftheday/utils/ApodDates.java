@@ -0,0 +1,163 @@
+package com.example.nasaimageoftheday.utils;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Date helpers for APOD dates in YYYY-MM-DD format.
+ * Dates are converted to and from epoch days (days since 1970-01-01) with plain
+ * integer arithmetic, which avoids java.time (API 26+) and SimpleDateFormat.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public final class ApodDates {
+
+    /** Date of the first Astronomy Picture of the Day */
+    public static final String FIRST_APOD_DATE = "1995-06-16";
+
+    /** Epoch day of the first Astronomy Picture of the Day */
+    public static final long FIRST_APOD_EPOCH_DAY = toEpochDay(FIRST_APOD_DATE);
+
+    /** APOD publishes on US Eastern time */
+    private static final TimeZone APOD_TIME_ZONE = TimeZone.getTimeZone("America/New_York");
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ApodDates() {
+    }
+
+    /**
+     * Converts a YYYY-MM-DD date to an epoch day.
+     *
+     * @param date The date string
+     * @return The number of days since 1970-01-01
+     * @throws IllegalArgumentException If the date is not a valid YYYY-MM-DD date
+     */
+    public static long toEpochDay(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+
+        int year;
+        int month;
+        int day;
+        try {
+            year = Integer.parseInt(date.substring(0, 4));
+            month = Integer.parseInt(date.substring(5, 7));
+            day = Integer.parseInt(date.substring(8, 10));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+
+        long epochDay = toEpochDay(year, month, day);
+        if (month < 1 || month > 12 || day < 1 || !fromEpochDay(epochDay).equals(date)) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        return epochDay;
+    }
+
+    /**
+     * Converts an epoch day to a YYYY-MM-DD date.
+     *
+     * @param epochDay The number of days since 1970-01-01
+     * @return The date string
+     */
+    public static String fromEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month, day);
+    }
+
+    /**
+     * Checks whether a string is a valid YYYY-MM-DD date.
+     *
+     * @param date The date string
+     * @return true if the date can be parsed
+     */
+    public static boolean isValid(String date) {
+        try {
+            toEpochDay(date);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds a number of days to a date.
+     *
+     * @param date The date string
+     * @param days The number of days to add (may be negative)
+     * @return The resulting date string
+     */
+    public static String addDays(String date, int days) {
+        return fromEpochDay(toEpochDay(date) + days);
+    }
+
+    /**
+     * Gets today's APOD date.
+     *
+     * @return Today's date in the APOD time zone
+     */
+    public static String today() {
+        return fromEpochDay(todayEpochDay());
+    }
+
+    /**
+     * Gets today's APOD date as an epoch day.
+     *
+     * @return Today's epoch day in the APOD time zone
+     */
+    public static long todayEpochDay() {
+        Calendar calendar = Calendar.getInstance(APOD_TIME_ZONE);
+        return toEpochDay(calendar.get(Calendar.YEAR),
+                calendar.get(Calendar.MONTH) + 1,
+                calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Gets the time until a given hour of the day next occurs in the APOD time zone.
+     *
+     * @param hourOfDay The hour (0-23)
+     * @return The delay in milliseconds, always greater than zero
+     */
+    public static long millisUntilNextHour(int hourOfDay) {
+        Calendar now = Calendar.getInstance(APOD_TIME_ZONE);
+        Calendar next = (Calendar) now.clone();
+        next.set(Calendar.HOUR_OF_DAY, hourOfDay);
+        next.set(Calendar.MINUTE, 0);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        if (!next.after(now)) {
+            next.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return next.getTimeInMillis() - now.getTimeInMillis();
+    }
+
+    /**
+     * Converts a calendar date to an epoch day.
+     *
+     * @param year  The year
+     * @param month The month (1-12)
+     * @param day   The day of the month
+     * @return The number of days since 1970-01-01
+     */
+    private static long toEpochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.MalformedJsonException;
+
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming parser for APOD API responses.
+ * Reads directly from the response stream with {@link JsonReader}, so neither the
+ * response text nor an intermediate JSON tree has to be held in memory.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public final class ApodJsonParser {
+
+    /**
+     * Receives entries one at a time as they are parsed from an array response.
+     */
+    public interface EntryHandler {
+        /**
+         * Called for each parsed entry.
+         *
+         * @param image The parsed entry
+         * @throws IOException To abort parsing
+         */
+        void onEntry(NasaImage image) throws IOException;
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ApodJsonParser() {
+    }
+
+    /**
+     * Parses a single-entry response.
+     *
+     * @param in The response stream (UTF-8 JSON object)
+     * @return The parsed NasaImage
+     * @throws IOException If the stream cannot be read; {@link MalformedJsonException}
+     *                     if it is not a valid APOD object
+     */
+    public static NasaImage parseImage(InputStream in) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            return readImage(reader);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new MalformedJsonException("Unexpected JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses an array response, handing each entry to the handler as soon as it is read.
+     *
+     * @param in      The response stream (UTF-8 JSON array)
+     * @param handler Receives each parsed entry
+     * @return The number of entries parsed
+     * @throws IOException If the stream cannot be read; {@link MalformedJsonException}
+     *                     if it is not a valid APOD array
+     */
+    public static int parseArray(InputStream in, EntryHandler handler) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int count = 0;
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                handler.onEntry(readImage(reader));
+                count++;
+            }
+            reader.endArray();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new MalformedJsonException("Unexpected JSON: " + e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Reads one APOD object from the reader.
+     *
+     * @param reader The reader positioned at the start of an object
+     * @return The parsed NasaImage
+     * @throws IOException If the object cannot be read
+     */
+    private static NasaImage readImage(JsonReader reader) throws IOException {
+        String title = "No Title";
+        String date = "";
+        String explanation = "";
+        String url = "";
+        String hdUrl = "";
+        String mediaType = "image";
+        String copyright = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "date":
+                    date = reader.nextString();
+                    break;
+                case "explanation":
+                    explanation = reader.nextString();
+                    break;
+                case "url":
+                    url = reader.nextString();
+                    break;
+                case "hdurl":
+                    hdUrl = reader.nextString();
+                    break;
+                case "media_type":
+                    mediaType = reader.nextString();
+                    break;
+                case "copyright":
+                    copyright = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return new NasaImage(title, date, explanation, url, hdUrl, mediaType, copyright);
+    }
+}
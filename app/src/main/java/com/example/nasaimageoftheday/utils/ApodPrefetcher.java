@@ -0,0 +1,206 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.Target;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Speculatively fetches the dates next to the one being viewed, so that stepping to
+ * the previous or next day is served from the response and image caches.
+ * <p>
+ * Prefetches run at {@link NasaApiClient.Priority#SPECULATIVE} priority, so they never
+ * spend the part of the quota reserved for the user and are dropped rather than
+ * delayed when the rate limit is close. Image files are downloaded into Glide's disk
+ * cache without being decoded. All prefetching stops when the lifecycle owner is
+ * stopped and resumes around the same date when it is started again.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ApodPrefetcher implements DefaultLifecycleObserver {
+
+    /** Tag for logging */
+    private static final String TAG = "ApodPrefetcher";
+
+    /** Default number of dates to prefetch on each side */
+    public static final int DEFAULT_RADIUS = 1;
+
+    /** Application context used for Glide requests */
+    private final Context context;
+
+    /** Client performing the requests */
+    private final NasaApiClient client;
+
+    /** Number of dates to prefetch on each side */
+    private final int radius;
+
+    /** Signal cancelling the current batch, or null if none is running */
+    private CancellationSignal batchSignal;
+
+    /** Metadata requests of the current batch */
+    private final List<Future<?>> pending = new ArrayList<>();
+
+    /** Image downloads of the current batch */
+    private final List<Target<File>> imageTargets = new ArrayList<>();
+
+    /** Date the last batch was centred on, or null */
+    private String centerDate;
+
+    /** Flag indicating if the lifecycle owner is started */
+    private boolean started = true;
+
+    /**
+     * Constructor with the default radius.
+     *
+     * @param context        The context
+     * @param lifecycleOwner The activity whose stop cancels prefetching
+     */
+    public ApodPrefetcher(Context context, LifecycleOwner lifecycleOwner) {
+        this(context, lifecycleOwner, DEFAULT_RADIUS);
+    }
+
+    /**
+     * Constructor with radius.
+     *
+     * @param context        The context
+     * @param lifecycleOwner The activity whose stop cancels prefetching
+     * @param radius         Number of dates to prefetch on each side
+     */
+    public ApodPrefetcher(Context context, LifecycleOwner lifecycleOwner, int radius) {
+        this.context = context.getApplicationContext();
+        this.client = NasaApiClient.getInstance(context);
+        this.radius = radius;
+        lifecycleOwner.getLifecycle().addObserver(this);
+    }
+
+    /**
+     * Prefetches the dates around the given date, replacing any batch in progress.
+     * The next day is fetched before the previous one. Must be called on the main thread.
+     *
+     * @param date The date being viewed (YYYY-MM-DD format)
+     */
+    public void prefetchAround(String date) {
+        cancel();
+        centerDate = date;
+        if (!started || !ApodDates.isValid(date)) {
+            return;
+        }
+
+        CancellationSignal signal = new CancellationSignal();
+        batchSignal = signal;
+
+        long center = ApodDates.toEpochDay(date);
+        long today = ApodDates.todayEpochDay();
+        for (int distance = 1; distance <= radius; distance++) {
+            for (long day : new long[] {center + distance, center - distance}) {
+                if (day > today || day < ApodDates.FIRST_APOD_EPOCH_DAY) {
+                    continue;
+                }
+                String target = ApodDates.fromEpochDay(day);
+                try {
+                    pending.add(AppExecutors.network().submit(() -> prefetch(target, signal)));
+                } catch (RejectedExecutionException e) {
+                    // The pool is busy with real work; speculation can wait for next time
+                    Log.d(TAG, "Network pool busy, skipping prefetch");
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels the batch in progress, if any. Must be called on the main thread.
+     */
+    public void cancel() {
+        if (batchSignal != null) {
+            batchSignal.cancel();
+            batchSignal = null;
+        }
+        for (Future<?> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        for (Target<File> target : imageTargets) {
+            Glide.with(context).clear(target);
+        }
+        imageTargets.clear();
+    }
+
+    /**
+     * Resumes prefetching around the last date when the owner is started again.
+     *
+     * @param owner The lifecycle owner
+     */
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        started = true;
+        if (centerDate != null && batchSignal == null) {
+            prefetchAround(centerDate);
+        }
+    }
+
+    /**
+     * Stops prefetching when the owner is no longer visible.
+     *
+     * @param owner The lifecycle owner
+     */
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        started = false;
+        cancel();
+    }
+
+    /**
+     * Stops observing the owner once it is destroyed.
+     *
+     * @param owner The lifecycle owner
+     */
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+    }
+
+    /**
+     * Fetches the metadata for a date and starts downloading its image.
+     * Runs on a network thread.
+     *
+     * @param date   The date to prefetch
+     * @param signal The batch cancellation signal
+     */
+    private void prefetch(String date, CancellationSignal signal) {
+        NasaImage image;
+        try {
+            image = client.fetchImage(date, NasaApiClient.Priority.SPECULATIVE, null, signal);
+        } catch (NasaApiException e) {
+            if (!e.isCancelled()) {
+                Log.d(TAG, "Prefetch of " + date + " skipped: " + e.getMessage());
+            }
+            return;
+        }
+
+        String url = image.getUrl();
+        if (!"image".equals(image.getMediaType()) || url == null || url.isEmpty()) {
+            return;
+        }
+
+        AppExecutors.runOnMainThread(() -> {
+            if (!signal.isCanceled()) {
+                imageTargets.add(Glide.with(context).download(url).preload());
+            }
+        });
+    }
+}
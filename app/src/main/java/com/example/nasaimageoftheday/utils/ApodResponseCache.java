@@ -0,0 +1,349 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk-backed cache of APOD API responses.
+ * Each response is stored in its own file together with the validators (ETag and
+ * Last-Modified) needed to revalidate it. The total size is capped and the least
+ * recently used entries are evicted first. All methods perform disk I/O and must not
+ * be called from the main thread.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ApodResponseCache {
+
+    /** Tag for logging */
+    private static final String TAG = "ApodResponseCache";
+
+    /** Version of the on-disk entry format */
+    private static final int FORMAT_VERSION = 1;
+
+    /** Suffix of cache entry files */
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    /** Directory holding the entry files */
+    private final File directory;
+
+    /** Maximum total size of all entries in bytes */
+    private final long maxSizeBytes;
+
+    /** Entry file sizes keyed by file name, in least recently used order */
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Current total size of all entries in bytes */
+    private long currentSize;
+
+    /** Flag indicating if the index has been loaded from disk */
+    private boolean initialized;
+
+    /**
+     * A cached response.
+     */
+    public static class Entry {
+
+        /** Response body */
+        private final byte[] body;
+
+        /** ETag validator, or empty if the server sent none */
+        private final String etag;
+
+        /** Last-Modified validator, or empty if the server sent none */
+        private final String lastModified;
+
+        /** Time the response was stored or last revalidated, in milliseconds */
+        private final long storedAt;
+
+        /**
+         * Constructor with all fields.
+         *
+         * @param body         The response body
+         * @param etag         The ETag validator
+         * @param lastModified The Last-Modified validator
+         * @param storedAt     The time the response was stored
+         */
+        Entry(byte[] body, String etag, String lastModified, long storedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.storedAt = storedAt;
+        }
+
+        /**
+         * Gets the response body.
+         * @return The body bytes
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Gets the ETag validator.
+         * @return The ETag, or empty string if none
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Gets the Last-Modified validator.
+         * @return The Last-Modified value, or empty string if none
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the time the response was stored or last revalidated.
+         * @return The time in milliseconds since the epoch
+         */
+        public long getStoredAt() {
+            return storedAt;
+        }
+    }
+
+    /**
+     * Constructor with directory and size cap.
+     *
+     * @param directory    The directory to store entries in
+     * @param maxSizeBytes The maximum total size of all entries
+     */
+    public ApodResponseCache(File directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Builds the cache key for a request URL by removing the api_key parameter,
+     * so that entries survive a change of API key.
+     *
+     * @param url The request URL
+     * @return The cache key
+     */
+    public static String keyFor(String url) {
+        return url.replaceAll("([?&])api_key=[^&]*&?", "$1").replaceAll("[?&]$", "");
+    }
+
+    /**
+     * Looks up a cached response.
+     *
+     * @param key The cache key
+     * @return The cached entry, or null if there is none
+     */
+    @Nullable
+    public synchronized Entry get(String key) {
+        initialize();
+
+        String fileName = fileNameFor(key);
+        if (entrySizes.get(fileName) == null) {
+            return null;
+        }
+
+        File file = new File(directory, fileName);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                removeFile(fileName);
+                return null;
+            }
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            long storedAt = in.readLong();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+
+            // Persist the access so LRU order survives a restart
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(body, etag, lastModified, storedAt);
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable cache entry: " + e.getMessage());
+            removeFile(fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response, evicting least recently used entries if the cache is full.
+     *
+     * @param key          The cache key
+     * @param body         The response body
+     * @param etag         The ETag validator, may be null
+     * @param lastModified The Last-Modified validator, may be null
+     */
+    public synchronized void put(String key, byte[] body,
+                                 @Nullable String etag, @Nullable String lastModified) {
+        put(key, body, etag, lastModified, System.currentTimeMillis());
+    }
+
+    /**
+     * Stores a response as if it had been stored at the given time, so a test can
+     * make an entry stale.
+     *
+     * @param key          The cache key
+     * @param body         The response body
+     * @param etag         The ETag validator, may be null
+     * @param lastModified The Last-Modified validator, may be null
+     * @param storedAt     The time the response was stored
+     */
+    @VisibleForTesting
+    synchronized void put(String key, byte[] body, @Nullable String etag,
+                          @Nullable String lastModified, long storedAt) {
+        initialize();
+
+        if (body.length > maxSizeBytes / 4) {
+            return;
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create cache directory");
+            return;
+        }
+
+        String fileName = fileNameFor(key);
+        File file = new File(directory, fileName);
+        File tempFile = new File(directory, fileName + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.writeUTF(etag != null ? etag : "");
+            out.writeUTF(lastModified != null ? lastModified : "");
+            out.writeLong(storedAt);
+            out.writeInt(body.length);
+            out.write(body);
+        } catch (IOException e) {
+            Log.w(TAG, "Error writing cache entry: " + e.getMessage());
+            tempFile.delete();
+            return;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            return;
+        }
+
+        Long previous = entrySizes.put(fileName, file.length());
+        currentSize += file.length() - (previous != null ? previous : 0);
+        trimToSize();
+    }
+
+    /**
+     * Removes a cached response.
+     *
+     * @param key The cache key
+     */
+    public synchronized void remove(String key) {
+        initialize();
+        removeFile(fileNameFor(key));
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    public synchronized void clear() {
+        initialize();
+        for (String fileName : entrySizes.keySet().toArray(new String[0])) {
+            removeFile(fileName);
+        }
+    }
+
+    /**
+     * Gets the total size of all cached responses.
+     *
+     * @return The size in bytes
+     */
+    public synchronized long size() {
+        initialize();
+        return currentSize;
+    }
+
+    /**
+     * Loads the index from the files on disk, oldest access first.
+     */
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            entrySizes.put(file.getName(), file.length());
+            currentSize += file.length();
+        }
+        trimToSize();
+    }
+
+    /**
+     * Evicts least recently used entries until the cache fits its size cap.
+     */
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (currentSize > maxSizeBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(directory, eldest.getKey()).delete();
+            currentSize -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Deletes an entry file and removes it from the index.
+     *
+     * @param fileName The entry file name
+     */
+    private void removeFile(String fileName) {
+        Long size = entrySizes.remove(fileName);
+        if (size != null) {
+            currentSize -= size;
+        }
+        new File(directory, fileName).delete();
+    }
+
+    /**
+     * Gets the entry file name for a key.
+     *
+     * @param key The cache key
+     * @return A file name derived from the SHA-1 hash of the key
+     */
+    private static String fileNameFor(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + ENTRY_SUFFIX.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16));
+                name.append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append(ENTRY_SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
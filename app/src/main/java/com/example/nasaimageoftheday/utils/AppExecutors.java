@@ -0,0 +1,146 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pools used by the application.
+ * Network requests run on a small bounded pool so that several fetches can proceed
+ * in parallel without an unbounded number of threads being created. Database work
+ * runs on a single thread, so it is serialized and never blocks the UI. Image tiles
+ * are decoded on their own thread, so a burst of tiles does not hold up the database.
+ * The offline image store downloads and reconciles on its own thread, so filling the
+ * store never takes a network thread from an API fetch.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public final class AppExecutors {
+
+    /** Number of threads used for network requests */
+    private static final int NETWORK_THREADS = 4;
+
+    /** Maximum number of network requests waiting for a thread */
+    private static final int NETWORK_QUEUE_CAPACITY = 32;
+
+    /** Seconds an idle network thread is kept alive */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /** Executor for network requests */
+    private static final ThreadPoolExecutor NETWORK_EXECUTOR = createNetworkExecutor();
+
+    /** Executor for database work */
+    private static final ExecutorService DISK_IO_EXECUTOR =
+            Executors.newSingleThreadExecutor(namedThreadFactory("nasa-disk"));
+
+    /** Executor for decoding image tiles */
+    private static final ExecutorService IMAGE_DECODE_EXECUTOR =
+            Executors.newSingleThreadExecutor(namedThreadFactory("nasa-decode"));
+
+    /** Executor for offline image store work */
+    private static final ExecutorService OFFLINE_STORE_EXECUTOR =
+            Executors.newSingleThreadExecutor(namedThreadFactory("nasa-offline"));
+
+    /** Handler bound to the main (UI) thread */
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private AppExecutors() {
+    }
+
+    /**
+     * Gets the bounded executor used for network requests.
+     *
+     * @return The network executor
+     */
+    public static ExecutorService network() {
+        return NETWORK_EXECUTOR;
+    }
+
+    /**
+     * Gets the single-threaded executor used for database work.
+     *
+     * @return The disk executor
+     */
+    public static ExecutorService diskIO() {
+        return DISK_IO_EXECUTOR;
+    }
+
+    /**
+     * Gets the single-threaded executor used for decoding image tiles.
+     *
+     * @return The image decode executor
+     */
+    public static ExecutorService imageDecode() {
+        return IMAGE_DECODE_EXECUTOR;
+    }
+
+    /**
+     * Gets the single-threaded executor used by the offline image store.
+     *
+     * @return The offline store executor
+     */
+    public static ExecutorService offlineStore() {
+        return OFFLINE_STORE_EXECUTOR;
+    }
+
+    /**
+     * Posts a task to run on the main thread.
+     *
+     * @param task The task to run
+     */
+    public static void runOnMainThread(Runnable task) {
+        MAIN_HANDLER.post(task);
+    }
+
+    /**
+     * Checks whether the calling thread is the main thread.
+     *
+     * @return true if called from the main thread
+     */
+    public static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    /**
+     * Creates the network executor.
+     *
+     * @return A bounded thread pool whose idle threads time out
+     */
+    private static ThreadPoolExecutor createNetworkExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                NETWORK_THREADS,
+                NETWORK_THREADS,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(NETWORK_QUEUE_CAPACITY),
+                namedThreadFactory("nasa-network"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates a thread factory producing named background threads.
+     *
+     * @param prefix The thread name prefix
+     * @return The thread factory
+     */
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+    }
+}
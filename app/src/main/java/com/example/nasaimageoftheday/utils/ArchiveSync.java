@@ -0,0 +1,245 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.models.FetchTiming;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Downloads the metadata of every APOD entry since {@link ApodDates#FIRST_APOD_DATE}
+ * into the local archive.
+ * <p>
+ * The archive is fetched in range requests of {@link NasaApiClient#MAX_RANGE_DAYS}
+ * days. Each chunk is written in a single transaction and then checkpointed, so a
+ * sync interrupted by process death or a network failure resumes with the first chunk
+ * that was not stored; a chunk stored but not checkpointed is simply written again.
+ * The sync covers dates up to yesterday, since today's entry may still change, and
+ * later runs only fetch the days added since.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ArchiveSync {
+
+    /** Tag for logging */
+    private static final String TAG = "ArchiveSync";
+
+    /** Client performing the requests */
+    private final NasaApiClient client;
+
+    /** Archive the entries are written to */
+    private final NasaImageDatabaseHelper archive;
+
+    /** Holds the checkpoint */
+    private final PreferencesHelper preferences;
+
+    /**
+     * Receives progress while a sync is running.
+     */
+    public interface Listener {
+        /**
+         * Called after each chunk has been stored.
+         *
+         * @param stats The statistics of the sync so far
+         */
+        void onChunkStored(Stats stats);
+    }
+
+    /**
+     * Throughput statistics of a sync run.
+     */
+    public static class Stats {
+
+        /** Number of entries stored in this run */
+        private int entries;
+
+        /** Number of response bytes read in this run */
+        private long bytes;
+
+        /** Time spent in this run, in milliseconds */
+        private long elapsedMs;
+
+        /** Number of days still to sync */
+        private long remainingDays;
+
+        /** Number of days in the whole archive */
+        private long totalDays;
+
+        /**
+         * Gets the number of entries stored in this run.
+         * @return The entry count
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * Gets the number of response bytes read in this run.
+         * @return The byte count
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets the time spent in this run.
+         * @return The elapsed time in milliseconds
+         */
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        /**
+         * Gets the number of days still to sync.
+         * @return The remaining day count
+         */
+        public long getRemainingDays() {
+            return remainingDays;
+        }
+
+        /**
+         * Gets the overall progress of the sync.
+         * @return Progress value (0-100)
+         */
+        public int getProgress() {
+            return totalDays == 0 ? 100 : (int) ((totalDays - remainingDays) * 100 / totalDays);
+        }
+
+        /**
+         * Gets the entry throughput of this run.
+         * @return Entries stored per second
+         */
+        public double getEntriesPerSecond() {
+            return elapsedMs == 0 ? 0 : entries * 1000.0 / elapsedMs;
+        }
+
+        /**
+         * Gets the download throughput of this run.
+         * @return Response bytes read per second
+         */
+        public double getBytesPerSecond() {
+            return elapsedMs == 0 ? 0 : bytes * 1000.0 / elapsedMs;
+        }
+
+        /**
+         * Returns a string representation suitable for logging.
+         * @return String containing the counts and throughput
+         */
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d%% entries=%d bytes=%d elapsed=%dms %.1f entries/s %.0f bytes/s remaining=%d days",
+                    getProgress(), entries, bytes, elapsedMs,
+                    getEntriesPerSecond(), getBytesPerSecond(), remainingDays);
+        }
+    }
+
+    /**
+     * Constructor with context.
+     *
+     * @param context The context
+     */
+    public ArchiveSync(Context context) {
+        this(NasaApiClient.getInstance(context), NasaImageDatabaseHelper.getInstance(context),
+                PreferencesHelper.getInstance(context));
+    }
+
+    /**
+     * Constructor with its dependencies, so tests can sync into a separate archive.
+     *
+     * @param client      The client performing the requests
+     * @param archive     The archive the entries are written to
+     * @param preferences The preferences holding the checkpoint
+     */
+    @VisibleForTesting
+    ArchiveSync(NasaApiClient client, NasaImageDatabaseHelper archive, PreferencesHelper preferences) {
+        this.client = client;
+        this.archive = archive;
+        this.preferences = preferences;
+    }
+
+    /**
+     * Checks whether the archive is synced up to yesterday.
+     *
+     * @return true if there is nothing left to sync
+     */
+    public boolean isComplete() {
+        return nextDay() > lastDay();
+    }
+
+    /**
+     * Syncs the archive from the checkpoint up to yesterday. Blocks until done and
+     * must not be called from the main thread.
+     *
+     * @param listener Optional listener notified after each chunk
+     * @param signal   Optional signal used to stop the sync between or during chunks
+     * @return The statistics of this run
+     * @throws NasaApiException If a request fails or the sync is cancelled; the chunks
+     *                          stored so far are kept
+     */
+    public Stats run(@Nullable Listener listener, @Nullable CancellationSignal signal)
+            throws NasaApiException {
+        long started = SystemClock.elapsedRealtime();
+        long last = lastDay();
+        Stats stats = new Stats();
+        stats.totalDays = Math.max(0, last - ApodDates.FIRST_APOD_EPOCH_DAY + 1);
+
+        long next = nextDay();
+        stats.remainingDays = Math.max(0, last - next + 1);
+        while (next <= last) {
+            long chunkEnd = Math.min(last, next + NasaApiClient.MAX_RANGE_DAYS - 1);
+
+            List<NasaImage> chunk = new ArrayList<>(NasaApiClient.MAX_RANGE_DAYS);
+            FetchTiming timing = client.fetchArchiveChunk(ApodDates.fromEpochDay(next),
+                    ApodDates.fromEpochDay(chunkEnd), chunk::add,
+                    NasaApiClient.Priority.BACKGROUND, signal);
+
+            archive.saveImages(chunk);
+            preferences.saveSyncCheckpoint(chunkEnd);
+
+            stats.entries += chunk.size();
+            stats.bytes += timing.getBytesRead();
+            stats.elapsedMs = SystemClock.elapsedRealtime() - started;
+            stats.remainingDays = last - chunkEnd;
+            if (listener != null) {
+                listener.onChunkStored(stats);
+            }
+
+            next = chunkEnd + 1;
+        }
+
+        stats.elapsedMs = SystemClock.elapsedRealtime() - started;
+        Log.i(TAG, "Archive sync finished: " + stats);
+        return stats;
+    }
+
+    /**
+     * Gets the first day that still needs syncing.
+     *
+     * @return The epoch day after the checkpoint
+     */
+    private long nextDay() {
+        long checkpoint = preferences.getSyncCheckpoint();
+        return checkpoint < 0 ? ApodDates.FIRST_APOD_EPOCH_DAY : checkpoint + 1;
+    }
+
+    /**
+     * Gets the last day to sync.
+     *
+     * @return Yesterday's epoch day
+     */
+    private static long lastDay() {
+        return ApodDates.todayEpochDay() - 1;
+    }
+}
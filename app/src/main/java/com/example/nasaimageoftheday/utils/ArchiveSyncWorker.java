@@ -0,0 +1,135 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job running an {@link ArchiveSync}.
+ * WorkManager restarts the job after process death and retries it with backoff after
+ * a network failure, a rate limit or a server error; every run continues from the sync
+ * checkpoint. A request the API rejects outright, such as a bad request or an invalid
+ * key, fails the work instead, since every retry would be rejected the same way.
+ * Progress and throughput are published as work progress.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ArchiveSyncWorker extends Worker {
+
+    /** Tag for logging */
+    private static final String TAG = "ArchiveSyncWorker";
+
+    /** Unique name of the sync work */
+    public static final String WORK_NAME = "archive_sync";
+
+    /** Progress key: overall progress (0-100) */
+    public static final String KEY_PROGRESS = "progress";
+
+    /** Progress key: entries stored per second */
+    public static final String KEY_ENTRIES_PER_SECOND = "entries_per_second";
+
+    /** Progress key: response bytes read per second */
+    public static final String KEY_BYTES_PER_SECOND = "bytes_per_second";
+
+    /** Initial retry delay after a failure */
+    private static final long BACKOFF_SECONDS = 30;
+
+    /** Signal stopping the sync when the work is stopped */
+    private final CancellationSignal cancellationSignal = new CancellationSignal();
+
+    /**
+     * Constructor called by WorkManager.
+     *
+     * @param context The application context
+     * @param params  The worker parameters
+     */
+    public ArchiveSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Starts the sync, or leaves it running if it already is. The sync only runs on an
+     * unmetered network while the battery is not low.
+     *
+     * @param context The context
+     */
+    public static void start(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ArchiveSyncWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Runs the sync until it completes or fails.
+     *
+     * @return The result of the work
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        ArchiveSync sync = new ArchiveSync(getApplicationContext());
+        try {
+            sync.run(stats -> setProgressAsync(new Data.Builder()
+                    .putInt(KEY_PROGRESS, stats.getProgress())
+                    .putDouble(KEY_ENTRIES_PER_SECOND, stats.getEntriesPerSecond())
+                    .putDouble(KEY_BYTES_PER_SECOND, stats.getBytesPerSecond())
+                    .build()), cancellationSignal);
+            return Result.success();
+        } catch (NasaApiException e) {
+            if (isPermanent(e)) {
+                Log.e(TAG, "Archive sync rejected with HTTP " + e.getStatusCode() + ": " + e.getMessage());
+                return Result.failure();
+            }
+            if (!e.isCancelled()) {
+                Log.w(TAG, "Archive sync interrupted: " + e.getMessage());
+            }
+            // The checkpoint keeps every chunk stored so far; the retry resumes from there
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Checks whether a failure will repeat on every retry: a client error other than a
+     * timeout or a rate limit, e.g. 400 for a bad request or 403 for an invalid key.
+     *
+     * @param e The failure
+     * @return true if the work should not be retried
+     */
+    static boolean isPermanent(NasaApiException e) {
+        int status = e.getStatusCode();
+        return status >= 400 && status < 500
+                && status != HttpURLConnection.HTTP_CLIENT_TIMEOUT && status != 429;
+    }
+
+    /**
+     * Stops the sync when the work is stopped.
+     */
+    @Override
+    public void onStopped() {
+        cancellationSignal.cancel();
+    }
+}
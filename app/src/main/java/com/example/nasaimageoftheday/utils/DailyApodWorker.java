@@ -0,0 +1,160 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.BatteryManager;
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.bumptech.glide.Glide;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that fetches each day's APOD shortly after NASA publishes it.
+ * The metadata goes through {@link NasaApiClient}, so it lands in the response cache
+ * that the search screen reads, and the entry is saved as the latest image for the
+ * main screen. The image itself is downloaded into Glide's disk cache, and the HD
+ * image as well when the device is charging on an unmetered network.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class DailyApodWorker extends Worker {
+
+    /** Tag for logging */
+    private static final String TAG = "DailyApodWorker";
+
+    /** Unique name of the periodic work */
+    public static final String WORK_NAME = "daily_apod_prefetch";
+
+    /** Hour of the day (US Eastern) by which the new APOD is normally published */
+    private static final int PUBLISH_HOUR = 1;
+
+    /** Initial retry delay when the entry is not published yet or the request fails */
+    private static final long BACKOFF_MINUTES = 30;
+
+    /** Number of attempts before giving up until the next day */
+    private static final int MAX_ATTEMPTS = 6;
+
+    /** Signal aborting the request when the work is stopped */
+    private final CancellationSignal cancellationSignal = new CancellationSignal();
+
+    /**
+     * Constructor called by WorkManager.
+     *
+     * @param context The application context
+     * @param params  The worker parameters
+     */
+    public DailyApodWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily job, keeping an already scheduled one.
+     *
+     * @param context The context
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                DailyApodWorker.class, 1, TimeUnit.DAYS)
+                .setInitialDelay(ApodDates.millisUntilNextHour(PUBLISH_HOUR), TimeUnit.MILLISECONDS)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_MINUTES, TimeUnit.MINUTES)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Fetches today's entry and downloads its images.
+     *
+     * @return The result of the work
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String today = ApodDates.today();
+
+        NasaImage image;
+        try {
+            image = NasaApiClient.getInstance(context).fetchImage(today,
+                    NasaApiClient.Priority.BACKGROUND, null, cancellationSignal);
+        } catch (NasaApiException e) {
+            if (e.isCancelled()) {
+                return Result.retry();
+            }
+            // Most often the entry has not been published yet
+            Log.w(TAG, "Fetching " + today + " failed: " + e.getMessage());
+            return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        }
+
+        PreferencesHelper.getInstance(context).saveLatestImage(image);
+
+        if ("image".equals(image.getMediaType())) {
+            download(image.getUrl());
+            if (isChargingOnUnmeteredNetwork()) {
+                download(image.getHdUrl());
+            }
+        }
+
+        return Result.success();
+    }
+
+    /**
+     * Aborts the request in progress when the work is stopped.
+     */
+    @Override
+    public void onStopped() {
+        cancellationSignal.cancel();
+    }
+
+    /**
+     * Downloads an image into Glide's disk cache, blocking until it is stored.
+     *
+     * @param url The image URL, may be null or empty
+     */
+    private void download(String url) {
+        if (url == null || url.isEmpty() || isStopped()) {
+            return;
+        }
+        try {
+            Glide.with(getApplicationContext()).download(url).submit().get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Error downloading " + url + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks whether large downloads are cheap right now.
+     *
+     * @return true if the device is charging and the active network is unmetered
+     */
+    private boolean isChargingOnUnmeteredNetwork() {
+        Context context = getApplicationContext();
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        BatteryManager battery = context.getSystemService(BatteryManager.class);
+        return connectivity != null && !connectivity.isActiveNetworkMetered()
+                && battery != null && battery.isCharging();
+    }
+}
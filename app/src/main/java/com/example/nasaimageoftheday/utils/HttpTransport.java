@@ -0,0 +1,97 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Performs the HTTP requests made by {@link NasaApiClient}.
+ * Keeping the transport behind this interface lets the client share a pooled
+ * connection stack with the rest of the app, and lets tests substitute a stand-in
+ * that serves canned responses.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public interface HttpTransport {
+
+    /**
+     * Sends a GET request and waits for the response headers.
+     * The body has not been read when this returns; callers must close the response.
+     *
+     * @param url         The URL to request
+     * @param headers     Extra request headers
+     * @param onConnected Optional callback run on the calling thread once a connection
+     *                    is ready and the request is about to be sent
+     * @param signal      Optional signal that aborts the request, including a body
+     *                    being read after this method has returned
+     * @return The response
+     * @throws IOException If the request fails or is cancelled
+     */
+    Response get(String url, Map<String, String> headers, @Nullable Runnable onConnected,
+                 @Nullable CancellationSignal signal) throws IOException;
+
+    /**
+     * An HTTP response whose body is read as a stream.
+     */
+    interface Response extends Closeable {
+
+        /**
+         * Gets the HTTP status code.
+         *
+         * @return The status code
+         */
+        int getStatusCode();
+
+        /**
+         * Gets a response header.
+         *
+         * @param name The header name
+         * @return The header value, or null if absent
+         */
+        @Nullable
+        String getHeader(String name);
+
+        /**
+         * Gets the length of the body as it will be read.
+         *
+         * @return The length in bytes, or -1 if unknown (e.g. chunked or compressed)
+         */
+        long getContentLength();
+
+        /**
+         * Gets the length of the body as sent over the network, before any decompression
+         * done by the transport. Compare with {@link #getBytesTransferred()} to follow a
+         * download whose decoded length is unknown.
+         *
+         * @return The length in bytes, or -1 if unknown (e.g. chunked)
+         */
+        default long getTransferLength() {
+            return getContentLength();
+        }
+
+        /**
+         * Gets the number of body bytes received from the network so far, counted before
+         * any decompression done by the transport.
+         *
+         * @return The byte count, or -1 if the transport does not count them, in which
+         *         case the bytes read from {@link #getBody()} are the bytes received
+         */
+        default long getBytesTransferred() {
+            return -1;
+        }
+
+        /**
+         * Gets the response body, for error responses as well as successful ones.
+         *
+         * @return The body stream
+         * @throws IOException If the body cannot be opened
+         */
+        InputStream getBody() throws IOException;
+    }
+}
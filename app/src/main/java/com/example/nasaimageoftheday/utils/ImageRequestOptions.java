@@ -0,0 +1,60 @@
+package com.example.nasaimageoftheday.utils;
+
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.nasaimageoftheday.R;
+
+/**
+ * Shared Glide request presets, so every screen loads the same kind of image the same
+ * way and hits the same cache entries. HD images need no preset: they are loaded as
+ * files and decoded tile by tile by {@link com.example.nasaimageoftheday.views.TiledImageView}.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public final class ImageRequestOptions {
+
+    /**
+     * List thumbnails: cropped, decoded without alpha at half the memory per pixel,
+     * and cached on disk both as downloaded and as cropped.
+     */
+    private static final RequestOptions THUMBNAIL = new RequestOptions()
+            .centerCrop()
+            .format(DecodeFormat.PREFER_RGB_565)
+            .diskCacheStrategy(DiskCacheStrategy.ALL)
+            .placeholder(R.drawable.ic_image_placeholder)
+            .error(R.drawable.ic_image_error)
+            .lock();
+
+    /** Detail images: scaled to the view by its scale type, in full colour. */
+    private static final RequestOptions DETAIL = new RequestOptions()
+            .diskCacheStrategy(DiskCacheStrategy.AUTOMATIC)
+            .placeholder(R.drawable.ic_image_placeholder)
+            .error(R.drawable.ic_image_error)
+            .lock();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ImageRequestOptions() {
+    }
+
+    /**
+     * Gets the options for list thumbnails.
+     *
+     * @return The thumbnail options
+     */
+    public static RequestOptions thumbnail() {
+        return THUMBNAIL;
+    }
+
+    /**
+     * Gets the options for detail images.
+     *
+     * @return The detail options
+     */
+    public static RequestOptions detail() {
+        return DETAIL;
+    }
+}
@@ -0,0 +1,1092 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.MalformedJsonException;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.example.nasaimageoftheday.BuildConfig;
+import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.models.FetchTiming;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Blocking client for the NASA Astronomy Picture of the Day (APOD) API.
+ * All methods perform network I/O on the calling thread and must not be called
+ * from the main thread; {@link NasaApiTask} wraps them for use from the UI.
+ * <p>
+ * Every entry fetched is stored in the local APOD archive
+ * ({@link NasaImageDatabaseHelper}), which is read first for past dates and used as
+ * a fallback when the network fails, so repeat lookups work offline.
+ * Responses are also kept in an {@link ApodResponseCache}. Entries for past dates never
+ * change and are served without touching the network; requests that include today
+ * are served from the cache for a few hours and then revalidated with
+ * If-None-Match / If-Modified-Since. Identical requests made
+ * concurrently share one network call through a {@link SingleFlight} registry, and
+ * every network call passes through an {@link ApiRateLimiter}, which throttles
+ * background work, retries 429 and 5xx responses with backoff and fails fast while
+ * the API is down.
+ * <p>
+ * Progress is derived from the Content-Length of each response and the bytes actually
+ * read, and every request records a {@link FetchTiming} split into connect,
+ * time-to-first-byte, download and parse phases.
+ * <p>
+ * Requests go through an {@link HttpTransport}, by default the pooled
+ * {@link OkHttpTransport}, against a base URL taken from the build configuration.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class NasaApiClient {
+
+    /** Tag for logging */
+    private static final String TAG = "NasaApiClient";
+
+    /** API Key - Get your own from https://api.nasa.gov/ */
+    private static final String API_KEY = "4ZNvHHjOOpcSIVk3zCHw4jyYeGfT2rABWB3LZloz";
+
+    /** Largest number of days requested in a single range request */
+    public static final int MAX_RANGE_DAYS = 90;
+
+    /** Maximum number of retries for a failed request */
+    private static final int MAX_RETRIES = 3;
+
+    /** Name of the response cache directory */
+    private static final String CACHE_DIRECTORY = "apod_responses";
+
+    /** Maximum size of the response cache in bytes */
+    private static final long CACHE_SIZE_BYTES = 4L * 1024 * 1024;
+
+    /** How long a cached response that may still change is used without revalidation */
+    private static final long FRESH_FOR_MS = 6L * 60 * 60 * 1000;
+
+    /** Singleton instance */
+    private static NasaApiClient instance;
+
+    /** Base URL of the APOD endpoint */
+    private final String baseUrl;
+
+    /** Transport performing the HTTP requests */
+    private final HttpTransport transport;
+
+    /** Cache of API responses */
+    private final ApodResponseCache responseCache;
+
+    /** Local archive of every entry fetched */
+    private final NasaImageDatabaseHelper archive;
+
+    /** Coalesces concurrent single-date requests */
+    private final SingleFlight<NasaImage> imageRequests = new SingleFlight<>();
+
+    /** Coalesces concurrent date-range requests */
+    private final SingleFlight<List<NasaImage>> rangeRequests = new SingleFlight<>();
+
+    /** Throttle, backoff and circuit breaker for network calls */
+    private final ApiRateLimiter rateLimiter = new ApiRateLimiter();
+
+    /**
+     * Priority of a request with respect to the API rate limit.
+     */
+    public enum Priority {
+        /** Requested by the user; may use the whole quota */
+        FOREGROUND,
+        /** Prefetch or sync work; yields to foreground requests as the quota runs low */
+        BACKGROUND,
+        /** Guesswork that may never be used; dropped rather than delayed or retried */
+        SPECULATIVE
+    }
+
+    /**
+     * Receives progress updates while a request is running.
+     */
+    public interface ProgressListener {
+        /**
+         * Called to update progress during download.
+         *
+         * @param progress Progress value (0-100)
+         */
+        void onProgress(int progress);
+
+        /**
+         * Called when a request moves on to its next phase.
+         *
+         * @param phase The phase being entered
+         */
+        default void onPhase(FetchTiming.Phase phase) {
+        }
+    }
+
+    /**
+     * Parses a successful response body.
+     *
+     * @param <T> The parsed type
+     */
+    private interface ResponseParser<T> {
+        /**
+         * Parses the response body.
+         *
+         * @param in The response stream
+         * @return The parsed value
+         * @throws IOException If the body cannot be read or parsed
+         */
+        T parse(InputStream in) throws IOException;
+    }
+
+    /**
+     * Gets the singleton instance of the client.
+     *
+     * @param context The application context
+     * @return The client instance
+     */
+    public static synchronized NasaApiClient getInstance(Context context) {
+        if (instance == null) {
+            instance = new NasaApiClient(context.getApplicationContext(),
+                    BuildConfig.APOD_BASE_URL, OkHttpTransport.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the singleton instance, e.g. with a client pointed at a local
+     * stand-in server.
+     *
+     * @param client The client to use from now on
+     */
+    @VisibleForTesting
+    public static synchronized void setInstance(NasaApiClient client) {
+        instance = client;
+    }
+
+    /**
+     * Constructor with base URL and transport.
+     *
+     * @param context   The context
+     * @param baseUrl   The base URL of the APOD endpoint
+     * @param transport The transport performing the HTTP requests
+     */
+    public NasaApiClient(Context context, String baseUrl, HttpTransport transport) {
+        this(baseUrl, transport,
+                new File(context.getApplicationContext().getCacheDir(), CACHE_DIRECTORY),
+                NasaImageDatabaseHelper.getInstance(context));
+    }
+
+    /**
+     * Constructor with base URL, transport, cache directory and archive, so a test can
+     * run the client without touching the app's cache or archive.
+     *
+     * @param baseUrl        The base URL of the APOD endpoint
+     * @param transport      The transport performing the HTTP requests
+     * @param cacheDirectory The directory of the response cache
+     * @param archive        The archive entries are read from and stored in
+     */
+    @VisibleForTesting
+    public NasaApiClient(String baseUrl, HttpTransport transport, File cacheDirectory,
+                         NasaImageDatabaseHelper archive) {
+        this.baseUrl = baseUrl;
+        this.transport = transport;
+        responseCache = new ApodResponseCache(cacheDirectory, CACHE_SIZE_BYTES);
+        this.archive = archive;
+    }
+
+    /**
+     * Fetches the APOD entry for a single date at foreground priority.
+     *
+     * @param date     The date to fetch (YYYY-MM-DD format)
+     * @param progress Optional progress listener
+     * @param signal   Optional signal used to abort the request
+     * @return The parsed NasaImage
+     * @throws NasaApiException If the request fails or is cancelled
+     */
+    public NasaImage fetchImage(String date, @Nullable ProgressListener progress,
+                                @Nullable CancellationSignal signal) throws NasaApiException {
+        return fetchImage(date, Priority.FOREGROUND, progress, signal);
+    }
+
+    /**
+     * Fetches the APOD entry for a single date.
+     * The timing of the request is attached to the result, see
+     * {@link NasaImage#getFetchTiming()}.
+     *
+     * @param date     The date to fetch (YYYY-MM-DD format)
+     * @param priority The request priority
+     * @param progress Optional progress listener
+     * @param signal   Optional signal used to abort the request
+     * @return The parsed NasaImage
+     * @throws NasaApiException If the request fails or is cancelled
+     */
+    public NasaImage fetchImage(String date, Priority priority,
+                                @Nullable ProgressListener progress,
+                                @Nullable CancellationSignal signal) throws NasaApiException {
+        if (date == null || date.isEmpty()) {
+            throw new NasaApiException("No date provided");
+        }
+
+        boolean past = isPast(date);
+        if (past) {
+            NasaImage archived = readArchive(date);
+            if (archived != null) {
+                report(progress, 100);
+                return archived;
+            }
+        }
+
+        String urlString = baseUrl + "?api_key=" + API_KEY + "&date=" + date;
+        NasaImage image;
+        try {
+            image = imageRequests.run(date, rankOf(priority), () -> {
+                FetchTiming timing = new FetchTiming();
+                NasaImage fetched = get(urlString, true, past, priority, progress, 0, 100, signal,
+                        timing, ApodJsonParser::parseImage);
+                fetched.setFetchTiming(timing);
+                archive.saveImage(fetched);
+                return fetched;
+            }, signal);
+            logRequestCounts();
+        } catch (NasaApiException e) {
+            NasaImage archived = e.isCancelled() || past ? null : readArchive(date);
+            if (archived == null) {
+                throw e;
+            }
+            Log.w(TAG, "Serving archived entry after error: " + e.getMessage());
+            image = archived;
+        }
+        report(progress, 100);
+        return image;
+    }
+
+    /**
+     * Fetches all APOD entries between two dates, inclusive, at foreground priority.
+     *
+     * @param startDate The first date (YYYY-MM-DD format)
+     * @param endDate   The last date (YYYY-MM-DD format)
+     * @param progress  Optional progress listener
+     * @param signal    Optional signal used to abort the request
+     * @return The entries in ascending date order
+     * @throws NasaApiException If any request fails or is cancelled
+     */
+    public List<NasaImage> fetchRange(String startDate, String endDate,
+                                      @Nullable ProgressListener progress,
+                                      @Nullable CancellationSignal signal) throws NasaApiException {
+        return fetchRange(startDate, endDate, Priority.FOREGROUND, progress, signal);
+    }
+
+    /**
+     * Fetches all APOD entries between two dates, inclusive.
+     * Ranges longer than {@link #MAX_RANGE_DAYS} are split into several requests.
+     * Concurrent calls for the same range share a single set of requests.
+     *
+     * @param startDate The first date (YYYY-MM-DD format)
+     * @param endDate   The last date (YYYY-MM-DD format)
+     * @param priority  The request priority
+     * @param progress  Optional progress listener
+     * @param signal    Optional signal used to abort the request
+     * @return The entries in ascending date order
+     * @throws NasaApiException If any request fails or is cancelled
+     */
+    public List<NasaImage> fetchRange(String startDate, String endDate, Priority priority,
+                                      @Nullable ProgressListener progress,
+                                      @Nullable CancellationSignal signal) throws NasaApiException {
+        List<NasaImage> shared = rangeRequests.run(startDate + "/" + endDate, rankOf(priority), () -> {
+            List<NasaImage> images = new ArrayList<>();
+            fetchRange(startDate, endDate, images::add, priority, progress, signal);
+            archive.saveImages(images);
+            return images;
+        }, signal);
+        logRequestCounts();
+        return new ArrayList<>(shared);
+    }
+
+    /**
+     * Fetches all APOD entries between two dates, inclusive, handing each entry to the
+     * handler as soon as it has been parsed. Ranges longer than {@link #MAX_RANGE_DAYS}
+     * are split into several requests.
+     *
+     * @param startDate The first date (YYYY-MM-DD format)
+     * @param endDate   The last date (YYYY-MM-DD format)
+     * @param handler   Receives each entry in ascending date order
+     * @param priority  The request priority
+     * @param progress  Optional progress listener
+     * @param signal    Optional signal used to abort the request
+     * @return The number of entries fetched
+     * @throws NasaApiException If any request fails or is cancelled
+     */
+    public int fetchRange(String startDate, String endDate, ApodJsonParser.EntryHandler handler,
+                          Priority priority, @Nullable ProgressListener progress,
+                          @Nullable CancellationSignal signal) throws NasaApiException {
+        long start;
+        long end;
+        try {
+            start = ApodDates.toEpochDay(startDate);
+            end = ApodDates.toEpochDay(endDate);
+        } catch (IllegalArgumentException e) {
+            throw new NasaApiException(e.getMessage(), e);
+        }
+        if (end < start) {
+            throw new NasaApiException("End date is before start date");
+        }
+
+        long totalDays = end - start + 1;
+        int chunks = (int) ((totalDays + MAX_RANGE_DAYS - 1) / MAX_RANGE_DAYS);
+        int count = 0;
+
+        for (int i = 0; i < chunks; i++) {
+            long chunkStart = start + (long) i * MAX_RANGE_DAYS;
+            long chunkEnd = Math.min(end, chunkStart + MAX_RANGE_DAYS - 1);
+            String chunkStartDate = ApodDates.fromEpochDay(chunkStart);
+            String chunkEndDate = ApodDates.fromEpochDay(chunkEnd);
+            FetchTiming timing = new FetchTiming();
+            count += fetchChunk(chunkStartDate, chunkEndDate, true, handler, priority,
+                    progress, i * 100 / chunks, (i + 1) * 100 / chunks, signal, timing);
+            Log.d(TAG, "Fetched " + chunkStartDate + " to " + chunkEndDate + ": " + timing);
+        }
+
+        report(progress, 100);
+        return count;
+    }
+
+    /**
+     * Fetches a single range request for a bulk archive sync, handing each entry to the
+     * handler as soon as it has been parsed. The response bypasses the response cache,
+     * which is sized for browsing and would otherwise be flushed by the sync.
+     *
+     * @param startDate The first date (YYYY-MM-DD format)
+     * @param endDate   The last date, at most {@link #MAX_RANGE_DAYS} after the first
+     * @param handler   Receives each entry in ascending date order
+     * @param priority  The request priority
+     * @param signal    Optional signal used to abort the request
+     * @return The timing of the request, including the bytes read
+     * @throws NasaApiException If the request fails or is cancelled
+     */
+    public FetchTiming fetchArchiveChunk(String startDate, String endDate,
+                                         ApodJsonParser.EntryHandler handler, Priority priority,
+                                         @Nullable CancellationSignal signal) throws NasaApiException {
+        long days;
+        try {
+            days = ApodDates.toEpochDay(endDate) - ApodDates.toEpochDay(startDate) + 1;
+        } catch (IllegalArgumentException e) {
+            throw new NasaApiException(e.getMessage(), e);
+        }
+        if (days < 1 || days > MAX_RANGE_DAYS) {
+            throw new NasaApiException("Invalid chunk " + startDate + " to " + endDate);
+        }
+
+        FetchTiming timing = new FetchTiming();
+        fetchChunk(startDate, endDate, false, handler, priority, null, 0, 100, signal, timing);
+        return timing;
+    }
+
+    /**
+     * Gets the number of requests that were served by an identical request already in flight.
+     *
+     * @return The number of coalesced requests
+     */
+    public long getCoalescedRequestCount() {
+        return imageRequests.getHitCount() + rangeRequests.getHitCount();
+    }
+
+    /**
+     * Gets the number of requests that had to be started because no identical
+     * request was in flight.
+     *
+     * @return The number of started requests
+     */
+    public long getStartedRequestCount() {
+        return imageRequests.getMissCount() + rangeRequests.getMissCount();
+    }
+
+    /**
+     * Logs how many requests were started and how many joined one already in flight,
+     * so the effect of coalescing can be read from the debug log.
+     */
+    private void logRequestCounts() {
+        Log.d(TAG, "Requests started=" + getStartedRequestCount()
+                + " coalesced=" + getCoalescedRequestCount());
+    }
+
+    /**
+     * Fetches a single start_date/end_date range.
+     *
+     * @param startDate     The first date
+     * @param endDate       The last date
+     * @param cacheable     True to use and fill the response cache
+     * @param handler       Receives each parsed entry
+     * @param priority      The request priority
+     * @param progress      Optional progress listener
+     * @param progressStart Progress value at the start of this chunk
+     * @param progressEnd   Progress value at the end of this chunk
+     * @param signal        Optional cancellation signal
+     * @param timing        Receives the timing of the request
+     * @return The number of entries parsed
+     * @throws NasaApiException If the request fails
+     */
+    private int fetchChunk(String startDate, String endDate, boolean cacheable,
+                           ApodJsonParser.EntryHandler handler,
+                           Priority priority, @Nullable ProgressListener progress,
+                           int progressStart, int progressEnd,
+                           @Nullable CancellationSignal signal, FetchTiming timing)
+            throws NasaApiException {
+        String urlString = baseUrl + "?api_key=" + API_KEY
+                + "&start_date=" + startDate + "&end_date=" + endDate;
+        return get(urlString, cacheable, isPast(endDate), priority, progress,
+                progressStart, progressEnd, signal, timing,
+                in -> ApodJsonParser.parseArray(in, handler));
+    }
+
+    /**
+     * Performs a GET request and parses the response body as it is received.
+     * Cached responses are used when possible and successful responses are cached.
+     *
+     * @param urlString     The URL to request
+     * @param cacheable     True to use and fill the response cache
+     * @param immutable     True if the response can never change, so a cached copy
+     *                      may be used without revalidation
+     * @param priority      The request priority
+     * @param progress      Optional progress listener
+     * @param progressStart Progress value when the request starts
+     * @param progressEnd   Progress value once parsing is complete
+     * @param signal        Optional cancellation signal
+     * @param timing        Receives the timing of the request
+     * @param parser        Parses the successful response body
+     * @param <T>           The parsed type
+     * @return The parsed response
+     * @throws NasaApiException If the request fails or is cancelled
+     */
+    private <T> T get(String urlString, boolean cacheable, boolean immutable, Priority priority,
+                      @Nullable ProgressListener progress,
+                      int progressStart, int progressEnd,
+                      @Nullable CancellationSignal signal, FetchTiming timing,
+                      ResponseParser<T> parser) throws NasaApiException {
+        long startedAt = SystemClock.elapsedRealtime();
+        String cacheKey = cacheable ? ApodResponseCache.keyFor(urlString) : null;
+        ApodResponseCache.Entry cached = cacheable ? responseCache.get(cacheKey) : null;
+
+        if (cached != null && (immutable || isFresh(cached))) {
+            timing.setSource(FetchTiming.Source.CACHE);
+            T result = parseCached(cacheKey, cached, parser, timing);
+            if (result != null) {
+                timing.setTotalMs(SystemClock.elapsedRealtime() - startedAt);
+                return result;
+            }
+            timing.setSource(FetchTiming.Source.NETWORK);
+            cached = null;
+        }
+
+        int attempt = 0;
+        while (true) {
+            try {
+                rateLimiter.acquire(priority, signal);
+            } catch (NasaApiException e) {
+                // Circuit open or quota exhausted: a cached copy is better than nothing
+                T result = e.isCancelled() ? null : parseStale(cacheKey, cached, parser, e, timing);
+                if (result != null) {
+                    timing.setTotalMs(SystemClock.elapsedRealtime() - startedAt);
+                    return result;
+                }
+                throw e;
+            }
+
+            try {
+                timing.setAttempts(attempt + 1);
+                T result = executeOnce(urlString, cacheKey, cached,
+                        progress, progressStart, progressEnd, signal, timing, parser);
+                rateLimiter.onSuccess();
+                timing.setTotalMs(SystemClock.elapsedRealtime() - startedAt);
+                return result;
+            } catch (RetriableFailure failure) {
+                NasaApiException error = failure.error;
+                rateLimiter.onFailure(error.getStatusCode(), error.getRetryAfterMs());
+                int maxRetries = priority == Priority.SPECULATIVE ? 0 : MAX_RETRIES;
+                if (++attempt <= maxRetries) {
+                    long delay = rateLimiter.backoffDelay(attempt, error.getRetryAfterMs());
+                    Log.w(TAG, error.getMessage() + ", retrying in " + delay + " ms");
+                    ApiRateLimiter.sleep(delay, signal);
+                    continue;
+                }
+                T result = parseStale(cacheKey, cached, parser, error, timing);
+                if (result != null) {
+                    timing.setTotalMs(SystemClock.elapsedRealtime() - startedAt);
+                    return result;
+                }
+                throw error;
+            } catch (NasaApiException e) {
+                if (e.isCancelled()) {
+                    rateLimiter.onCancelled();
+                    throw e;
+                }
+                boolean networkFailure = e.getCause() instanceof IOException
+                        && !(e.getCause() instanceof MalformedJsonException);
+                if (networkFailure) {
+                    // Lost mid-response; entries may already have been handed out,
+                    // so neither a retry nor the cached copy can be used
+                    rateLimiter.onFailure(0, 0);
+                } else {
+                    // The API answered, so it is up even though the request failed
+                    rateLimiter.onSuccess();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Performs a single network attempt of a GET request.
+     * The first tenth of the progress span covers connecting, the second waiting for the
+     * response, and the rest follows the body bytes read against the Content-Length.
+     *
+     * @param urlString     The URL to request
+     * @param cacheKey      The cache key for the response, or null to bypass the cache
+     * @param cached        The cached response used for revalidation, may be null
+     * @param progress      Optional progress listener
+     * @param progressStart Progress value when the request starts
+     * @param progressEnd   Progress value once parsing is complete
+     * @param signal        Optional cancellation signal
+     * @param timing        Receives the phase timings of this attempt
+     * @param parser        Parses the successful response body
+     * @param <T>           The parsed type
+     * @return The parsed response
+     * @throws RetriableFailure If the attempt failed in a way worth retrying
+     * @throws NasaApiException If the request failed permanently or was cancelled
+     */
+    private <T> T executeOnce(String urlString, @Nullable String cacheKey,
+                              @Nullable ApodResponseCache.Entry cached,
+                              @Nullable ProgressListener progress,
+                              int progressStart, int progressEnd,
+                              @Nullable CancellationSignal signal, FetchTiming timing,
+                              ResponseParser<T> parser) throws RetriableFailure, NasaApiException {
+        int span = progressEnd - progressStart;
+        HttpTransport.Response response = null;
+        InputStream inputStream = null;
+        boolean readingBody = false;
+
+        try {
+            throwIfCanceled(signal);
+
+            report(progress, progressStart);
+            reportPhase(progress, FetchTiming.Phase.CONNECT);
+            long requestStart = SystemClock.elapsedRealtime();
+
+            Map<String, String> headers = new HashMap<>();
+            if (cached != null) {
+                if (!cached.getEtag().isEmpty()) {
+                    headers.put("If-None-Match", cached.getEtag());
+                }
+                if (!cached.getLastModified().isEmpty()) {
+                    headers.put("If-Modified-Since", cached.getLastModified());
+                }
+            }
+
+            long[] connectedAt = {requestStart};
+            response = transport.get(urlString, headers, () -> {
+                connectedAt[0] = SystemClock.elapsedRealtime();
+                report(progress, progressStart + span / 10);
+                reportPhase(progress, FetchTiming.Phase.WAITING);
+            }, signal);
+
+            timing.setConnectMs(connectedAt[0] - requestStart);
+            timing.setFirstByteMs(SystemClock.elapsedRealtime() - connectedAt[0]);
+
+            int responseCode = response.getStatusCode();
+            rateLimiter.onHeaders(response.getHeader("X-RateLimit-Limit"),
+                    response.getHeader("X-RateLimit-Remaining"));
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                responseCache.put(cacheKey, cached.getBody(), cached.getEtag(), cached.getLastModified());
+                timing.setSource(FetchTiming.Source.REVALIDATED);
+                reportPhase(progress, FetchTiming.Phase.PARSE);
+                T result = parseCached(cacheKey, cached, parser, timing);
+                if (result != null) {
+                    return result;
+                }
+                throw new NasaApiException("Error parsing cached response");
+            }
+
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                NasaApiException error = new NasaApiException(readErrorMessage(response),
+                        responseCode, parseRetryAfter(response.getHeader("Retry-After")));
+                if (responseCode == 429 || responseCode >= 500) {
+                    throw new RetriableFailure(error);
+                }
+                throw error;
+            }
+
+            report(progress, progressStart + span * 2 / 10);
+            reportPhase(progress, FetchTiming.Phase.DOWNLOAD);
+
+            readingBody = true;
+            long bodyStart = SystemClock.elapsedRealtime();
+            // Only a response that will be cached needs a copy of its body
+            RecordingInputStream recorder = new RecordingInputStream(response.getBody(),
+                    cacheKey != null, response, progress,
+                    progressStart + span * 2 / 10, progressStart + span * 9 / 10);
+            inputStream = recorder;
+            T result;
+            try {
+                result = parser.parse(recorder);
+                // Reading to the end lets the connection go back to the pool
+                recorder.drain();
+            } catch (IOException e) {
+                throwIfCanceled(signal);
+                if (e instanceof MalformedJsonException) {
+                    Log.e(TAG, "JSON parsing error: " + e.getMessage());
+                    throw new NasaApiException("Error parsing response: " + e.getMessage(), e);
+                }
+                throw e;
+            }
+
+            // Reading and parsing interleave, so parse time is whatever was not spent in read()
+            long bodyMs = SystemClock.elapsedRealtime() - bodyStart;
+            long downloadMs = Math.min(bodyMs, recorder.getReadTimeMs());
+            timing.setDownloadMs(downloadMs);
+            timing.setParseMs(bodyMs - downloadMs);
+            timing.setBytesRead(recorder.getByteCount());
+            timing.setSource(FetchTiming.Source.NETWORK);
+
+            if (cacheKey != null) {
+                responseCache.put(cacheKey, recorder.toByteArray(),
+                        response.getHeader("ETag"),
+                        response.getHeader("Last-Modified"));
+            }
+
+            report(progress, progressStart + span * 9 / 10);
+
+            return result;
+
+        } catch (IOException e) {
+            throwIfCanceled(signal);
+            Log.e(TAG, "Network error: " + e.getMessage());
+            NasaApiException error = new NasaApiException("Network error: " + e.getMessage(), e);
+            if (readingBody) {
+                // Entries may already have been handed out; retrying would repeat them
+                throw error;
+            }
+            throw new RetriableFailure(error);
+        } finally {
+            closeQuietly(inputStream);
+            closeQuietly(response);
+        }
+    }
+
+    /**
+     * Reads the message of an API error response.
+     *
+     * @param response The error response
+     * @return The "msg" field of the JSON error body, or a generic message
+     */
+    private static String readErrorMessage(HttpTransport.Response response) {
+        String errorMessage = "HTTP Error: " + response.getStatusCode();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody()))) {
+            StringBuilder errorBuilder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                errorBuilder.append(line);
+            }
+            JSONObject errorJson = new JSONObject(errorBuilder.toString());
+            if (errorJson.has("msg")) {
+                errorMessage = errorJson.getString("msg");
+            }
+        } catch (IOException | JSONException e) {
+            // Use default error message
+        }
+        return errorMessage;
+    }
+
+    /**
+     * Falls back to a cached response after a failure.
+     *
+     * @param cacheKey The cache key
+     * @param cached   The cached entry, may be null
+     * @param parser   Parses the response body
+     * @param error    The failure being recovered from
+     * @param timing   Receives the parse time
+     * @param <T>      The parsed type
+     * @return The parsed cached response, or null if there is none
+     */
+    @Nullable
+    private <T> T parseStale(String cacheKey, @Nullable ApodResponseCache.Entry cached,
+                             ResponseParser<T> parser, NasaApiException error,
+                             FetchTiming timing) {
+        if (cached == null) {
+            return null;
+        }
+        Log.w(TAG, "Serving cached response after error: " + error.getMessage());
+        timing.setSource(FetchTiming.Source.CACHE);
+        return parseCached(cacheKey, cached, parser, timing);
+    }
+
+    /**
+     * Parses a cached response body, dropping the entry if it cannot be parsed.
+     *
+     * @param cacheKey The cache key
+     * @param cached   The cached entry
+     * @param parser   Parses the response body
+     * @param timing   Receives the parse time and body size
+     * @param <T>      The parsed type
+     * @return The parsed response, or null if the cached body is unusable
+     */
+    @Nullable
+    private <T> T parseCached(String cacheKey, ApodResponseCache.Entry cached,
+                              ResponseParser<T> parser, FetchTiming timing) {
+        long parseStart = SystemClock.elapsedRealtime();
+        try {
+            T result = parser.parse(new ByteArrayInputStream(cached.getBody()));
+            timing.setParseMs(SystemClock.elapsedRealtime() - parseStart);
+            timing.setBytesRead(cached.getBody().length);
+            return result;
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unparseable cached response: " + e.getMessage());
+            responseCache.remove(cacheKey);
+            return null;
+        }
+    }
+
+    /**
+     * Reads an entry from the local archive.
+     *
+     * @param date The date of the entry
+     * @return The archived entry with an archive timing record, or null if not archived
+     */
+    @Nullable
+    private NasaImage readArchive(String date) {
+        long started = SystemClock.elapsedRealtime();
+        NasaImage archived = archive.getImageByDate(date);
+        if (archived != null) {
+            FetchTiming timing = new FetchTiming();
+            timing.setSource(FetchTiming.Source.ARCHIVE);
+            timing.setTotalMs(SystemClock.elapsedRealtime() - started);
+            archived.setFetchTiming(timing);
+        }
+        return archived;
+    }
+
+    /**
+     * Gets the coalescing rank of a priority, so that a user request joining a prefetch
+     * for the same day retries on its own if the prefetch is dropped or fails, instead of
+     * inheriting the prefetch's lack of retries and rate-limit waits.
+     *
+     * @param priority The request priority
+     * @return A rank that is higher for more important requests
+     */
+    private static int rankOf(Priority priority) {
+        return Priority.values().length - priority.ordinal();
+    }
+
+    /**
+     * Parses a Retry-After header given in seconds.
+     *
+     * @param value The header value, may be null
+     * @return The delay in milliseconds, or 0 if missing or not a number of seconds
+     */
+    private static long parseRetryAfter(@Nullable String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Checks whether a cached response was stored or revalidated recently enough to be
+     * used without asking the server.
+     *
+     * @param cached The cached entry
+     * @return true if the entry is younger than {@link #FRESH_FOR_MS}
+     */
+    private static boolean isFresh(ApodResponseCache.Entry cached) {
+        long age = System.currentTimeMillis() - cached.getStoredAt();
+        return age >= 0 && age < FRESH_FOR_MS;
+    }
+
+    /**
+     * Checks whether a date lies strictly before today, meaning its APOD entry is final.
+     *
+     * @param date The date string
+     * @return true if the date is valid and in the past
+     */
+    private static boolean isPast(String date) {
+        return ApodDates.isValid(date) && ApodDates.toEpochDay(date) < ApodDates.todayEpochDay();
+    }
+
+    /**
+     * Closes a stream, logging any error.
+     *
+     * @param closeable The stream to close, may be null
+     */
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing stream: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Throws if the signal has been cancelled.
+     *
+     * @param signal The cancellation signal, may be null
+     * @throws NasaApiException If the signal has been cancelled
+     */
+    private static void throwIfCanceled(@Nullable CancellationSignal signal) throws NasaApiException {
+        if (signal != null && signal.isCanceled()) {
+            throw NasaApiException.cancelled();
+        }
+    }
+
+    /**
+     * Reports progress to the listener if there is one.
+     *
+     * @param progress The progress listener, may be null
+     * @param value    The progress value (0-100)
+     */
+    private static void report(@Nullable ProgressListener progress, int value) {
+        if (progress != null) {
+            progress.onProgress(value);
+        }
+    }
+
+    /**
+     * Reports a phase change to the listener if there is one.
+     *
+     * @param progress The progress listener, may be null
+     * @param phase    The phase being entered
+     */
+    private static void reportPhase(@Nullable ProgressListener progress, FetchTiming.Phase phase) {
+        if (progress != null) {
+            progress.onPhase(phase);
+        }
+    }
+
+    /**
+     * Signals a failed attempt that may succeed if retried (429, 5xx or a network
+     * error before any of the body was read).
+     */
+    private static class RetriableFailure extends Exception {
+
+        /** The error to report if no retry succeeds */
+        final NasaApiException error;
+
+        /**
+         * Constructor with the underlying error.
+         *
+         * @param error The error to report if no retry succeeds
+         */
+        RetriableFailure(NasaApiException error) {
+            super(error.getMessage(), error);
+            this.error = error;
+        }
+    }
+
+    /**
+     * Input stream that can keep a copy of every byte read, so a response can be
+     * parsed while it streams in and then written to the cache. It also reports
+     * progress from the bytes read and measures the time spent waiting on the network.
+     * Responses that bypass the cache are not copied, so a large range response is
+     * never held in memory.
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+
+        /** Copy of the bytes read so far, or null if the body is not recorded */
+        @Nullable
+        private final ByteArrayOutputStream copy;
+
+        /** Number of bytes read so far */
+        private long byteCount;
+
+        /** Response being read, counting the bytes received before decompression */
+        private final HttpTransport.Response response;
+
+        /** Body length on the wire, or -1 if unknown */
+        private final long transferLength;
+
+        /** Progress listener, may be null */
+        private final ProgressListener progress;
+
+        /** Progress value before any bytes are read */
+        private final int progressFrom;
+
+        /** Progress value once all bytes are read */
+        private final int progressTo;
+
+        /** Last progress value reported */
+        private int lastReported;
+
+        /** Time spent blocked in the underlying stream, in nanoseconds */
+        private long readNanos;
+
+        /** Flag set once the end of the stream has been reached */
+        private boolean reachedEnd;
+
+        /**
+         * Constructor with the stream to record and the progress range to report over.
+         *
+         * @param in            The underlying stream
+         * @param record        True to keep a copy of the bytes read
+         * @param response      The response whose body is read
+         * @param progress      Optional progress listener
+         * @param progressFrom  Progress value before any bytes are read
+         * @param progressTo    Progress value once all bytes are read
+         */
+        RecordingInputStream(InputStream in, boolean record, HttpTransport.Response response,
+                             @Nullable ProgressListener progress,
+                             int progressFrom, int progressTo) {
+            super(in);
+            long contentLength = response.getContentLength();
+            this.copy = !record ? null : new ByteArrayOutputStream(
+                    contentLength > 0 && contentLength <= Integer.MAX_VALUE ? (int) contentLength : 8192);
+            this.response = response;
+            this.transferLength = response.getTransferLength();
+            this.progress = progress;
+            this.progressFrom = progressFrom;
+            this.progressTo = progressTo;
+            this.lastReported = progressFrom;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long started = System.nanoTime();
+            int b = super.read();
+            readNanos += System.nanoTime() - started;
+            if (b >= 0) {
+                if (copy != null) {
+                    copy.write(b);
+                }
+                byteCount++;
+                onBytesRead();
+            } else {
+                onEnd();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long started = System.nanoTime();
+            int count = super.read(buffer, offset, length);
+            readNanos += System.nanoTime() - started;
+            if (count > 0) {
+                if (copy != null) {
+                    copy.write(buffer, offset, count);
+                }
+                byteCount += count;
+                onBytesRead();
+            } else if (count < 0) {
+                onEnd();
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int count = read(buffer, 0, buffer.length);
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Reads any bytes the parser left unread.
+         *
+         * @throws IOException If the stream cannot be read
+         */
+        void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // Keep reading
+            }
+        }
+
+        /**
+         * Gets a copy of all bytes read.
+         *
+         * @return The recorded bytes
+         * @throws IllegalStateException If the stream was created without recording
+         */
+        byte[] toByteArray() {
+            if (copy == null) {
+                throw new IllegalStateException("Body was not recorded");
+            }
+            return copy.toByteArray();
+        }
+
+        /**
+         * Gets the number of bytes read.
+         *
+         * @return The byte count
+         */
+        long getByteCount() {
+            return byteCount;
+        }
+
+        /**
+         * Gets the time spent blocked in the underlying stream.
+         *
+         * @return The read time in milliseconds
+         */
+        long getReadTimeMs() {
+            return readNanos / 1_000_000;
+        }
+
+        /**
+         * Reports progress once it has advanced by at least one percent. Progress follows
+         * the bytes received on the wire, so it also moves for a compressed body, whose
+         * decompressed length is unknown.
+         */
+        private void onBytesRead() {
+            if (progress == null || transferLength <= 0) {
+                return;
+            }
+            long received = response.getBytesTransferred();
+            if (received < 0) {
+                received = byteCount;
+            }
+            long fraction = Math.min(received, transferLength) * (progressTo - progressFrom) / transferLength;
+            int value = progressFrom + (int) fraction;
+            if (value > lastReported) {
+                lastReported = value;
+                progress.onProgress(value);
+            }
+        }
+
+        /**
+         * Reports the parse phase the first time the end of the body is reached,
+         * since anything the parser does from then on no longer waits on the network.
+         */
+        private void onEnd() {
+            if (!reachedEnd) {
+                reachedEnd = true;
+                reportPhase(progress, FetchTiming.Phase.PARSE);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.nasaimageoftheday.utils;
+
+/**
+ * Exception thrown by {@link NasaApiClient} when an APOD request fails.
+ * The message is suitable for showing to the user.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class NasaApiException extends Exception {
+
+    /** Flag indicating if the request failed because it was cancelled */
+    private final boolean cancelled;
+
+    /** HTTP status code of the failed response, or 0 if no response was received */
+    private final int statusCode;
+
+    /** Delay requested by the server before retrying, in milliseconds, or 0 */
+    private final long retryAfterMs;
+
+    /**
+     * Constructor with message.
+     *
+     * @param message The error message
+     */
+    public NasaApiException(String message) {
+        this(message, 0, 0);
+    }
+
+    /**
+     * Constructor with message and cause.
+     *
+     * @param message The error message
+     * @param cause   The underlying exception
+     */
+    public NasaApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.cancelled = false;
+        this.statusCode = 0;
+        this.retryAfterMs = 0;
+    }
+
+    /**
+     * Constructor for a failed HTTP response.
+     *
+     * @param message      The error message
+     * @param statusCode   The HTTP status code
+     * @param retryAfterMs The delay requested by the server before retrying, or 0
+     */
+    public NasaApiException(String message, int statusCode, long retryAfterMs) {
+        super(message);
+        this.cancelled = false;
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * Private constructor for cancellation exceptions.
+     *
+     * @param message   The error message
+     * @param cancelled true if the request was cancelled
+     */
+    private NasaApiException(String message, boolean cancelled) {
+        super(message);
+        this.cancelled = cancelled;
+        this.statusCode = 0;
+        this.retryAfterMs = 0;
+    }
+
+    /**
+     * Creates the exception thrown when a request is cancelled.
+     *
+     * @return A new cancellation exception
+     */
+    public static NasaApiException cancelled() {
+        return new NasaApiException("Request cancelled", true);
+    }
+
+    /**
+     * Checks whether the request failed because it was cancelled.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the HTTP status code of the failed response.
+     *
+     * @return The status code, or 0 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the delay requested by the server before retrying.
+     *
+     * @return The delay in milliseconds, or 0 if none was requested
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -1,43 +1,71 @@
 package com.example.nasaimageoftheday.utils;
 
-import android.os.AsyncTask;
+import android.content.Context;
+import android.os.CancellationSignal;
 import android.util.Log;
 
-import com.example.nasaimageoftheday.models.NasaImage;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.example.nasaimageoftheday.models.FetchTiming;
+import com.example.nasaimageoftheday.models.NasaImage;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * AsyncTask for fetching NASA Astronomy Picture of the Day (APOD) data from the API.
- * This class handles the network operations in a background thread to avoid blocking the UI.
+ * Task for fetching NASA Astronomy Picture of the Day (APOD) data from the API.
+ * The request runs on the shared network pool from {@link AppExecutors}, so several
+ * fetches can run in parallel. When bound to a {@link LifecycleOwner} the task is
+ * cancelled automatically once the owner is destroyed: the connection is closed and
+ * no further callbacks are delivered to the listener.
  *
  * @author Your Name
  * @version 1.0
  */
-public class NasaApiTask extends AsyncTask<String, Integer, NasaImage> {
+public class NasaApiTask implements DefaultLifecycleObserver {
 
     /** Tag for logging */
     private static final String TAG = "NasaApiTask";
 
-    /** Base URL for NASA APOD API */
-    private static final String BASE_URL = "https://api.nasa.gov/planetary/apod";
+    /** Listener for single-date requests */
+    private NasaApiListener listener;
 
-    /** API Key - Get your own from https://api.nasa.gov/ */
-    private static final String API_KEY = "4ZNvHHjOOpcSIVk3zCHw4jyYeGfT2rABWB3LZloz";
+    /** Listener for date-range requests */
+    private NasaRangeListener rangeListener;
 
-    /** Listener interface for API callbacks */
-    private NasaApiListener listener;
+    /** Client performing the requests */
+    private final NasaApiClient client;
+
+    /** Lifecycle owner the task is bound to, or null if unbound */
+    private final LifecycleOwner lifecycleOwner;
 
-    /** Error message if something goes wrong */
-    private String errorMessage;
+    /** Signal used to abort the request in progress */
+    private final CancellationSignal cancellationSignal = new CancellationSignal();
+
+    /** Flag set once the task has been cancelled */
+    private volatile boolean cancelled;
+
+    /** Future for the background work */
+    private Future<?> future;
+
+    /** Forwards progress and phase changes from the client to the main thread */
+    private final NasaApiClient.ProgressListener progressListener = new NasaApiClient.ProgressListener() {
+        @Override
+        public void onProgress(int progress) {
+            publishProgress(progress);
+        }
+
+        @Override
+        public void onPhase(FetchTiming.Phase phase) {
+            publishPhase(phase);
+        }
+    };
 
     /**
      * Interface for receiving API results.
@@ -55,6 +83,14 @@ public class NasaApiTask extends AsyncTask<String, Integer, NasaImage> {
          */
         void onProgressUpdate(int progress);
 
+        /**
+         * Called when the request moves on to its next phase.
+         *
+         * @param phase The phase being entered
+         */
+        default void onPhaseChanged(FetchTiming.Phase phase) {
+        }
+
         /**
          * Called when the API request completes successfully.
          *
@@ -71,178 +107,306 @@ public class NasaApiTask extends AsyncTask<String, Integer, NasaImage> {
     }
 
     /**
-     * Constructor with listener.
+     * Interface for receiving the results of a date-range request.
+     */
+    public interface NasaRangeListener {
+        /**
+         * Called before the API request starts.
+         */
+        void onPreExecute();
+
+        /**
+         * Called to update progress during download.
+         *
+         * @param progress Progress value (0-100)
+         */
+        void onProgressUpdate(int progress);
+
+        /**
+         * Called when the request moves on to its next phase.
+         *
+         * @param phase The phase being entered
+         */
+        default void onPhaseChanged(FetchTiming.Phase phase) {
+        }
+
+        /**
+         * Called when all entries in the range have been retrieved.
+         *
+         * @param images The entries in ascending date order
+         */
+        void onRangeSuccess(List<NasaImage> images);
+
+        /**
+         * Called when the API request fails.
+         *
+         * @param error The error message
+         */
+        void onError(String error);
+    }
+
+    /**
+     * Constructor with listener. The task is not bound to any lifecycle and
+     * runs until it completes or {@link #cancel()} is called.
      *
+     * @param context  The context
      * @param listener The listener to receive callbacks
      */
-    public NasaApiTask(NasaApiListener listener) {
+    public NasaApiTask(Context context, NasaApiListener listener) {
+        this(context, null, listener);
+    }
+
+    /**
+     * Constructor with lifecycle owner and listener.
+     *
+     * @param context        The context
+     * @param lifecycleOwner The activity or fragment whose destruction cancels the task
+     * @param listener       The listener to receive callbacks
+     */
+    public NasaApiTask(Context context, @Nullable LifecycleOwner lifecycleOwner,
+                       NasaApiListener listener) {
+        this.client = NasaApiClient.getInstance(context);
+        this.lifecycleOwner = lifecycleOwner;
         this.listener = listener;
     }
 
     /**
-     * Called before the background task starts.
-     * Notifies the listener to show loading UI.
+     * Constructor with lifecycle owner and range listener.
+     *
+     * @param context        The context
+     * @param lifecycleOwner The activity or fragment whose destruction cancels the task
+     * @param rangeListener  The listener to receive range callbacks
      */
-    @Override
-    protected void onPreExecute() {
-        super.onPreExecute();
-        if (listener != null) {
-            listener.onPreExecute();
+    public NasaApiTask(Context context, @Nullable LifecycleOwner lifecycleOwner,
+                       NasaRangeListener rangeListener) {
+        this.client = NasaApiClient.getInstance(context);
+        this.lifecycleOwner = lifecycleOwner;
+        this.rangeListener = rangeListener;
+    }
+
+    /**
+     * Starts fetching the image for the given date. Must be called on the main thread.
+     *
+     * @param date The date string to fetch (YYYY-MM-DD format)
+     * @return A future for the result, or null if the task could not be started
+     */
+    @Nullable
+    public Future<?> execute(String date) {
+        return start(() -> client.fetchImage(date, progressListener, cancellationSignal),
+                image -> {
+                    if (listener != null) {
+                        listener.onSuccess(image);
+                    }
+                });
+    }
+
+    /**
+     * Starts fetching all images between two dates, inclusive, using as few
+     * requests as possible. Must be called on the main thread.
+     *
+     * @param startDate The first date (YYYY-MM-DD format)
+     * @param endDate   The last date (YYYY-MM-DD format)
+     * @return A future for the result, or null if the task could not be started
+     */
+    @Nullable
+    public Future<?> executeRange(String startDate, String endDate) {
+        return start(() -> client.fetchRange(startDate, endDate,
+                        progressListener, cancellationSignal),
+                images -> {
+                    if (rangeListener != null) {
+                        rangeListener.onRangeSuccess(images);
+                    }
+                });
+    }
+
+    /**
+     * Cancels the task. Any open connection is closed and the listener
+     * will not receive further callbacks. Must be called on the main thread.
+     */
+    public void cancel() {
+        cancelled = true;
+        cancellationSignal.cancel();
+
+        if (future != null) {
+            future.cancel(true);
         }
+
+        detachFromLifecycle();
     }
 
     /**
-     * Performs the API request in the background.
+     * Checks whether the task has been cancelled.
      *
-     * @param params The date string to fetch (YYYY-MM-DD format)
-     * @return The NasaImage object, or null if an error occurred
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called when the bound lifecycle owner is destroyed.
+     *
+     * @param owner The lifecycle owner
      */
     @Override
-    protected NasaImage doInBackground(String... params) {
-        if (params.length == 0) {
-            errorMessage = "No date provided";
-            return null;
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        cancel();
+    }
+
+    /**
+     * Receives the result of the background work on the main thread.
+     *
+     * @param <T> The result type
+     */
+    private interface ResultHandler<T> {
+        /**
+         * Called with the successful result.
+         *
+         * @param result The result of the work
+         */
+        void onResult(T result);
+    }
+
+    /**
+     * Runs the given work on the network executor and delivers the outcome on the main thread.
+     *
+     * @param work    The blocking work to run
+     * @param handler Receives the result if the work succeeds
+     * @param <T>     The result type
+     * @return A future for the work, or null if the task could not be started
+     */
+    @Nullable
+    private <T> Future<?> start(Callable<T> work, ResultHandler<T> handler) {
+        if (future != null) {
+            throw new IllegalStateException("Task has already been executed");
         }
 
-        String date = params[0];
-        String urlString = BASE_URL + "?api_key=" + API_KEY + "&date=" + date;
+        if (lifecycleOwner != null) {
+            Lifecycle lifecycle = lifecycleOwner.getLifecycle();
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                cancelled = true;
+                return null;
+            }
+            lifecycle.addObserver(this);
+        }
 
-        HttpURLConnection connection = null;
-        BufferedReader reader = null;
+        notifyPreExecute();
 
         try {
-            // Update progress - Starting connection
-            publishProgress(10);
-
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(15000);
-            connection.setReadTimeout(15000);
-            connection.connect();
-
-            // Update progress - Connected
-            publishProgress(30);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                errorMessage = "HTTP Error: " + responseCode;
-                
-                // Try to read error message from response
-                InputStream errorStream = connection.getErrorStream();
-                if (errorStream != null) {
-                    reader = new BufferedReader(new InputStreamReader(errorStream));
-                    StringBuilder errorBuilder = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        errorBuilder.append(line);
-                    }
-                    try {
-                        JSONObject errorJson = new JSONObject(errorBuilder.toString());
-                        if (errorJson.has("msg")) {
-                            errorMessage = errorJson.getString("msg");
+            future = AppExecutors.network().submit(() -> {
+                try {
+                    T result = work.call();
+                    AppExecutors.runOnMainThread(() -> {
+                        if (finish()) {
+                            handler.onResult(result);
                         }
-                    } catch (JSONException e) {
-                        // Use default error message
-                    }
+                    });
+                } catch (NasaApiException e) {
+                    postError(e.getMessage());
+                } catch (Exception e) {
+                    Log.e(TAG, "Unexpected error: " + e.getMessage());
+                    postError("Unknown error occurred");
                 }
-                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Too many requests in progress");
+            if (finish()) {
+                notifyError("Too many requests in progress, please try again");
             }
+        }
 
-            // Update progress - Reading data
-            publishProgress(50);
-
-            InputStream inputStream = connection.getInputStream();
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-            StringBuilder response = new StringBuilder();
-            String line;
+        return future;
+    }
 
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
+    /**
+     * Publishes a progress update to the listener on the main thread.
+     *
+     * @param progress Progress value (0-100)
+     */
+    private void publishProgress(int progress) {
+        AppExecutors.runOnMainThread(() -> {
+            if (cancelled) {
+                return;
             }
+            if (listener != null) {
+                listener.onProgressUpdate(progress);
+            } else if (rangeListener != null) {
+                rangeListener.onProgressUpdate(progress);
+            }
+        });
+    }
 
-            // Update progress - Parsing JSON
-            publishProgress(70);
-
-            String jsonResponse = response.toString();
-            NasaImage image = parseJsonResponse(jsonResponse);
-
-            // Update progress - Complete
-            publishProgress(100);
-
-            return image;
-
-        } catch (IOException e) {
-            Log.e(TAG, "Network error: " + e.getMessage());
-            errorMessage = "Network error: " + e.getMessage();
-            return null;
-        } catch (JSONException e) {
-            Log.e(TAG, "JSON parsing error: " + e.getMessage());
-            errorMessage = "Error parsing response: " + e.getMessage();
-            return null;
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+    /**
+     * Publishes a phase change to the listener on the main thread.
+     *
+     * @param phase The phase being entered
+     */
+    private void publishPhase(FetchTiming.Phase phase) {
+        AppExecutors.runOnMainThread(() -> {
+            if (cancelled) {
+                return;
             }
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    Log.e(TAG, "Error closing reader: " + e.getMessage());
-                }
+            if (listener != null) {
+                listener.onPhaseChanged(phase);
+            } else if (rangeListener != null) {
+                rangeListener.onPhaseChanged(phase);
             }
-        }
+        });
     }
 
     /**
-     * Called when progress updates are published.
+     * Posts an error to the listener on the main thread.
      *
-     * @param values The progress values
+     * @param error The error message
      */
-    @Override
-    protected void onProgressUpdate(Integer... values) {
-        super.onProgressUpdate(values);
-        if (listener != null && values.length > 0) {
-            listener.onProgressUpdate(values[0]);
-        }
+    private void postError(String error) {
+        AppExecutors.runOnMainThread(() -> {
+            if (finish()) {
+                notifyError(error != null ? error : "Unknown error occurred");
+            }
+        });
     }
 
     /**
-     * Called when the background task completes.
+     * Called on the main thread when the background work completes.
      *
-     * @param result The NasaImage result, or null if an error occurred
+     * @return true if the result should be delivered to the listener
      */
-    @Override
-    protected void onPostExecute(NasaImage result) {
-        super.onPostExecute(result);
+    private boolean finish() {
+        detachFromLifecycle();
+        return !cancelled;
+    }
+
+    /**
+     * Notifies the listener that the request is starting.
+     */
+    private void notifyPreExecute() {
         if (listener != null) {
-            if (result != null) {
-                listener.onSuccess(result);
-            } else {
-                listener.onError(errorMessage != null ? errorMessage : "Unknown error occurred");
-            }
+            listener.onPreExecute();
+        } else if (rangeListener != null) {
+            rangeListener.onPreExecute();
         }
     }
 
     /**
-     * Parses the JSON response from the NASA API.
+     * Notifies the listener of an error.
      *
-     * @param jsonString The JSON response string
-     * @return The parsed NasaImage object
-     * @throws JSONException If parsing fails
-     */
-    private NasaImage parseJsonResponse(String jsonString) throws JSONException {
-        JSONObject json = new JSONObject(jsonString);
-
-        NasaImage image = new NasaImage();
-        image.setTitle(json.optString("title", "No Title"));
-        image.setDate(json.optString("date", ""));
-        image.setExplanation(json.optString("explanation", ""));
-        image.setUrl(json.optString("url", ""));
-        image.setHdUrl(json.optString("hdurl", ""));
-        image.setMediaType(json.optString("media_type", "image"));
-        image.setCopyright(json.optString("copyright", ""));
-
-        return image;
+     * @param error The error message
+     */
+    private void notifyError(String error) {
+        if (listener != null) {
+            listener.onError(error);
+        } else if (rangeListener != null) {
+            rangeListener.onError(error);
+        }
+    }
+
+    /**
+     * Stops observing the lifecycle owner. Must be called on the main thread.
+     */
+    private void detachFromLifecycle() {
+        if (lifecycleOwner != null) {
+            lifecycleOwner.getLifecycle().removeObserver(this);
+        }
     }
 }
@@ -0,0 +1,101 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+
+import java.io.InputStream;
+
+/**
+ * Glide configuration for the application.
+ * APOD images are large, so the memory cache and bitmap pool are sized from the
+ * memory class of the device instead of the screen size, and halved on low-RAM
+ * devices. The disk cache keeps Glide's default location, so images downloaded by
+ * the prefetcher and the daily job are found there, with room for a few hundred
+ * pictures.
+ * <p>
+ * Glide registers itself for {@code onTrimMemory} with the application context, and
+ * the caches set here trim or clear themselves on those callbacks.
+ * <p>
+ * Pictures of favorites kept by the {@link OfflineImageStore} are read from storage
+ * ahead of the network.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+@GlideModule
+public final class NasaGlideModule extends AppGlideModule {
+
+    /** Tag for logging */
+    private static final String TAG = "NasaGlideModule";
+
+    /** Share of the memory class used for decoded images in the memory cache */
+    private static final int MEMORY_CACHE_DIVISOR = 8;
+
+    /** Share of the memory class kept for reusable bitmaps */
+    private static final int BITMAP_POOL_DIVISOR = 16;
+
+    /** Size of the disk cache in bytes */
+    private static final long DISK_CACHE_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Sets the cache sizes.
+     *
+     * @param context The application context
+     * @param builder The Glide builder
+     */
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = context.getSystemService(ActivityManager.class);
+        long memoryClassBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        if (activityManager.isLowRamDevice()) {
+            memoryClassBytes /= 2;
+        }
+
+        long memoryCacheBytes = memoryClassBytes / MEMORY_CACHE_DIVISOR;
+        long bitmapPoolBytes = memoryClassBytes / BITMAP_POOL_DIVISOR;
+        builder.setMemoryCache(new LruResourceCache(memoryCacheBytes));
+        builder.setBitmapPool(new LruBitmapPool(bitmapPoolBytes));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context,
+                DiskCache.Factory.DEFAULT_DISK_CACHE_DIR, DISK_CACHE_BYTES));
+
+        Log.d(TAG, "Memory cache " + memoryCacheBytes / 1024 + " KiB, bitmap pool "
+                + bitmapPoolBytes / 1024 + " KiB");
+    }
+
+    /**
+     * Serves image URLs from the offline store before the network loaders.
+     *
+     * @param context  The application context
+     * @param glide    The Glide instance
+     * @param registry The component registry
+     */
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide,
+                                   @NonNull Registry registry) {
+        registry.prepend(String.class, InputStream.class,
+                new OfflineImageModelLoader.Factory(OfflineImageStore.getInstance(context)));
+    }
+
+    /**
+     * Disables the legacy manifest parsing, since no library declares a module there.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
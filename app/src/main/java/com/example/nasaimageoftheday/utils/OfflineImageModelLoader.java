@@ -0,0 +1,197 @@
+package com.example.nasaimageoftheday.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Glide model loader serving image URLs from the {@link OfflineImageStore}.
+ * It is registered ahead of the network loaders, so a stored picture is decoded from
+ * local storage; when the picture is not stored, or turns out to be damaged, Glide
+ * moves on to the next loader and downloads it.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class OfflineImageModelLoader implements ModelLoader<String, InputStream> {
+
+    /** Store holding the pictures */
+    private final OfflineImageStore store;
+
+    /**
+     * Constructor for OfflineImageModelLoader.
+     *
+     * @param store The store holding the pictures
+     */
+    OfflineImageModelLoader(OfflineImageStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Builds the load of a stored picture. The URL is used as the cache key, so the
+     * memory and disk cache entries are shared with network loads of the same URL.
+     *
+     * @param url     The picture URL
+     * @param width   The target width
+     * @param height  The target height
+     * @param options The load options
+     * @return The load data
+     */
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull String url, int width, int height,
+                                               @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(url), new StoreFetcher(store, url));
+    }
+
+    /**
+     * Checks whether the store holds the picture. Called on a Glide background thread.
+     *
+     * @param url The picture URL
+     * @return true if the picture is stored
+     */
+    @Override
+    public boolean handles(@NonNull String url) {
+        return store.contains(url);
+    }
+
+    /**
+     * Fetcher opening a stored picture.
+     */
+    private static class StoreFetcher implements DataFetcher<InputStream> {
+
+        /** Store holding the picture */
+        private final OfflineImageStore store;
+
+        /** The picture URL */
+        private final String url;
+
+        /** Stream opened by the last load */
+        private InputStream stream;
+
+        /**
+         * Constructor for StoreFetcher.
+         *
+         * @param store The store holding the picture
+         * @param url   The picture URL
+         */
+        StoreFetcher(OfflineImageStore store, String url) {
+            this.store = store;
+            this.url = url;
+        }
+
+        /**
+         * Opens the stored picture, failing if it is gone or damaged so the next
+         * loader fetches it from the network.
+         *
+         * @param priority The load priority
+         * @param callback The callback receiving the stream
+         */
+        @Override
+        public void loadData(@NonNull Priority priority,
+                             @NonNull DataCallback<? super InputStream> callback) {
+            try {
+                stream = store.open(url);
+                if (stream == null) {
+                    callback.onLoadFailed(new FileNotFoundException("Not stored: " + url));
+                    return;
+                }
+                callback.onDataReady(stream);
+            } catch (IOException e) {
+                callback.onLoadFailed(e);
+            }
+        }
+
+        /**
+         * Closes the stream of the last load.
+         */
+        @Override
+        public void cleanup() {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release
+                }
+            }
+        }
+
+        /**
+         * Reading a local file cannot be interrupted usefully, so does nothing.
+         */
+        @Override
+        public void cancel() {
+        }
+
+        /**
+         * Gets the type of data loaded.
+         *
+         * @return InputStream
+         */
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        /**
+         * Gets where the data comes from.
+         *
+         * @return {@link DataSource#LOCAL}
+         */
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+
+    /**
+     * Factory registering the loader with Glide.
+     */
+    public static class Factory implements ModelLoaderFactory<String, InputStream> {
+
+        /** Store holding the pictures */
+        private final OfflineImageStore store;
+
+        /**
+         * Constructor for Factory.
+         *
+         * @param store The store holding the pictures
+         */
+        public Factory(OfflineImageStore store) {
+            this.store = store;
+        }
+
+        /**
+         * Creates the loader.
+         *
+         * @param multiFactory Glide's loader factory
+         * @return The loader
+         */
+        @NonNull
+        @Override
+        public ModelLoader<String, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new OfflineImageModelLoader(store);
+        }
+
+        /**
+         * Nothing to release.
+         */
+        @Override
+        public void teardown() {
+        }
+    }
+}
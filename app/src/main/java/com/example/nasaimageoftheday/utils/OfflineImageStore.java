@@ -0,0 +1,667 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.nasaimageoftheday.database.InvalidationTracker;
+import com.example.nasaimageoftheday.database.NasaImageDatabaseHelper;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the pictures of favorites in app-private storage, so favorites show offline
+ * and are not downloaded again.
+ * The store follows the {@link InvalidationTracker}: a picture is downloaded in the
+ * background when its entry becomes a favorite and deleted when it stops being one.
+ * At startup, files of entries that are no longer favorites are deleted, and missing
+ * pictures are downloaded on unmetered networks. Glide reads the stored files ahead
+ * of the network through {@link OfflineImageModelLoader}.
+ * <p>
+ * Each file starts with the length and SHA-256 digest of the picture. A file is
+ * checked against them the first time it is served in a process, and dropped if it
+ * does not match, so the picture is fetched from the network instead. The total size
+ * is capped by a quota set in {@link PreferencesHelper}; beyond it, the least recently
+ * shown pictures are evicted and load from the network again. The bytes saved are
+ * counted in memory and written to preferences at most once a minute and when the
+ * app goes to the background, so serving a picture does not write preferences. All
+ * methods except {@link #start()} and {@link #getBytesSaved()} perform disk I/O and
+ * must not be called from the main thread.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class OfflineImageStore implements InvalidationTracker.Observer, ComponentCallbacks2 {
+
+    /** Tag for logging */
+    private static final String TAG = "OfflineImageStore";
+
+    /** Name of the directory holding the pictures, in the app files directory */
+    private static final String DIRECTORY_NAME = "offline_images";
+
+    /** Version of the on-disk file format */
+    private static final int FORMAT_VERSION = 1;
+
+    /** Suffix of picture files */
+    private static final String FILE_SUFFIX = ".img";
+
+    /** Suffix of files being downloaded */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Length of a SHA-256 digest in bytes */
+    private static final int DIGEST_LENGTH = 32;
+
+    /** Offset of the picture length in a file, after the format version */
+    private static final int LENGTH_OFFSET = 4;
+
+    /** Number of favorites read per query when reconciling the store */
+    private static final int RECONCILE_PAGE_SIZE = 100;
+
+    /** Size of the copy buffer in bytes */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Number of bytes in a megabyte */
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    /** Minimum time between two writes of the bytes saved to preferences */
+    private static final long BYTES_SAVED_FLUSH_INTERVAL_MS = 60_000;
+
+    /** Singleton instance */
+    private static OfflineImageStore instance;
+
+    /** Application context */
+    private final Context context;
+
+    /** Database the favorites are read from */
+    private final NasaImageDatabaseHelper databaseHelper;
+
+    /** Preferences holding the quota and the bytes saved */
+    private final PreferencesHelper preferencesHelper;
+
+    /** Transport downloading the pictures */
+    private final HttpTransport transport;
+
+    /** Picture file sizes keyed by file name, in least recently shown order */
+    private final LinkedHashMap<String, Long> fileSizes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Names of the files checked against their digest in this process */
+    private final Set<String> verified = new HashSet<>();
+
+    /** Bytes saved since they were last written to preferences */
+    private final AtomicLong unflushedBytesSaved = new AtomicLong();
+
+    /** Time of the last write of the bytes saved, in elapsed realtime */
+    private final AtomicLong lastBytesSavedFlush = new AtomicLong();
+
+    /** Directory holding the pictures, resolved on first use */
+    private File directory;
+
+    /** Current total size of all files in bytes */
+    private long currentSize;
+
+    /** Flag indicating if the index has been loaded from disk */
+    private boolean initialized;
+
+    /** Flag indicating if the store follows the favorites */
+    private boolean started;
+
+    /**
+     * Gets the singleton instance of the store.
+     *
+     * @param context The context
+     * @return The store instance
+     */
+    public static synchronized OfflineImageStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new OfflineImageStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor for singleton pattern. Performs no disk I/O.
+     *
+     * @param context The application context
+     */
+    private OfflineImageStore(Context context) {
+        this.context = context;
+        this.databaseHelper = NasaImageDatabaseHelper.getInstance(context);
+        this.preferencesHelper = PreferencesHelper.getInstance(context);
+        this.transport = OkHttpTransport.getInstance();
+    }
+
+    /**
+     * Starts following the favorites and reconciles the store with them in the
+     * background. Must be called on the main thread.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        databaseHelper.getInvalidationTracker().addObserver(this);
+        context.registerComponentCallbacks(this);
+        runInBackground(this::reconcile);
+    }
+
+    /**
+     * Called on the main thread when favorites change: downloads the pictures of the
+     * added ones and deletes those of the removed ones.
+     *
+     * @param change The change
+     */
+    @Override
+    public void onFavoritesChanged(InvalidationTracker.Change change) {
+        if (change.isCleared()) {
+            runInBackground(this::clear);
+            return;
+        }
+        List<Long> added = change.getAdded();
+        List<Long> removed = change.getRemoved();
+        runInBackground(() -> {
+            for (long id : removed) {
+                NasaImage image = databaseHelper.getImageByDate(ApodDates.fromEpochDay(id));
+                if (image != null && image.getUrl() != null) {
+                    remove(image.getUrl());
+                }
+            }
+            if (!added.isEmpty()) {
+                for (NasaImage image : databaseHelper.getFavoritesByIds(added)) {
+                    if (isStorable(image)) {
+                        download(image.getId(), image.getUrl());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks whether a picture is stored.
+     *
+     * @param url The picture URL
+     * @return true if the store holds the picture
+     */
+    public synchronized boolean contains(String url) {
+        initialize();
+        return fileSizes.containsKey(fileNameFor(url));
+    }
+
+    /**
+     * Opens a stored picture, checking it against its digest the first time in this
+     * process. The check reads the whole file, so it runs outside the store lock and
+     * never holds up other loads asking whether their picture is stored. Counts the
+     * picture towards the bytes saved.
+     *
+     * @param url The picture URL
+     * @return The picture bytes, which the caller must close, or null if the picture
+     *         is not stored or was damaged
+     * @throws IOException If the file cannot be read
+     */
+    @Nullable
+    public InputStream open(String url) throws IOException {
+        String fileName = fileNameFor(url);
+        File file;
+        boolean check;
+        synchronized (this) {
+            initialize();
+            // Also moves the file to the most recently shown end
+            if (fileSizes.get(fileName) == null) {
+                return null;
+            }
+            file = new File(directory, fileName);
+            check = !verified.contains(fileName);
+        }
+
+        if (check) {
+            boolean intact = isIntact(file, url);
+            synchronized (this) {
+                if (!fileSizes.containsKey(fileName)) {
+                    // Removed or evicted while it was being checked
+                    return null;
+                }
+                if (!intact && !verified.contains(fileName)) {
+                    Log.w(TAG, "Dropping damaged picture " + url);
+                    removeFile(fileName);
+                    return null;
+                }
+                // Intact, or replaced meanwhile by a fresh download that needs no check
+                verified.add(fileName);
+            }
+        }
+        // Persist the access so LRU order survives a restart
+        file.setLastModified(System.currentTimeMillis());
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            long length = readHeader(in, url);
+            countBytesSaved(length);
+            Log.d(TAG, "Served " + url + " from storage");
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a stored picture.
+     *
+     * @param url The picture URL
+     */
+    public synchronized void remove(String url) {
+        initialize();
+        removeFile(fileNameFor(url));
+    }
+
+    /**
+     * Deletes every stored picture.
+     */
+    public synchronized void clear() {
+        initialize();
+        for (String fileName : fileSizes.keySet().toArray(new String[0])) {
+            removeFile(fileName);
+        }
+    }
+
+    /**
+     * Gets the total size of the stored pictures.
+     *
+     * @return The size in bytes
+     */
+    public synchronized long size() {
+        initialize();
+        return currentSize;
+    }
+
+    /**
+     * Gets the size limit of the store.
+     *
+     * @return The quota in bytes
+     */
+    public long getQuotaBytes() {
+        return preferencesHelper.getOfflineQuotaMb() * MEGABYTE;
+    }
+
+    /**
+     * Changes the size limit of the store, evicting pictures if it shrinks.
+     *
+     * @param megabytes The quota in megabytes
+     */
+    public synchronized void setQuotaMb(int megabytes) {
+        preferencesHelper.saveOfflineQuotaMb(megabytes);
+        initialize();
+        trimToSize();
+    }
+
+    /**
+     * Gets the number of picture bytes served from the store instead of the network.
+     *
+     * @return The bytes saved
+     */
+    public long getBytesSaved() {
+        return preferencesHelper.getOfflineBytesSaved() + unflushedBytesSaved.get();
+    }
+
+    /**
+     * Writes the bytes saved to preferences when the app goes to the background, so
+     * they survive the process being killed there.
+     *
+     * @param level The memory trim level
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            runInBackground(this::flushBytesSaved);
+        }
+    }
+
+    /**
+     * Not used; the store does not depend on the configuration.
+     *
+     * @param newConfig The new configuration
+     */
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    /**
+     * Not used; {@link #onTrimMemory(int)} handles memory pressure.
+     */
+    @Override
+    public void onLowMemory() {
+    }
+
+    /**
+     * Counts a picture served from the store, writing the total to preferences on the
+     * store thread if the last write is older than the flush interval.
+     *
+     * @param bytes The picture size in bytes
+     */
+    private void countBytesSaved(long bytes) {
+        unflushedBytesSaved.addAndGet(bytes);
+        long now = SystemClock.elapsedRealtime();
+        long last = lastBytesSavedFlush.get();
+        if (now - last >= BYTES_SAVED_FLUSH_INTERVAL_MS
+                && lastBytesSavedFlush.compareAndSet(last, now)) {
+            runInBackground(this::flushBytesSaved);
+        }
+    }
+
+    /**
+     * Adds the bytes saved counted in memory to the total in preferences.
+     */
+    private void flushBytesSaved() {
+        long bytes = unflushedBytesSaved.getAndSet(0);
+        if (bytes > 0) {
+            long saved = preferencesHelper.addOfflineBytesSaved(bytes);
+            Log.d(TAG, saved / 1024 + " KiB saved so far");
+        }
+    }
+
+    /**
+     * Deletes the pictures of entries that are no longer favorites and, on unmetered
+     * networks, downloads the missing ones.
+     */
+    private void reconcile() {
+        Set<String> wanted = new HashSet<>();
+        List<NasaImage> favorites = new ArrayList<>();
+        long beforeId = Long.MAX_VALUE;
+        List<NasaImage> page;
+        do {
+            page = databaseHelper.getFavoritesPage(beforeId, RECONCILE_PAGE_SIZE);
+            for (NasaImage image : page) {
+                beforeId = image.getId();
+                if (isStorable(image)) {
+                    wanted.add(fileNameFor(image.getUrl()));
+                    favorites.add(image);
+                }
+            }
+        } while (page.size() == RECONCILE_PAGE_SIZE);
+
+        synchronized (this) {
+            initialize();
+            for (String fileName : fileSizes.keySet().toArray(new String[0])) {
+                if (!wanted.contains(fileName)) {
+                    removeFile(fileName);
+                }
+            }
+        }
+
+        ConnectivityManager connectivity = context.getSystemService(ConnectivityManager.class);
+        if (connectivity == null || connectivity.isActiveNetworkMetered()) {
+            return;
+        }
+        for (NasaImage image : favorites) {
+            download(image.getId(), image.getUrl());
+        }
+    }
+
+    /**
+     * Downloads a picture into the store, unless it is already there. The file is
+     * written under a temporary name and only added once complete and still wanted.
+     *
+     * @param id  The ID (epoch day) of the favorite
+     * @param url The picture URL
+     */
+    private void download(long id, String url) {
+        String fileName = fileNameFor(url);
+        synchronized (this) {
+            initialize();
+            if (fileSizes.containsKey(fileName)) {
+                return;
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.w(TAG, "Cannot create store directory");
+                return;
+            }
+        }
+
+        File tempFile = new File(directory, fileName + TEMP_SUFFIX);
+        long quota = getQuotaBytes();
+        try (HttpTransport.Response response = transport.get(url, Collections.emptyMap(), null, null);
+             RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+            if (response.getStatusCode() != 200) {
+                throw new IOException("HTTP " + response.getStatusCode());
+            }
+
+            // Length and digest are filled in once the picture is complete
+            out.setLength(0);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(0);
+            out.write(new byte[DIGEST_LENGTH]);
+            out.writeUTF(url);
+
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long length = 0;
+            InputStream in = response.getBody();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                length += read;
+                if (length > quota) {
+                    throw new IOException("Picture larger than the quota");
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+
+            out.seek(LENGTH_OFFSET);
+            out.writeLong(length);
+            out.write(digest.digest());
+        } catch (IOException e) {
+            Log.w(TAG, "Error storing " + url + ": " + e.getMessage());
+            tempFile.delete();
+            return;
+        }
+
+        commit(id, fileName, tempFile);
+    }
+
+    /**
+     * Adds a downloaded file to the store, unless its entry stopped being a favorite
+     * while it was downloading. Runs under the same lock as {@link #remove(String)}, so
+     * a removal is never overtaken by a download.
+     *
+     * @param id       The ID (epoch day) of the favorite
+     * @param fileName The file name
+     * @param tempFile The downloaded file
+     */
+    private synchronized void commit(long id, String fileName, File tempFile) {
+        File file = new File(directory, fileName);
+        if (!databaseHelper.isFavorite(id) || !tempFile.renameTo(file)) {
+            tempFile.delete();
+            return;
+        }
+        Long previous = fileSizes.put(fileName, file.length());
+        currentSize += file.length() - (previous != null ? previous : 0);
+        verified.add(fileName);
+        trimToSize();
+    }
+
+    /**
+     * Checks a file against the length and digest in its header.
+     *
+     * @param file The file
+     * @param url  The picture URL the file must hold
+     * @return true if the picture is complete and unchanged
+     */
+    private static boolean isIntact(File file, String url) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            in.readInt();
+            long length = in.readLong();
+            byte[] expected = new byte[DIGEST_LENGTH];
+            in.readFully(expected);
+            if (!url.equals(in.readUTF())) {
+                return false;
+            }
+
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                digest.update(buffer, 0, read);
+            }
+            return total == length && MessageDigest.isEqual(expected, digest.digest());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the header of a file, leaving the stream at the start of the picture.
+     *
+     * @param in  The file stream
+     * @param url The picture URL the file must hold
+     * @return The length of the picture in bytes
+     * @throws IOException If the header is unreadable or does not match
+     */
+    private static long readHeader(DataInputStream in, String url) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown format");
+        }
+        long length = in.readLong();
+        in.skipBytes(DIGEST_LENGTH);
+        if (!url.equals(in.readUTF())) {
+            throw new IOException("File holds another picture");
+        }
+        return length;
+    }
+
+    /**
+     * Loads the index from the files on disk, oldest access first, and deletes
+     * downloads left unfinished by a previous process.
+     */
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        directory = new File(context.getFilesDir(), DIRECTORY_NAME);
+
+        File[] tempFiles = directory.listFiles((dir, name) -> name.endsWith(TEMP_SUFFIX));
+        if (tempFiles != null) {
+            for (File file : tempFiles) {
+                file.delete();
+            }
+        }
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            fileSizes.put(file.getName(), file.length());
+            currentSize += file.length();
+        }
+        trimToSize();
+    }
+
+    /**
+     * Evicts the least recently shown pictures until the store fits its quota.
+     */
+    private void trimToSize() {
+        long quota = getQuotaBytes();
+        Iterator<Map.Entry<String, Long>> iterator = fileSizes.entrySet().iterator();
+        while (currentSize > quota && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(directory, eldest.getKey()).delete();
+            verified.remove(eldest.getKey());
+            currentSize -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Deletes a picture file and removes it from the index.
+     *
+     * @param fileName The file name
+     */
+    private void removeFile(String fileName) {
+        Long size = fileSizes.remove(fileName);
+        if (size != null) {
+            currentSize -= size;
+        }
+        verified.remove(fileName);
+        new File(directory, fileName).delete();
+    }
+
+    /**
+     * Runs work on the store's own thread, so downloads and reconciliation queue
+     * behind each other instead of competing with API fetches for network threads.
+     *
+     * @param task The work
+     */
+    private static void runInBackground(Runnable task) {
+        AppExecutors.offlineStore().execute(task);
+    }
+
+    /**
+     * Checks whether an entry has a picture the store keeps.
+     *
+     * @param image The entry
+     * @return true if the entry is a picture with a URL
+     */
+    private static boolean isStorable(NasaImage image) {
+        return image.getUrl() != null && !image.getUrl().isEmpty()
+                && !"video".equals(image.getMediaType());
+    }
+
+    /**
+     * Gets the file name for a picture URL.
+     *
+     * @param url The picture URL
+     * @return A file name derived from the SHA-256 hash of the URL
+     */
+    private static String fileNameFor(String url) {
+        byte[] hash = sha256().digest(url.getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder(hash.length * 2 + FILE_SUFFIX.length());
+        for (byte b : hash) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16));
+            name.append(Character.forDigit(b & 0xF, 16));
+        }
+        return name.append(FILE_SUFFIX).toString();
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return The digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Default {@link HttpTransport} backed by a single shared OkHttp client.
+ * Connections are kept alive in a pool and reused across requests, HTTP/2 is
+ * negotiated where the server supports it so concurrent requests share one
+ * connection, and responses are requested gzip-compressed and decompressed
+ * transparently. Since a decompressed body has no known length, a network interceptor
+ * counts the compressed bytes as they arrive, so download progress can still be
+ * measured against the Content-Length sent by the server.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class OkHttpTransport implements HttpTransport {
+
+    /** Connect and read timeout in milliseconds */
+    private static final int TIMEOUT_MS = 15000;
+
+    /** Maximum number of idle connections kept in the pool */
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+
+    /** How long an idle connection is kept alive, in minutes */
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    /** Singleton instance */
+    private static OkHttpTransport instance;
+
+    /** Shared client holding the connection pool */
+    private final OkHttpClient client;
+
+    /**
+     * Gets the singleton instance of the transport.
+     *
+     * @return The transport instance
+     */
+    public static synchronized OkHttpTransport getInstance() {
+        if (instance == null) {
+            instance = new OkHttpTransport();
+        }
+        return instance;
+    }
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private OkHttpTransport() {
+        client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS,
+                        KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .readTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .eventListener(new ConnectionListener())
+                .addNetworkInterceptor(OkHttpTransport::countTransfer)
+                .build();
+    }
+
+    /**
+     * Gets the underlying OkHttp client, so other components can share its
+     * connection pool.
+     *
+     * @return The shared client
+     */
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Sends a GET request and waits for the response headers.
+     *
+     * @param url         The URL to request
+     * @param headers     Extra request headers
+     * @param onConnected Optional callback run once a connection is ready
+     * @param signal      Optional cancellation signal
+     * @return The response
+     * @throws IOException If the request fails or is cancelled
+     */
+    @Override
+    public Response get(String url, Map<String, String> headers, @Nullable Runnable onConnected,
+                        @Nullable CancellationSignal signal) throws IOException {
+        Request.Builder builder = new Request.Builder().url(url);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        if (onConnected != null) {
+            builder.tag(ConnectedCallback.class, new ConnectedCallback(onConnected));
+        }
+        TransferCount transferCount = new TransferCount();
+        builder.tag(TransferCount.class, transferCount);
+
+        Call call = client.newCall(builder.build());
+        if (signal != null) {
+            // Runs immediately if the signal is already cancelled, failing execute()
+            signal.setOnCancelListener(call::cancel);
+        }
+
+        try {
+            return new OkHttpResponse(call.execute(), transferCount, signal);
+        } catch (IOException | RuntimeException e) {
+            if (signal != null) {
+                signal.setOnCancelListener(null);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps the body of a response as it comes off the network, before transparent
+     * decompression, to count its bytes.
+     *
+     * @param chain The network interceptor chain
+     * @return The response with a counting body
+     * @throws IOException If the request fails
+     */
+    private static okhttp3.Response countTransfer(Interceptor.Chain chain) throws IOException {
+        okhttp3.Response response = chain.proceed(chain.request());
+        TransferCount count = chain.request().tag(TransferCount.class);
+        ResponseBody body = response.body();
+        if (count == null || body == null) {
+            return response;
+        }
+        // A redirect runs this again; only the last hop counts
+        count.length = body.contentLength();
+        count.bytes = 0;
+        return response.newBuilder().body(new CountingBody(body, count)).build();
+    }
+
+    /**
+     * Request tag receiving the length and bytes received of the response body as sent
+     * over the network.
+     */
+    private static class TransferCount {
+
+        /** Content-Length on the wire, or -1 if unknown */
+        volatile long length = -1;
+
+        /** Bytes received so far; only written by the thread reading the body */
+        volatile long bytes;
+    }
+
+    /**
+     * Response body counting the bytes read from the network into a {@link TransferCount}.
+     */
+    private static class CountingBody extends ResponseBody {
+
+        /** The network body */
+        private final ResponseBody delegate;
+
+        /** Receives the byte count */
+        private final TransferCount count;
+
+        /** Counting source, created on first use */
+        private BufferedSource source;
+
+        /**
+         * Constructor with the body to count.
+         *
+         * @param delegate The network body
+         * @param count    Receives the byte count
+         */
+        CountingBody(ResponseBody delegate, TransferCount count) {
+            this.delegate = delegate;
+            this.count = count;
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read > 0) {
+                            count.bytes += read;
+                        }
+                        return read;
+                    }
+                });
+            }
+            return source;
+        }
+    }
+
+    /**
+     * Request tag carrying the callback to run once a connection is ready.
+     */
+    private static class ConnectedCallback {
+
+        /** The callback */
+        final Runnable callback;
+
+        /**
+         * Constructor with the callback.
+         *
+         * @param callback The callback to run
+         */
+        ConnectedCallback(Runnable callback) {
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Runs the connected callback of a request once its connection is acquired,
+     * whether freshly opened or taken from the pool.
+     */
+    private static class ConnectionListener extends EventListener {
+
+        @Override
+        public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+            ConnectedCallback connected = call.request().tag(ConnectedCallback.class);
+            if (connected != null) {
+                connected.callback.run();
+            }
+        }
+    }
+
+    /**
+     * Response wrapping an OkHttp response.
+     */
+    private static class OkHttpResponse implements HttpTransport.Response {
+
+        /** The wrapped response */
+        private final okhttp3.Response response;
+
+        /** Bytes of the body received from the network */
+        private final TransferCount transferCount;
+
+        /** Cancellation signal bound to the call, may be null */
+        private final CancellationSignal signal;
+
+        /**
+         * Constructor with the response and its signal.
+         *
+         * @param response      The OkHttp response
+         * @param transferCount Bytes of the body received from the network
+         * @param signal        The cancellation signal bound to the call, may be null
+         */
+        OkHttpResponse(okhttp3.Response response, TransferCount transferCount,
+                       @Nullable CancellationSignal signal) {
+            this.response = response;
+            this.transferCount = transferCount;
+            this.signal = signal;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.code();
+        }
+
+        @Nullable
+        @Override
+        public String getHeader(String name) {
+            return response.header(name);
+        }
+
+        @Override
+        public long getContentLength() {
+            ResponseBody body = response.body();
+            return body != null ? body.contentLength() : -1;
+        }
+
+        /**
+         * Gets the Content-Length sent by the server, which OkHttp drops from the
+         * response once it decompresses the body.
+         *
+         * @return The length in bytes on the wire, or -1 if unknown
+         */
+        @Override
+        public long getTransferLength() {
+            return transferCount.length;
+        }
+
+        @Override
+        public long getBytesTransferred() {
+            return transferCount.bytes;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new IOException("Response has no body");
+            }
+            return body.byteStream();
+        }
+
+        /**
+         * Releases the response. A fully read body returns its connection to the pool.
+         */
+        @Override
+        public void close() {
+            if (signal != null) {
+                signal.setOnCancelListener(null);
+            }
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.content.Context;
+
+import com.example.nasaimageoftheday.database.NasaImageRepository;
+import com.example.nasaimageoftheday.models.NasaImage;
+
+import java.util.List;
+
+/**
+ * Loads the favorites list page by page on the disk thread.
+ * Pages hold only the list columns, so a list of thousands of favorites never loads
+ * their explanations; the full entry is read when its detail screen opens. Pages are
+ * requested as the list scrolls, and a refresh reloads the part already shown in a
+ * single query so that the scroll position survives. All methods must be called on
+ * the main thread, and results are delivered there.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class PagedFavoritesLoader {
+
+    /** Number of favorites per page */
+    public static final int PAGE_SIZE = 30;
+
+    /**
+     * Receives the loaded pages.
+     */
+    public interface Listener {
+        /**
+         * Called when a page has been loaded.
+         *
+         * @param images The favorites of the page, newest first
+         * @param reset  true if the page replaces everything loaded so far
+         */
+        void onPageLoaded(List<NasaImage> images, boolean reset);
+    }
+
+    /** Repository the pages are read from */
+    private final NasaImageRepository repository;
+
+    /** Listener receiving the pages */
+    private final Listener listener;
+
+    /** ID of the last favorite loaded, or Long.MAX_VALUE before the first page */
+    private long lastId = Long.MAX_VALUE;
+
+    /** Number of favorites loaded */
+    private int loadedCount;
+
+    /** Flag indicating if there may be more favorites to load */
+    private boolean hasMore = true;
+
+    /** Flag indicating if a page is being loaded */
+    private boolean loading;
+
+    /** Incremented to drop the results of loads started before a refresh or release */
+    private int generation;
+
+    /**
+     * Constructor with context and listener.
+     *
+     * @param context  The context
+     * @param listener The listener receiving the pages
+     */
+    public PagedFavoritesLoader(Context context, Listener listener) {
+        this.repository = NasaImageRepository.getInstance(context);
+        this.listener = listener;
+    }
+
+    /**
+     * Loads the next page, unless one is already loading or everything is loaded.
+     */
+    public void loadNextPage() {
+        if (loading || !hasMore) {
+            return;
+        }
+        load(lastId, PAGE_SIZE, false);
+    }
+
+    /**
+     * Reloads the favorites loaded so far, or the first page if none are, replacing
+     * any load in progress.
+     */
+    public void refresh() {
+        generation++;
+        load(Long.MAX_VALUE, Math.max(PAGE_SIZE, loadedCount), true);
+    }
+
+    /**
+     * Stops delivering results, for example when the list is destroyed.
+     */
+    public void release() {
+        generation++;
+        loading = false;
+    }
+
+    /**
+     * Checks whether there may be more favorites to load.
+     *
+     * @return true if the last page was full
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Starts loading favorites on the disk thread.
+     *
+     * @param beforeId The ID to load favorites older than
+     * @param limit    Maximum number of favorites to load
+     * @param reset    true if the result replaces everything loaded so far
+     */
+    private void load(long beforeId, int limit, boolean reset) {
+        loading = true;
+        int loadGeneration = generation;
+        repository.getFavoritesPage(beforeId, limit, images -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            loading = false;
+            loadedCount = reset ? images.size() : loadedCount + images.size();
+            if (!images.isEmpty()) {
+                lastId = images.get(images.size() - 1).getId();
+            } else if (reset) {
+                lastId = Long.MAX_VALUE;
+            }
+            hasMore = images.size() == limit;
+            listener.onPageLoaded(images, reset);
+        });
+    }
+}
@@ -3,6 +3,8 @@ package com.example.nasaimageoftheday.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import com.example.nasaimageoftheday.models.NasaImage;
+
 /**
  * Utility class for managing SharedPreferences.
  * Stores and retrieves user preferences and application state.
@@ -24,6 +26,21 @@ public class PreferencesHelper {
     /** Key for last viewed image title */
     private static final String KEY_LAST_TITLE = "last_title";
 
+    /** Key prefix for the latest APOD entry fetched in the background */
+    private static final String KEY_LATEST_PREFIX = "latest_";
+
+    /** Key for the last date covered by the archive sync, as an epoch day */
+    private static final String KEY_SYNC_CHECKPOINT = "sync_checkpoint";
+
+    /** Key for the size limit of the offline image store, in megabytes */
+    private static final String KEY_OFFLINE_QUOTA_MB = "offline_quota_mb";
+
+    /** Key for the number of image bytes served from the offline store */
+    private static final String KEY_OFFLINE_BYTES_SAVED = "offline_bytes_saved";
+
+    /** Default size limit of the offline image store, in megabytes */
+    public static final int DEFAULT_OFFLINE_QUOTA_MB = 200;
+
     /** Key for first launch flag */
     private static final String KEY_FIRST_LAUNCH = "first_launch";
 
@@ -111,6 +128,106 @@ public class PreferencesHelper {
         return preferences.getString(KEY_LAST_TITLE, "");
     }
 
+    /**
+     * Saves the latest APOD entry, so it can be shown without a network request.
+     *
+     * @param image The entry to save
+     */
+    public void saveLatestImage(NasaImage image) {
+        editor.putString(KEY_LATEST_PREFIX + "date", image.getDate());
+        editor.putString(KEY_LATEST_PREFIX + "title", image.getTitle());
+        editor.putString(KEY_LATEST_PREFIX + "explanation", image.getExplanation());
+        editor.putString(KEY_LATEST_PREFIX + "url", image.getUrl());
+        editor.putString(KEY_LATEST_PREFIX + "hd_url", image.getHdUrl());
+        editor.putString(KEY_LATEST_PREFIX + "media_type", image.getMediaType());
+        editor.putString(KEY_LATEST_PREFIX + "copyright", image.getCopyright());
+        editor.apply();
+    }
+
+    /**
+     * Gets the latest APOD entry saved by {@link #saveLatestImage(NasaImage)}.
+     *
+     * @return The entry, or null if none has been saved
+     */
+    public NasaImage getLatestImage() {
+        String date = preferences.getString(KEY_LATEST_PREFIX + "date", "");
+        if (date.isEmpty()) {
+            return null;
+        }
+        return new NasaImage(
+                preferences.getString(KEY_LATEST_PREFIX + "title", ""),
+                date,
+                preferences.getString(KEY_LATEST_PREFIX + "explanation", ""),
+                preferences.getString(KEY_LATEST_PREFIX + "url", ""),
+                preferences.getString(KEY_LATEST_PREFIX + "hd_url", ""),
+                preferences.getString(KEY_LATEST_PREFIX + "media_type", "image"),
+                preferences.getString(KEY_LATEST_PREFIX + "copyright", ""));
+    }
+
+    /**
+     * Saves the last date covered by the archive sync. Written synchronously so the
+     * checkpoint survives the process being killed right after a chunk is stored;
+     * must not be called from the main thread.
+     *
+     * @param epochDay The epoch day of the last synced date
+     */
+    public void saveSyncCheckpoint(long epochDay) {
+        editor.putLong(KEY_SYNC_CHECKPOINT, epochDay);
+        editor.commit();
+    }
+
+    /**
+     * Gets the last date covered by the archive sync.
+     *
+     * @return The epoch day of the last synced date, or -1 if the sync has not started
+     */
+    public long getSyncCheckpoint() {
+        return preferences.getLong(KEY_SYNC_CHECKPOINT, -1);
+    }
+
+    /**
+     * Saves the size limit of the offline image store.
+     *
+     * @param megabytes The limit in megabytes
+     */
+    public void saveOfflineQuotaMb(int megabytes) {
+        editor.putInt(KEY_OFFLINE_QUOTA_MB, megabytes);
+        editor.apply();
+    }
+
+    /**
+     * Gets the size limit of the offline image store.
+     *
+     * @return The limit in megabytes
+     */
+    public int getOfflineQuotaMb() {
+        return preferences.getInt(KEY_OFFLINE_QUOTA_MB, DEFAULT_OFFLINE_QUOTA_MB);
+    }
+
+    /**
+     * Adds to the number of image bytes served from the offline store instead of the
+     * network.
+     *
+     * @param bytes The bytes served
+     * @return The new total
+     */
+    public synchronized long addOfflineBytesSaved(long bytes) {
+        long total = getOfflineBytesSaved() + bytes;
+        editor.putLong(KEY_OFFLINE_BYTES_SAVED, total);
+        editor.apply();
+        return total;
+    }
+
+    /**
+     * Gets the number of image bytes served from the offline store instead of the
+     * network.
+     *
+     * @return The total in bytes
+     */
+    public long getOfflineBytesSaved() {
+        return preferences.getLong(KEY_OFFLINE_BYTES_SAVED, 0);
+    }
+
     /**
      * Checks if this is the first launch of the app.
      *
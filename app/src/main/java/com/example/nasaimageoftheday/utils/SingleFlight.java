@@ -0,0 +1,209 @@
+package com.example.nasaimageoftheday.utils;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of in-flight requests that coalesces identical concurrent calls.
+ * The first caller for a key runs the request; callers arriving while it is still
+ * running wait for and share its result instead of starting their own. A request
+ * carries the rank of the caller that started it: a caller that joined a request of
+ * lower rank runs the request itself if that one fails, since a low-rank request may
+ * give up early where the joining caller would have waited or retried.
+ *
+ * @param <V> The result type
+ * @author Your Name
+ * @version 1.0
+ */
+public class SingleFlight<V> {
+
+    /** How often a waiting caller checks its own cancellation signal */
+    private static final long POLL_INTERVAL_MS = 200;
+
+    /** Pending requests keyed by request */
+    private final ConcurrentHashMap<String, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    /** Number of calls that joined a request already in flight */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** Number of calls that had to start a new request */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Performs the work for a request.
+     *
+     * @param <V> The result type
+     */
+    public interface Loader<V> {
+        /**
+         * Runs the request.
+         *
+         * @return The result
+         * @throws NasaApiException If the request fails
+         */
+        V load() throws NasaApiException;
+    }
+
+    /**
+     * A request in flight and the rank of the caller running it.
+     *
+     * @param <V> The result type
+     */
+    private static final class Flight<V> {
+
+        /** Result shared with the callers that joined */
+        final CompletableFuture<V> result = new CompletableFuture<>();
+
+        /** Rank of the caller running the request */
+        final int rank;
+
+        /**
+         * Constructor with the rank of the leading caller.
+         *
+         * @param rank The rank of the caller running the request
+         */
+        Flight(int rank) {
+            this.rank = rank;
+        }
+    }
+
+    /**
+     * Runs the loader for the key, or waits for the call already running for it.
+     * All callers have the same rank.
+     *
+     * @param key    Identifies the request, e.g. the date or date range
+     * @param loader Performs the request
+     * @param signal Optional cancellation signal of this caller
+     * @return The result
+     * @throws NasaApiException If the request fails or this caller is cancelled
+     */
+    public V run(String key, Loader<V> loader, @Nullable CancellationSignal signal)
+            throws NasaApiException {
+        return run(key, 0, loader, signal);
+    }
+
+    /**
+     * Runs the loader for the key, or waits for the call already running for it.
+     * If the call being waited on is cancelled by its own caller, or fails while it
+     * was started by a caller of lower rank, the waiting caller runs the request itself.
+     *
+     * @param key    Identifies the request, e.g. the date or date range
+     * @param rank   Rank of this caller; higher ranks do not inherit the failures of
+     *               lower ones
+     * @param loader Performs the request
+     * @param signal Optional cancellation signal of this caller
+     * @return The result
+     * @throws NasaApiException If the request fails or this caller is cancelled
+     */
+    public V run(String key, int rank, Loader<V> loader, @Nullable CancellationSignal signal)
+            throws NasaApiException {
+        while (true) {
+            Flight<V> pending = new Flight<>(rank);
+            Flight<V> existing = inFlight.putIfAbsent(key, pending);
+
+            if (existing == null) {
+                misses.incrementAndGet();
+                return load(key, pending, loader);
+            }
+
+            hits.incrementAndGet();
+            try {
+                return await(existing.result, signal);
+            } catch (NasaApiException e) {
+                if (signal != null && signal.isCanceled()) {
+                    throw e;
+                }
+                if (!e.isCancelled() && existing.rank >= rank) {
+                    throw e;
+                }
+                // The caller we joined gave up, or could not try as hard as we would;
+                // try again ourselves
+            }
+        }
+    }
+
+    /**
+     * Gets the number of calls that were served by a request already in flight.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of calls that started a new request.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Runs the loader as the leading caller and publishes its outcome.
+     *
+     * @param key     The request key
+     * @param pending The request shared with waiting callers
+     * @param loader  Performs the request
+     * @return The result
+     * @throws NasaApiException If the request fails
+     */
+    private V load(String key, Flight<V> pending, Loader<V> loader)
+            throws NasaApiException {
+        V result;
+        try {
+            result = loader.load();
+        } catch (NasaApiException | RuntimeException | Error e) {
+            // Unregister before completing so a retrying caller never sees this future
+            inFlight.remove(key, pending);
+            pending.result.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, pending);
+        pending.result.complete(result);
+        return result;
+    }
+
+    /**
+     * Waits for a request started by another caller.
+     *
+     * @param pending The shared future
+     * @param signal  Optional cancellation signal of this caller
+     * @return The result
+     * @throws NasaApiException If the request failed or this caller is cancelled
+     */
+    private V await(CompletableFuture<V> pending, @Nullable CancellationSignal signal)
+            throws NasaApiException {
+        while (true) {
+            if (signal != null && signal.isCanceled()) {
+                throw NasaApiException.cancelled();
+            }
+            try {
+                return pending.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Check the signal again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw NasaApiException.cancelled();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof NasaApiException) {
+                    throw (NasaApiException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new NasaApiException("Unknown error occurred", cause);
+            }
+        }
+    }
+}
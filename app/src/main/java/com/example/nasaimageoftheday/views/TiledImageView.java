@@ -0,0 +1,742 @@
+package com.example.nasaimageoftheday.views;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import android.widget.OverScroller;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.nasaimageoftheday.utils.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * View showing a very large image with pinch zoom, panning and double-tap zoom.
+ * The image is never decoded whole: a low-resolution copy fitting the view is always
+ * drawn, and on top of it the visible part is decoded tile by tile with a
+ * {@link BitmapRegionDecoder}, at the sample size matching the current zoom. Each
+ * tile is a bitmap of at most {@link #TILE_SIZE} pixels square whatever the zoom, so
+ * the memory used only depends on the size of the view.
+ * <p>
+ * Tiles are decoded on {@link AppExecutors#imageDecode()}. Requests for tiles that
+ * scrolled out of view before their turn are skipped. Decoded tiles are kept in an
+ * LRU cache sized for a little more than the tiles of one screen, so the tiles just
+ * left behind are redrawn at once when panning back. The decoder and the tiles are
+ * released when the view is detached.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class TiledImageView extends View {
+
+    /** Tag for logging */
+    private static final String TAG = "TiledImageView";
+
+    /** Edge of a decoded tile in bitmap pixels */
+    private static final int TILE_SIZE = 256;
+
+    /**
+     * Largest ratio of screen pixels to decoded pixels. A sample size is picked so that
+     * a decoded pixel covers between 1/sqrt(2) and sqrt(2) screen pixels, which keeps
+     * the decoded pixels within twice the screen pixels.
+     */
+    private static final float MAX_PIXEL_RATIO = (float) Math.sqrt(2);
+
+    /** Largest zoom, in screen pixels per image pixel */
+    private static final float MAX_SCALE = 2f;
+
+    /** Zoom applied by a double tap, relative to the fitted zoom */
+    private static final float DOUBLE_TAP_ZOOM = 3f;
+
+    /** Duration of the double-tap zoom animation in milliseconds */
+    private static final long ZOOM_ANIMATION_MS = 250;
+
+    /** Size of the tile cache relative to the tiles covering one screen */
+    private static final float CACHE_SCREENS = 1.5f;
+
+    /** Bytes per pixel of a decoded tile */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * Receives the outcome of loading an image.
+     */
+    public interface Listener {
+        /**
+         * Called on the main thread once the image is shown.
+         */
+        void onImageLoaded();
+
+        /**
+         * Called on the main thread when the image cannot be decoded.
+         */
+        void onImageLoadFailed();
+    }
+
+    /**
+     * Identifies a tile by its sample size and position in the grid of that sample size.
+     */
+    private static final class Tile {
+        final int sampleSize;
+        final int column;
+        final int row;
+
+        /**
+         * Constructor for Tile.
+         *
+         * @param sampleSize The sample size the tile is decoded at
+         * @param column     The column of the tile
+         * @param row        The row of the tile
+         */
+        Tile(int sampleSize, int column, int row) {
+            this.sampleSize = sampleSize;
+            this.column = column;
+            this.row = row;
+        }
+
+        /**
+         * Gets the part of the image covered by the tile.
+         *
+         * @param imageWidth  The width of the image
+         * @param imageHeight The height of the image
+         * @return The region in image pixels
+         */
+        Rect region(int imageWidth, int imageHeight) {
+            int extent = TILE_SIZE * sampleSize;
+            int left = column * extent;
+            int top = row * extent;
+            return new Rect(left, top, Math.min(left + extent, imageWidth),
+                    Math.min(top + extent, imageHeight));
+        }
+
+        /**
+         * Compares tiles by sample size and position.
+         *
+         * @param o The other object
+         * @return true if both identify the same tile
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Tile)) return false;
+            Tile tile = (Tile) o;
+            return sampleSize == tile.sampleSize && column == tile.column && row == tile.row;
+        }
+
+        /**
+         * Gets a hash code consistent with {@link #equals(Object)}.
+         *
+         * @return The hash code
+         */
+        @Override
+        public int hashCode() {
+            return (sampleSize * 31 + column) * 31 + row;
+        }
+    }
+
+    /** Decoded tiles, least recently drawn first, sized in bytes */
+    private final LruCache<Tile, Bitmap> tileCache = new LruCache<Tile, Bitmap>(1) {
+        /**
+         * Measures a tile by its pixel memory.
+         *
+         * @param key   The tile
+         * @param value The tile bitmap
+         * @return The size in bytes
+         */
+        @Override
+        protected int sizeOf(Tile key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    /** Tiles whose decoding has been requested and not yet delivered */
+    private final Set<Tile> pendingTiles = new HashSet<>();
+
+    /** Tiles drawn in the last frame, read by the decode thread to skip stale requests */
+    private volatile Set<Tile> visibleTiles = Collections.emptySet();
+
+    /** Paint filtering scaled bitmaps */
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /** Reused destination rectangle */
+    private final RectF drawRect = new RectF();
+
+    /** Detects pinch zoom */
+    private final ScaleGestureDetector scaleDetector;
+
+    /** Detects panning, flings and double taps */
+    private final GestureDetector gestureDetector;
+
+    /** Runs flings */
+    private final OverScroller scroller;
+
+    /** Listener receiving the outcome of loading an image */
+    private Listener listener;
+
+    /** Decoder of the current image, or null if none is open */
+    private BitmapRegionDecoder decoder;
+
+    /** Incremented whenever the image changes, so late decodes can be dropped */
+    private int generation;
+
+    /** Width of the image in pixels */
+    private int imageWidth;
+
+    /** Height of the image in pixels */
+    private int imageHeight;
+
+    /** Low-resolution copy of the whole image, drawn under the tiles */
+    private Bitmap baseBitmap;
+
+    /** Sample size of the low-resolution copy */
+    private int baseSampleSize;
+
+    /** Flag indicating if the low-resolution copy has been requested */
+    private boolean baseRequested;
+
+    /** Current zoom, in screen pixels per image pixel */
+    private float scale;
+
+    /** Zoom fitting the whole image in the view */
+    private float minScale;
+
+    /** Largest zoom allowed */
+    private float maxScale;
+
+    /** Screen position of the left edge of the image */
+    private float offsetX;
+
+    /** Screen position of the top edge of the image */
+    private float offsetY;
+
+    /** Running double-tap zoom animation, if any */
+    private ValueAnimator zoomAnimator;
+
+    /**
+     * Constructor for TiledImageView.
+     *
+     * @param context The context
+     */
+    public TiledImageView(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Constructor used when inflating from XML.
+     *
+     * @param context The context
+     * @param attrs   The XML attributes
+     */
+    public TiledImageView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        scroller = new OverScroller(context);
+        scaleDetector = new ScaleGestureDetector(context, new ScaleListener());
+        gestureDetector = new GestureDetector(context, new GestureListener());
+    }
+
+    /**
+     * Sets the listener receiving the outcome of loading an image.
+     *
+     * @param listener The listener, or null
+     */
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Shows an image file. The decoder is opened in the background and the image
+     * appears, fitted to the view, once its low-resolution copy is decoded.
+     *
+     * @param file The image file
+     */
+    public void setImage(@NonNull File file) {
+        release();
+        int requestGeneration = generation;
+        AppExecutors.imageDecode().execute(() -> {
+            BitmapRegionDecoder opened = openDecoder(file);
+            AppExecutors.runOnMainThread(() -> onDecoderOpened(requestGeneration, opened));
+        });
+    }
+
+    /**
+     * Releases the decoder and all decoded bitmaps. The image must be set again to
+     * show it.
+     */
+    public void release() {
+        generation++;
+        if (zoomAnimator != null) {
+            zoomAnimator.cancel();
+        }
+        scroller.forceFinished(true);
+        tileCache.evictAll();
+        pendingTiles.clear();
+        visibleTiles = Collections.emptySet();
+        baseBitmap = null;
+        baseRequested = false;
+        imageWidth = 0;
+        imageHeight = 0;
+        BitmapRegionDecoder released = decoder;
+        decoder = null;
+        if (released != null) {
+            // Runs after any decode still queued for it
+            AppExecutors.imageDecode().execute(released::recycle);
+        }
+        invalidate();
+    }
+
+    /**
+     * Sizes the tile cache for the new view size and fits the image.
+     *
+     * @param width     The new width
+     * @param height    The new height
+     * @param oldWidth  The previous width
+     * @param oldHeight The previous height
+     */
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        // Smallest on-screen tile edge is TILE_SIZE / MAX_PIXEL_RATIO; count partial tiles too
+        float minTileEdge = TILE_SIZE / MAX_PIXEL_RATIO;
+        int columns = (int) Math.ceil(width / minTileEdge) + 1;
+        int rows = (int) Math.ceil(height / minTileEdge) + 1;
+        long screenBytes = (long) columns * rows * TILE_SIZE * TILE_SIZE * BYTES_PER_PIXEL;
+        tileCache.resize((int) Math.min(Integer.MAX_VALUE, (long) (screenBytes * CACHE_SCREENS)));
+        if (decoder != null) {
+            fitImage();
+        }
+    }
+
+    /**
+     * Releases the image when the view leaves the window.
+     */
+    @Override
+    protected void onDetachedFromWindow() {
+        release();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Draws the low-resolution copy, then every visible tile already decoded at the
+     * current sample size, and requests the missing ones.
+     *
+     * @param canvas The canvas
+     */
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        if (baseBitmap == null) {
+            return;
+        }
+        drawRect.set(offsetX, offsetY, offsetX + imageWidth * scale, offsetY + imageHeight * scale);
+        canvas.drawBitmap(baseBitmap, null, drawRect, paint);
+
+        int sampleSize = sampleSizeFor(scale);
+        if (sampleSize >= baseSampleSize) {
+            // The low-resolution copy is already sharp enough
+            visibleTiles = Collections.emptySet();
+            return;
+        }
+
+        int extent = TILE_SIZE * sampleSize;
+        float left = Math.max(0, -offsetX / scale);
+        float top = Math.max(0, -offsetY / scale);
+        float right = Math.min(imageWidth, (getWidth() - offsetX) / scale);
+        float bottom = Math.min(imageHeight, (getHeight() - offsetY) / scale);
+        int lastColumn = (imageWidth - 1) / extent;
+        int lastRow = (imageHeight - 1) / extent;
+
+        Set<Tile> visible = new HashSet<>();
+        for (int row = (int) (top / extent); row <= Math.min(lastRow, (int) (bottom / extent)); row++) {
+            for (int column = (int) (left / extent); column <= Math.min(lastColumn, (int) (right / extent)); column++) {
+                Tile tile = new Tile(sampleSize, column, row);
+                visible.add(tile);
+                Bitmap bitmap = tileCache.get(tile);
+                if (bitmap == null) {
+                    continue;
+                }
+                Rect region = tile.region(imageWidth, imageHeight);
+                drawRect.set(offsetX + region.left * scale, offsetY + region.top * scale,
+                        offsetX + region.right * scale, offsetY + region.bottom * scale);
+                canvas.drawBitmap(bitmap, null, drawRect, paint);
+            }
+        }
+        visibleTiles = visible;
+
+        for (Tile tile : visible) {
+            if (tileCache.get(tile) == null) {
+                requestTile(tile);
+            }
+        }
+    }
+
+    /**
+     * Passes touches to the zoom and pan detectors.
+     *
+     * @param event The touch event
+     * @return true, the view consumes every touch
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    /**
+     * Advances a running fling.
+     */
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            offsetX = scroller.getCurrX();
+            offsetY = scroller.getCurrY();
+            clampOffsets();
+            postInvalidateOnAnimation();
+        }
+    }
+
+    /**
+     * Stores a newly opened decoder and starts decoding the low-resolution copy.
+     *
+     * @param requestGeneration The generation the decoder was opened for
+     * @param opened            The decoder, or null if the file could not be decoded
+     */
+    private void onDecoderOpened(int requestGeneration, @Nullable BitmapRegionDecoder opened) {
+        if (requestGeneration != generation) {
+            if (opened != null) {
+                AppExecutors.imageDecode().execute(opened::recycle);
+            }
+            return;
+        }
+        if (opened == null) {
+            notifyFailed();
+            return;
+        }
+        decoder = opened;
+        imageWidth = opened.getWidth();
+        imageHeight = opened.getHeight();
+        if (getWidth() > 0 && getHeight() > 0) {
+            fitImage();
+        }
+    }
+
+    /**
+     * Zooms out to fit the whole image in the view and decodes the low-resolution copy
+     * if this is the first layout since the image was set.
+     */
+    private void fitImage() {
+        minScale = Math.min((float) getWidth() / imageWidth, (float) getHeight() / imageHeight);
+        maxScale = Math.max(MAX_SCALE, minScale * DOUBLE_TAP_ZOOM);
+        scale = minScale;
+        clampOffsets();
+        invalidate();
+
+        if (baseRequested) {
+            return;
+        }
+        baseRequested = true;
+        // Smallest power of two that makes the whole image no larger than the view
+        baseSampleSize = 1;
+        while (imageWidth / baseSampleSize > getWidth() || imageHeight / baseSampleSize > getHeight()) {
+            baseSampleSize *= 2;
+        }
+
+        BitmapRegionDecoder current = decoder;
+        int requestGeneration = generation;
+        int sampleSize = baseSampleSize;
+        Rect region = new Rect(0, 0, imageWidth, imageHeight);
+        AppExecutors.imageDecode().execute(() -> {
+            Bitmap bitmap = decodeRegion(current, region, sampleSize);
+            AppExecutors.runOnMainThread(() -> onBaseDecoded(requestGeneration, bitmap));
+        });
+    }
+
+    /**
+     * Shows the decoded low-resolution copy.
+     *
+     * @param requestGeneration The generation the copy was decoded for
+     * @param bitmap            The copy, or null if decoding failed
+     */
+    private void onBaseDecoded(int requestGeneration, @Nullable Bitmap bitmap) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        if (bitmap == null) {
+            notifyFailed();
+            return;
+        }
+        baseBitmap = bitmap;
+        invalidate();
+        if (listener != null) {
+            listener.onImageLoaded();
+        }
+    }
+
+    /**
+     * Queues a tile for decoding unless it is already queued. The decode is skipped if
+     * the tile is no longer visible when its turn comes.
+     *
+     * @param tile The tile
+     */
+    private void requestTile(Tile tile) {
+        if (!pendingTiles.add(tile)) {
+            return;
+        }
+        BitmapRegionDecoder current = decoder;
+        int requestGeneration = generation;
+        Rect region = tile.region(imageWidth, imageHeight);
+        AppExecutors.imageDecode().execute(() -> {
+            boolean skipped = !visibleTiles.contains(tile);
+            Bitmap bitmap = skipped ? null : decodeRegion(current, region, tile.sampleSize);
+            AppExecutors.runOnMainThread(() -> onTileDecoded(requestGeneration, tile, bitmap, skipped));
+        });
+    }
+
+    /**
+     * Caches a decoded tile and redraws.
+     *
+     * @param requestGeneration The generation the tile was decoded for
+     * @param tile              The tile
+     * @param bitmap            The tile bitmap, or null if it was skipped or failed
+     * @param skipped           true if the tile was not visible when its turn came
+     */
+    private void onTileDecoded(int requestGeneration, Tile tile, @Nullable Bitmap bitmap, boolean skipped) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        pendingTiles.remove(tile);
+        if (bitmap != null) {
+            tileCache.put(tile, bitmap);
+            invalidate();
+        } else if (skipped && visibleTiles.contains(tile)) {
+            // Scrolled back into view after being skipped; request it again
+            invalidate();
+        }
+    }
+
+    /**
+     * Zooms to a scale, keeping the image point under the focus still.
+     *
+     * @param newScale The scale, clamped to the allowed range
+     * @param focusX   The horizontal focus in view pixels
+     * @param focusY   The vertical focus in view pixels
+     */
+    private void zoomTo(float newScale, float focusX, float focusY) {
+        newScale = Math.max(minScale, Math.min(maxScale, newScale));
+        float factor = newScale / scale;
+        offsetX = focusX - (focusX - offsetX) * factor;
+        offsetY = focusY - (focusY - offsetY) * factor;
+        scale = newScale;
+        clampOffsets();
+        invalidate();
+    }
+
+    /**
+     * Keeps the image against the view edges when it is larger than the view, and
+     * centered when it is smaller.
+     */
+    private void clampOffsets() {
+        offsetX = clampOffset(offsetX, imageWidth * scale, getWidth());
+        offsetY = clampOffset(offsetY, imageHeight * scale, getHeight());
+    }
+
+    /**
+     * Clamps an offset along one axis.
+     *
+     * @param offset      The offset of the image
+     * @param contentSize The size of the image on screen
+     * @param viewSize    The size of the view
+     * @return The clamped offset
+     */
+    private static float clampOffset(float offset, float contentSize, int viewSize) {
+        if (contentSize <= viewSize) {
+            return (viewSize - contentSize) / 2f;
+        }
+        return Math.max(viewSize - contentSize, Math.min(0, offset));
+    }
+
+    /**
+     * Gets the sample size to decode tiles at for a zoom: the largest power of two
+     * for which a decoded pixel covers no more than {@link #MAX_PIXEL_RATIO} screen
+     * pixels.
+     *
+     * @param scale The zoom in screen pixels per image pixel
+     * @return The sample size
+     */
+    private static int sampleSizeFor(float scale) {
+        int sampleSize = 1;
+        while (sampleSize * 2 * scale <= MAX_PIXEL_RATIO) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Reports a failed load to the listener.
+     */
+    private void notifyFailed() {
+        if (listener != null) {
+            listener.onImageLoadFailed();
+        }
+    }
+
+    /**
+     * Opens a region decoder on a file. Runs on the decode thread.
+     *
+     * @param file The image file
+     * @return The decoder, or null if the file is not a decodable image
+     */
+    @Nullable
+    @SuppressWarnings("deprecation") // The replacement needs API 31
+    private static BitmapRegionDecoder openDecoder(File file) {
+        try {
+            return BitmapRegionDecoder.newInstance(file.getPath(), false);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot decode " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a region of the image. Runs on the decode thread.
+     *
+     * @param decoder    The decoder
+     * @param region     The region in image pixels
+     * @param sampleSize The sample size
+     * @return The decoded region, or null if the decoder was released or decoding failed
+     */
+    @Nullable
+    private static Bitmap decodeRegion(BitmapRegionDecoder decoder, Rect region, int sampleSize) {
+        if (decoder.isRecycled()) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        try {
+            return decoder.decodeRegion(region, options);
+        } catch (IllegalArgumentException | OutOfMemoryError e) {
+            Log.w(TAG, "Cannot decode region " + region + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Zooms with a pinch.
+     */
+    private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+        /**
+         * Zooms by the pinch factor around the pinch focus.
+         *
+         * @param detector The detector
+         * @return true if the zoom was applied
+         */
+        @Override
+        public boolean onScale(@NonNull ScaleGestureDetector detector) {
+            if (baseBitmap == null) {
+                return false;
+            }
+            zoomTo(scale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+            return true;
+        }
+    }
+
+    /**
+     * Pans with a drag or fling, and zooms in or out with a double tap.
+     */
+    private class GestureListener extends GestureDetector.SimpleOnGestureListener {
+        /**
+         * Stops a running fling.
+         *
+         * @param e The down event
+         * @return true if an image is shown, so the gesture is tracked
+         */
+        @Override
+        public boolean onDown(@NonNull MotionEvent e) {
+            scroller.forceFinished(true);
+            return baseBitmap != null;
+        }
+
+        /**
+         * Pans by the drag distance.
+         *
+         * @param e1        The down event
+         * @param e2        The current move event
+         * @param distanceX The horizontal distance since the last call
+         * @param distanceY The vertical distance since the last call
+         * @return true
+         */
+        @Override
+        public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2,
+                                float distanceX, float distanceY) {
+            offsetX -= distanceX;
+            offsetY -= distanceY;
+            clampOffsets();
+            invalidate();
+            return true;
+        }
+
+        /**
+         * Starts a fling bounded by the image edges.
+         *
+         * @param e1        The down event
+         * @param e2        The up event
+         * @param velocityX The horizontal velocity in pixels per second
+         * @param velocityY The vertical velocity in pixels per second
+         * @return true
+         */
+        @Override
+        public boolean onFling(@Nullable MotionEvent e1, @NonNull MotionEvent e2,
+                               float velocityX, float velocityY) {
+            int minX = (int) Math.min(getWidth() - imageWidth * scale, offsetX);
+            int minY = (int) Math.min(getHeight() - imageHeight * scale, offsetY);
+            scroller.fling((int) offsetX, (int) offsetY, (int) velocityX, (int) velocityY,
+                    minX, (int) Math.max(0, offsetX), minY, (int) Math.max(0, offsetY));
+            postInvalidateOnAnimation();
+            return true;
+        }
+
+        /**
+         * Zooms in around the tap when the image is fitted, and back out otherwise.
+         *
+         * @param e The tap event
+         * @return true if an image is shown
+         */
+        @Override
+        public boolean onDoubleTap(@NonNull MotionEvent e) {
+            if (baseBitmap == null) {
+                return false;
+            }
+            float target = scale > minScale * 1.01f
+                    ? minScale : Math.min(maxScale, minScale * DOUBLE_TAP_ZOOM);
+            float focusX = e.getX();
+            float focusY = e.getY();
+            if (zoomAnimator != null) {
+                zoomAnimator.cancel();
+            }
+            zoomAnimator = ValueAnimator.ofFloat(scale, target);
+            zoomAnimator.setDuration(ZOOM_ANIMATION_MS);
+            zoomAnimator.addUpdateListener(animation ->
+                    zoomTo((float) animation.getAnimatedValue(), focusX, focusY));
+            zoomAnimator.start();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.nasaimageoftheday.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the conversion of user input to a full-text MATCH expression in
+ * {@link ApodSearchIndex}.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ApodSearchIndexTest {
+
+    /**
+     * Every word becomes a lower-case prefix term.
+     */
+    @Test
+    public void wordsBecomePrefixTerms() {
+        assertEquals("horsehead* nebula*", ApodSearchIndex.toMatchExpression("Horsehead Nebula"));
+        assertEquals("m31*", ApodSearchIndex.toMatchExpression("  M31  "));
+        assertEquals("\u00e9clipse*", ApodSearchIndex.toMatchExpression("\u00c9clipse"));
+    }
+
+    /**
+     * Quotes, prefix stars and operators typed by the user cannot change the query.
+     */
+    @Test
+    public void quotesAndOperatorsAreDropped() {
+        assertEquals("horse* head*", ApodSearchIndex.toMatchExpression("\"horse head\""));
+        assertEquals("orion*", ApodSearchIndex.toMatchExpression("orion*"));
+        assertEquals("sun* or* not* moon*", ApodSearchIndex.toMatchExpression("sun OR -NOT moon"));
+        assertEquals("title* comet*", ApodSearchIndex.toMatchExpression("title:comet"));
+        assertEquals("near* dust*", ApodSearchIndex.toMatchExpression("NEAR(dust)"));
+    }
+
+    /**
+     * Input without letters or digits yields no expression.
+     */
+    @Test
+    public void punctuationOnlyYieldsNothing() {
+        assertNull(ApodSearchIndex.toMatchExpression("\"*-:()!?\""));
+        assertNull(ApodSearchIndex.toMatchExpression("   "));
+        assertNull(ApodSearchIndex.toMatchExpression(""));
+        assertNull(ApodSearchIndex.toMatchExpression(null));
+    }
+
+    /**
+     * Only the first eight words are used.
+     */
+    @Test
+    public void longQueryIsCapped() {
+        assertEquals("a* b* c* d* e* f* g* h*",
+                ApodSearchIndex.toMatchExpression("a b c d e f g h i j"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.nasaimageoftheday.utils;
+
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ApiRateLimiter}, driven by a manual clock.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class ApiRateLimiterTest {
+
+    /** Cool-down of an open circuit, as configured in the limiter */
+    private static final long OPEN_INTERVAL_MS = 30000;
+
+    /** Current time of the manual clock */
+    private long now = 1_000_000;
+
+    /** Limiter under test */
+    private ApiRateLimiter limiter;
+
+    /**
+     * Creates a limiter reading the manual clock.
+     */
+    @Before
+    public void setUp() {
+        limiter = new ApiRateLimiter(() -> now);
+    }
+
+    /**
+     * Once only the reserved quarter of the quota is left, background work is refused
+     * while the user can still spend it.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void exhaustedReserveRefusesBackgroundOnly() throws Exception {
+        limiter.onHeaders("100", "25");
+
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.SPECULATIVE, null));
+        limiter.acquire(NasaApiClient.Priority.FOREGROUND, null);
+
+        limiter.onHeaders("100", "26");
+        limiter.acquire(NasaApiClient.Priority.SPECULATIVE, null);
+    }
+
+    /**
+     * A speculative request fails at once instead of waiting out a rate limit; a
+     * foreground request waits only for a short one.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void speculativeRequestNeverWaits() throws Exception {
+        limiter.acquire(NasaApiClient.Priority.SPECULATIVE, null);
+
+        limiter.onFailure(429, 10_000);
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.SPECULATIVE, null));
+        // Longer than a foreground request waits
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.FOREGROUND, null));
+
+        now += 10_000;
+        limiter.acquire(NasaApiClient.Priority.FOREGROUND, null);
+    }
+
+    /**
+     * Five failures in a row open the circuit; fewer do not.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void circuitOpensAfterFiveFailures() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            limiter.onFailure(500, 0);
+        }
+        limiter.acquire(NasaApiClient.Priority.FOREGROUND, null);
+
+        limiter.onFailure(0, 0);
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.FOREGROUND, null));
+    }
+
+    /**
+     * After the cool-down, one trial request goes through while others still fail; its
+     * success closes the circuit and its failure opens it again.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void circuitHalfOpensAfterCoolDown() throws Exception {
+        openCircuit();
+        now += OPEN_INTERVAL_MS - 1;
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.FOREGROUND, null));
+
+        now += 1;
+        limiter.acquire(NasaApiClient.Priority.FOREGROUND, null);
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.FOREGROUND, null));
+
+        // The trial fails: open for another cool-down
+        limiter.onFailure(503, 0);
+        assertThrows(NasaApiException.class,
+                () -> limiter.acquire(NasaApiClient.Priority.FOREGROUND, null));
+
+        now += OPEN_INTERVAL_MS;
+        limiter.acquire(NasaApiClient.Priority.FOREGROUND, null);
+        limiter.onSuccess();
+        limiter.acquire(NasaApiClient.Priority.FOREGROUND, null);
+        limiter.acquire(NasaApiClient.Priority.BACKGROUND, null);
+    }
+
+    /**
+     * Fails enough requests in a row to open the circuit.
+     */
+    private void openCircuit() {
+        for (int i = 0; i < 5; i++) {
+            limiter.onFailure(500, 0);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.nasaimageoftheday.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ *
+ * @author Your Name
+ * @version 1.0
+ */
+public class SingleFlightTest {
+
+    /** Rank of a low-priority caller, e.g. a speculative prefetch */
+    private static final int LOW = 1;
+
+    /** Rank of a high-priority caller, e.g. a user request */
+    private static final int HIGH = 3;
+
+    /**
+     * A caller arriving while a request is running shares its result.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> flight.run("2024-01-01", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "entry";
+        }, null));
+        awaitLeader(flight);
+
+        Future<String> joiner = joinAsync(flight, "2024-01-01", 0, loads);
+        awaitHits(flight, 1);
+        release.countDown();
+
+        assertEquals("entry", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("entry", joiner.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getHitCount());
+        assertEquals(1, flight.getMissCount());
+        executor.shutdown();
+    }
+
+    /**
+     * A higher-rank caller that joined a failing lower-rank request runs it again
+     * instead of inheriting the failure.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void higherRankRetriesAfterLowerRankFailure() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> flight.run("2024-01-01", LOW, () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new NasaApiException("Request limit reached, please try again later");
+        }, null));
+        awaitLeader(flight);
+
+        Future<String> joiner = joinAsync(flight, "2024-01-01", HIGH, loads);
+        awaitHits(flight, 1);
+        release.countDown();
+
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertEquals("entry", joiner.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        executor.shutdown();
+    }
+
+    /**
+     * A caller of the same rank shares the failure of the request it joined.
+     *
+     * @throws Exception If the test fails
+     */
+    @Test
+    public void sameRankSharesFailure() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> flight.run("2024-01-01", HIGH, () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new NasaApiException("HTTP Error: 500");
+        }, null));
+        awaitLeader(flight);
+
+        Future<String> joiner = joinAsync(flight, "2024-01-01", HIGH, loads);
+        awaitHits(flight, 1);
+        release.countDown();
+
+        assertThrows(Exception.class, () -> joiner.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        executor.shutdown();
+    }
+
+    /**
+     * Joins the request for a key on another thread; if it has to load, returns "entry".
+     *
+     * @param flight The registry
+     * @param key    The request key
+     * @param rank   The rank of the joining caller
+     * @param loads  Counts the loads run
+     * @return The result of the joining caller
+     */
+    private static Future<String> joinAsync(SingleFlight<String> flight, String key, int rank,
+                                            AtomicInteger loads) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> result = executor.submit(() -> flight.run(key, rank, () -> {
+            loads.incrementAndGet();
+            return "entry";
+        }, null));
+        executor.shutdown();
+        return result;
+    }
+
+    /**
+     * Waits until the leading caller has registered its request.
+     *
+     * @param flight The registry
+     * @throws InterruptedException If interrupted
+     */
+    private static void awaitLeader(SingleFlight<?> flight) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flight.getMissCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Waits until the given number of callers have joined a request in flight.
+     *
+     * @param flight The registry
+     * @param hits   The number of joins to wait for
+     * @throws InterruptedException If interrupted
+     */
+    private static void awaitHits(SingleFlight<?> flight, long hits) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flight.getHitCount() < hits && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Waits on a latch inside a loader.
+     *
+     * @param latch The latch
+     * @throws NasaApiException If interrupted
+     */
+    private static void await(CountDownLatch latch) throws NasaApiException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw NasaApiException.cancelled();
+        }
+    }
+}